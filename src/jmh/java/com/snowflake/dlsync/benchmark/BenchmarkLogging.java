@@ -0,0 +1,20 @@
+package com.snowflake.dlsync.benchmark;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import org.slf4j.LoggerFactory;
+
+final class BenchmarkLogging {
+    private BenchmarkLogging() {
+    }
+
+    /**
+     * The dlsync classes log every script at info level, which would dominate the measured time.
+     */
+    static void disable() {
+        org.slf4j.Logger rootLogger = LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME);
+        if(rootLogger instanceof Logger) {
+            ((Logger) rootLogger).setLevel(Level.WARN);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.snowflake.dlsync.benchmark;
+
+import com.snowflake.dlsync.dependency.DependencyExtractor;
+import com.snowflake.dlsync.dependency.DependencyGraph;
+import com.snowflake.dlsync.models.Config;
+import com.snowflake.dlsync.models.SchemaScript;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DependencyBenchmark {
+    @Param({"1000", "5000"})
+    private int objectCount;
+
+    @Param({"2000"})
+    private int averageScriptSize;
+
+    @Param({"1", "8"})
+    private int fanOut;
+
+    private List<SchemaScript> scripts;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkLogging.disable();
+        scripts = new SyntheticScriptRepository(objectCount, averageScriptSize, fanOut).getScripts();
+    }
+
+    /**
+     * A new extractor per invocation, so the identifier cache of the extractor is empty like at the start of a deployment.
+     */
+    @Benchmark
+    public void extractScriptDependencies(Blackhole blackhole) {
+        DependencyExtractor dependencyExtractor = new DependencyExtractor();
+        dependencyExtractor.addScripts(scripts);
+        for(SchemaScript script: scripts) {
+            blackhole.consume(dependencyExtractor.extractScriptDependencies(script));
+        }
+    }
+
+    @Benchmark
+    public Object topologicalSort(GraphState graphState) {
+        return graphState.dependencyGraph.topologicalSort();
+    }
+
+    /**
+     * The adjacency of the dependents is built by the first sort of a graph, so a new graph is built outside the measurement before every sort.
+     */
+    @State(Scope.Thread)
+    public static class GraphState {
+        private DependencyGraph dependencyGraph;
+
+        @Setup(Level.Invocation)
+        public void buildGraph(DependencyBenchmark benchmark) {
+            dependencyGraph = new DependencyGraph(new DependencyExtractor(), new Config());
+            dependencyGraph.addNodes(benchmark.scripts);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.snowflake.dlsync.benchmark;
+
+import com.snowflake.dlsync.ChangeMangerFactory;
+import com.snowflake.dlsync.ConfigManager;
+import com.snowflake.dlsync.doa.FakeSnowflakeBackend;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Runs a full deploy against an in memory Snowflake stand-in with a simulated round trip latency.
+ * Every invocation deploys into an empty backend, so the measured time covers loading, parsing, sorting and all round trips.
+ * The number of round trips of the last deploy is printed at the end of the trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class DeployBenchmark {
+    @Param({"1000", "10000"})
+    private int objectCount;
+
+    @Param({"0", "2"})
+    private long latencyMillis;
+
+    private Path scriptRoot;
+    private FakeSnowflakeBackend backend;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        BenchmarkLogging.disable();
+        scriptRoot = Files.createTempDirectory("dlsync-bench");
+        new SyntheticScriptRepository(objectCount, 1000, 4).writeTo(scriptRoot);
+    }
+
+    @Setup(Level.Invocation)
+    public void createBackend() {
+        backend = new FakeSnowflakeBackend(SyntheticScriptRepository.DATABASE, "DLSYNC", latencyMillis);
+    }
+
+    @Benchmark
+    public long deploy() throws Exception {
+        ChangeMangerFactory.createChangeManger(new ConfigManager(scriptRoot.toString(), "bench"), backend).deploy(false);
+        return backend.getStatementCount();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        System.out.printf("%nround trips of the last deploy: %d%n", backend.getStatementCount());
+        try(Stream<Path> paths = Files.walk(scriptRoot)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.snowflake.dlsync.benchmark;
+
+import com.snowflake.dlsync.ScriptFactory;
+import com.snowflake.dlsync.models.SchemaScript;
+import com.snowflake.dlsync.models.ScriptObjectType;
+import com.snowflake.dlsync.parser.SqlTokenizer;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tokenizer operations on a single large view script with many string literals, the case where per call pattern compilation
+ * and prefix scans dominate.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LargeScriptTokenizerBenchmark {
+    private static final String OBJECT_NAME = "LARGE_VIEW";
+
+    @Param({"100000"})
+    private int scriptSize;
+
+    private SchemaScript script;
+    private SchemaScript reformattedScript;
+
+    @Setup
+    public void setUp() {
+        BenchmarkLogging.disable();
+        String content = createView(scriptSize);
+        script = ScriptFactory.getSchemaScript(SyntheticScriptRepository.DATABASE, "SCHEMA_0", ScriptObjectType.VIEWS, OBJECT_NAME, content);
+        reformattedScript = ScriptFactory.getSchemaScript(SyntheticScriptRepository.DATABASE, "SCHEMA_0", ScriptObjectType.VIEWS, OBJECT_NAME, "-- reformatted\n" + content);
+    }
+
+    @Benchmark
+    public String removeSqlStringLiterals() {
+        return SqlTokenizer.removeSqlStringLiterals(script.getContent());
+    }
+
+    @Benchmark
+    public String removeSqlStringLiteralsManual() {
+        return SqlTokenizer.removeSqlStringLiteralsManual(script.getContent());
+    }
+
+    @Benchmark
+    public String getFirstFullIdentifier() {
+        return SqlTokenizer.getFirstFullIdentifier(OBJECT_NAME, script.getContent());
+    }
+
+    @Benchmark
+    public boolean compareScripts() {
+        return SqlTokenizer.compareScripts(script, reformattedScript);
+    }
+
+    private static String createView(int scriptSize) {
+        StringBuilder content = new StringBuilder(scriptSize + 128);
+        content.append("create or replace view ").append(SyntheticScriptRepository.DATABASE).append(".SCHEMA_0.").append(OBJECT_NAME).append(" as\nselect t0.id");
+        for(int column = 0; content.length() < scriptSize; column++) {
+            content.append(",\n    case when t0.col_").append(column).append(" = 'value ").append(column)
+                    .append("' then 'it''s label ").append(column).append("' end as c_").append(column);
+        }
+        content.append("\nfrom ").append(SyntheticScriptRepository.DATABASE).append(".SCHEMA_0.TABLE_0 t0;");
+        return content.toString();
+    }
+}
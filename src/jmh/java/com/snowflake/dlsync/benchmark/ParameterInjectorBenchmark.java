@@ -0,0 +1,64 @@
+package com.snowflake.dlsync.benchmark;
+
+import com.snowflake.dlsync.models.SchemaScript;
+import com.snowflake.dlsync.parser.ParameterInjector;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParameterInjectorBenchmark {
+    @Param({"1000", "5000"})
+    private int objectCount;
+
+    @Param({"2000"})
+    private int averageScriptSize;
+
+    @Param({"4"})
+    private int fanOut;
+
+    private List<SchemaScript> scripts;
+    private List<String> parametrizedContents;
+    private List<String> injectedContents;
+    private ParameterInjector parameterInjector;
+
+    @Setup
+    public void setUp() {
+        BenchmarkLogging.disable();
+        SyntheticScriptRepository repository = new SyntheticScriptRepository(objectCount, averageScriptSize, fanOut);
+        scripts = repository.getScripts();
+        parametrizedContents = repository.getParametrizedContents();
+        injectedContents = repository.getParametrizedContents();
+        for(int index = 0; index < scripts.size(); index++) {
+            injectedContents.set(index, scripts.get(index).getContent());
+        }
+        parameterInjector = new ParameterInjector(repository.getParameters());
+    }
+
+    @Benchmark
+    public void injectParameters(Blackhole blackhole) {
+        for(int index = 0; index < scripts.size(); index++) {
+            SchemaScript script = scripts.get(index);
+            script.setContent(parametrizedContents.get(index));
+            parameterInjector.injectParameters(script);
+            blackhole.consume(script.getContent());
+        }
+    }
+
+    @Benchmark
+    public void parametrizeScript(Blackhole blackhole) {
+        for(int index = 0; index < scripts.size(); index++) {
+            SchemaScript script = scripts.get(index);
+            script.setContent(injectedContents.get(index));
+            parameterInjector.parametrizeScript(script, false);
+            blackhole.consume(script.getContent());
+        }
+    }
+}
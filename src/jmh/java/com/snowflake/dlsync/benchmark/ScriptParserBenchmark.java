@@ -0,0 +1,66 @@
+package com.snowflake.dlsync.benchmark;
+
+import com.snowflake.dlsync.parser.ScriptParser;
+import com.snowflake.dlsync.parser.antlr.SnowflakeLexer;
+import com.snowflake.dlsync.parser.antlr.SnowflakeParser;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per script parse latency of the two stage SLL/LL parsing against plain LL parsing.
+ * With coldCache the shared prediction cache is cleared before every parse, as for the first script of a run without warm up.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ScriptParserBenchmark {
+    private static final Map<String, String> SCRIPTS = Map.of(
+            "view", "create or replace view DB1.SCHEMA1.VIEW1 as select t1.id, t1.name, count(*) as total from DB1.SCHEMA1.TABLE1 t1 " +
+                    "left join DB1.SCHEMA1.TABLE2 t2 on t1.id = t2.id group by t1.id, t1.name;",
+            "filteredView", "create or replace view DB1.SCHEMA1.VIEW2 as select t1.id, count(*) as total from DB1.SCHEMA1.TABLE1 t1 " +
+                    "where t1.amount > 100 and t1.status = 'OPEN' group by t1.id;",
+            "test", "with MOCK1 as (select 1 as ID, 'a' as NAME union all select 2, 'b'), " +
+                    "EXPECTED_DATA as (select * from MOCK1 where ID > 1) select * from EXPECTED_DATA;"
+    );
+
+    @Param({"view", "filteredView", "test"})
+    private String scriptType;
+
+    @Param({"false", "true"})
+    private boolean coldCache;
+
+    private String content;
+
+    @Setup
+    public void setUp() {
+        BenchmarkLogging.disable();
+        content = SCRIPTS.get(scriptType);
+    }
+
+    @Setup(Level.Invocation)
+    public void clearCache() {
+        if(coldCache) {
+            new SnowflakeParser(null).getInterpreter().clearDFA();
+        }
+    }
+
+    @Benchmark
+    public Object llParse() {
+        SnowflakeParser parser = new SnowflakeParser(new CommonTokenStream(new SnowflakeLexer(CharStreams.fromString(content))));
+        return parser.snowflake_file();
+    }
+
+    @Benchmark
+    public Object twoStageParse() {
+        ScriptParser parser = new ScriptParser(content);
+        parser.parse();
+        return parser;
+    }
+}
@@ -0,0 +1,60 @@
+package com.snowflake.dlsync.benchmark;
+
+import com.snowflake.dlsync.models.SchemaScript;
+import com.snowflake.dlsync.parser.SqlTokenizer;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SqlTokenizerBenchmark {
+    @Param({"1000", "5000"})
+    private int objectCount;
+
+    @Param({"2000"})
+    private int averageScriptSize;
+
+    @Param({"4"})
+    private int fanOut;
+
+    private List<SchemaScript> scripts;
+    private Map<String, String> schemaDdls;
+
+    @Setup
+    public void setUp() {
+        BenchmarkLogging.disable();
+        SyntheticScriptRepository repository = new SyntheticScriptRepository(objectCount, averageScriptSize, fanOut);
+        scripts = repository.getScripts();
+        schemaDdls = repository.getSchemaNames().stream().collect(Collectors.toMap(schema -> schema, repository::getSchemaDdl));
+    }
+
+    @Benchmark
+    public void removeSqlComments(Blackhole blackhole) {
+        for(SchemaScript script: scripts) {
+            blackhole.consume(SqlTokenizer.removeSqlComments(script.getContent()));
+        }
+    }
+
+    @Benchmark
+    public void getFullIdentifiers(Blackhole blackhole) {
+        for(SchemaScript script: scripts) {
+            blackhole.consume(SqlTokenizer.getFullIdentifiers(script.getObjectName(), script.getContent()));
+        }
+    }
+
+    @Benchmark
+    public void parseDdlScripts(Blackhole blackhole) {
+        for(Map.Entry<String, String> schemaDdl: schemaDdls.entrySet()) {
+            blackhole.consume(SqlTokenizer.parseDdlScripts(schemaDdl.getValue(), SyntheticScriptRepository.DATABASE, schemaDdl.getKey()));
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.snowflake.dlsync.benchmark;
+
+import com.snowflake.dlsync.ScriptFactory;
+import com.snowflake.dlsync.models.SchemaScript;
+import com.snowflake.dlsync.models.ScriptObjectType;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+/**
+ * Generates an in memory script repository for benchmarks.
+ * The first fifth of the objects are tables, every other object is a view selecting from fanOut randomly chosen earlier objects,
+ * so the generated dependency graph is always acyclic.
+ */
+public class SyntheticScriptRepository {
+    public static final String DATABASE = "BENCH_DB";
+    public static final String DATABASE_PARAMETER = "${db}";
+    private static final int SCHEMA_COUNT = 10;
+
+    private final List<String> objectNames = new ArrayList<>();
+    private final List<String> schemaNames = new ArrayList<>();
+    private final List<String> templates = new ArrayList<>();
+    private final List<ScriptObjectType> objectTypes = new ArrayList<>();
+
+    public SyntheticScriptRepository(int objectCount, int averageScriptSize, int fanOut) {
+        this(objectCount, averageScriptSize, fanOut, 42L);
+    }
+
+    public SyntheticScriptRepository(int objectCount, int averageScriptSize, int fanOut, long seed) {
+        Random random = new Random(seed);
+        int tableCount = Math.max(1, objectCount / 5);
+        for(int index = 0; index < objectCount; index++) {
+            String schema = "SCHEMA_" + (index % SCHEMA_COUNT);
+            boolean isTable = index < tableCount;
+            String objectName = (isTable ? "TABLE_" : "VIEW_") + index;
+            int scriptSize = averageScriptSize / 2 + random.nextInt(Math.max(1, averageScriptSize));
+            schemaNames.add(schema);
+            objectNames.add(objectName);
+            objectTypes.add(isTable ? ScriptObjectType.TABLES : ScriptObjectType.VIEWS);
+            templates.add(isTable ? createTable(schema, objectName, scriptSize) : createView(schema, objectName, scriptSize, fanOut, index, random));
+        }
+    }
+
+    /**
+     * Scripts with the database name resolved, as they are after parameter injection.
+     */
+    public List<SchemaScript> getScripts() {
+        List<SchemaScript> scripts = new ArrayList<>(templates.size());
+        for(int index = 0; index < templates.size(); index++) {
+            String content = templates.get(index).replace(DATABASE_PARAMETER, DATABASE);
+            scripts.add(ScriptFactory.getSchemaScript(DATABASE, schemaNames.get(index), objectTypes.get(index), objectNames.get(index), content));
+        }
+        return scripts;
+    }
+
+    /**
+     * Script contents with the database name as a parameter placeholder, as they are in the script files.
+     */
+    public List<String> getParametrizedContents() {
+        return new ArrayList<>(templates);
+    }
+
+    public Properties getParameters() {
+        Properties parameters = new Properties();
+        parameters.setProperty("db", DATABASE);
+        for(int index = 0; index < SCHEMA_COUNT; index++) {
+            parameters.setProperty("schema_" + index, "SCHEMA_" + index);
+        }
+        parameters.setProperty("profile", "bench");
+        return parameters;
+    }
+
+    public List<String> getSchemaNames() {
+        return schemaNames.stream().distinct().collect(Collectors.toList());
+    }
+
+    /**
+     * The schema DDL in the format returned by GET_DDL('SCHEMA', ...).
+     */
+    public String getSchemaDdl(String schema) {
+        StringBuilder ddl = new StringBuilder(String.format("create or replace schema %s;\n\n", schema));
+        for(int index = 0; index < templates.size(); index++) {
+            if(schemaNames.get(index).equals(schema)) {
+                ddl.append(templates.get(index).replace(DATABASE_PARAMETER, DATABASE)).append("\n\n");
+            }
+        }
+        return ddl.toString();
+    }
+
+    /**
+     * Writes the repository as a script root with the parametrized script files, a config.yaml and a parameter-bench.properties.
+     * Tables are written as migration scripts, views as declarative scripts.
+     */
+    public void writeTo(Path scriptRoot) throws IOException {
+        for(int index = 0; index < templates.size(); index++) {
+            Path scriptFile = scriptRoot.resolve("main").resolve(DATABASE).resolve(schemaNames.get(index))
+                    .resolve(objectTypes.get(index).name()).resolve(objectNames.get(index) + ".SQL");
+            Files.createDirectories(scriptFile.getParent());
+            String content = objectTypes.get(index) == ScriptObjectType.TABLES ? "---version: 0, author: dlsync\n" + templates.get(index) : templates.get(index);
+            Files.writeString(scriptFile, content);
+        }
+        Files.writeString(scriptRoot.resolve("config.yaml"), String.format("connection:\n  account: bench\n  db: %s\n  schema: DLSYNC\n", DATABASE));
+        Files.writeString(scriptRoot.resolve("parameter-bench.properties"), String.format("db=%s\n", DATABASE));
+    }
+
+    private String createTable(String schema, String objectName, int scriptSize) {
+        StringBuilder content = new StringBuilder(scriptSize + 64);
+        content.append("-- synthetic table ").append(objectName).append("\n");
+        content.append("create or replace table ").append(DATABASE_PARAMETER).append(".").append(schema).append(".").append(objectName).append(" (\n");
+        content.append("    id number comment 'primary key of ").append(objectName).append("'");
+        for(int column = 0; content.length() < scriptSize; column++) {
+            content.append(",\n    col_").append(column).append(" varchar(256) /* synthetic column */");
+        }
+        content.append("\n);");
+        return content.toString();
+    }
+
+    private String createView(String schema, String objectName, int scriptSize, int fanOut, int index, Random random) {
+        List<Integer> dependencies = new ArrayList<>();
+        for(int count = 0; count < Math.min(fanOut, index); count++) {
+            dependencies.add(random.nextInt(index));
+        }
+        StringBuilder content = new StringBuilder(scriptSize + 64);
+        content.append("-- synthetic view ").append(objectName).append(" depending on ").append(dependencies.size()).append(" objects\n");
+        content.append("create or replace view ").append(DATABASE_PARAMETER).append(".").append(schema).append(".").append(objectName).append(" as\n");
+        content.append("select t0.id, 'constant value of ").append(objectName).append("' as label");
+        for(int column = 0; content.length() < scriptSize; column++) {
+            int alias = dependencies.isEmpty() ? 0 : column % dependencies.size();
+            content.append(",\n    t").append(alias).append(".col_").append(column).append(" as c_").append(column).append(" -- projected column");
+        }
+        for(int alias = 0; alias < Math.max(1, dependencies.size()); alias++) {
+            int dependency = dependencies.isEmpty() ? 0 : dependencies.get(alias);
+            String dependencyName = DATABASE_PARAMETER + "." + schemaNames.get(dependency) + "." + objectNames.get(dependency);
+            if(alias == 0) {
+                content.append("\nfrom ").append(dependencyName).append(" t0");
+            }
+            else {
+                content.append("\nleft join ").append(dependencyName).append(" t").append(alias).append(" on t").append(alias).append(".id = t0.id");
+            }
+        }
+        content.append(";");
+        return content.toString();
+    }
+}
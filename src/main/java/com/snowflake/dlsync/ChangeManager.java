@@ -1,16 +1,32 @@
 package com.snowflake.dlsync;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.snowflake.dlsync.dependency.DependencyExtractor;
 import com.snowflake.dlsync.dependency.DependencyGraph;
+import com.snowflake.dlsync.dependency.ScriptModel;
+import com.snowflake.dlsync.doa.GitChangeSource;
 import com.snowflake.dlsync.doa.ScriptRepo;
 import com.snowflake.dlsync.doa.ScriptSource;
+import com.snowflake.dlsync.doa.ScriptWatcher;
 import com.snowflake.dlsync.models.*;
 import com.snowflake.dlsync.parser.ParameterInjector;
+import com.snowflake.dlsync.parser.TestQueryCache;
 import lombok.extern.slf4j.Slf4j;
 
 import java.io.*;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.security.NoSuchAlgorithmException;
 import java.sql.SQLException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -21,6 +37,13 @@ public class ChangeManager {
     private ScriptRepo scriptRepo;
     private DependencyGraph dependencyGraph;
     private ParameterInjector parameterInjector;
+    private MetricsRegistry metrics = new MetricsRegistry();
+    private Path metricsFile;
+    private Path planFile;
+    private Path testReportFile;
+    private TestQueryCache testQueryCache;
+    private GitChangeSource gitChangeSource;
+    private long commandStartTime;
 
     public ChangeManager(Config config, ScriptSource scriptSource, ScriptRepo scriptRepo, DependencyGraph dependencyGraph, ParameterInjector parameterInjector) {
         this.config= config;
@@ -30,6 +53,106 @@ public class ChangeManager {
         this.parameterInjector = parameterInjector;
     }
 
+    /**
+     * Use the registry for the metrics of each command, and write its summary to the metricsFile at the end of the command if the file is not null.
+     */
+    public void setMetrics(MetricsRegistry metrics, Path metricsFile) {
+        this.metrics = metrics;
+        this.metricsFile = metricsFile;
+    }
+
+    /**
+     * Write the deployment plan of each deploy to the planFile if it is not null.
+     */
+    public void setPlanFile(Path planFile) {
+        this.planFile = planFile;
+    }
+
+    /**
+     * Write the results of each test command as a JUnit XML report to the testReportFile if it is not null.
+     */
+    public void setTestReportFile(Path testReportFile) {
+        this.testReportFile = testReportFile;
+    }
+
+    /**
+     * Reuse the generated test queries of unchanged tests from the cache.
+     */
+    public void setTestQueryCache(TestQueryCache testQueryCache) {
+        this.testQueryCache = testQueryCache;
+    }
+
+    /**
+     * Read only the script files changed since the commit of the last deploy, and record the deployed commit with each deploy.
+     */
+    public void setGitChangeSource(GitChangeSource gitChangeSource) {
+        this.gitChangeSource = gitChangeSource;
+    }
+
+    /**
+     * The scripts to compare with the deployed hashes. With a git change source only the scripts of the files changed since the commit
+     * of the last deploy are read, with cascade also the files depending on them according to the dependency cache. All scripts are read
+     * if the last deploy or rollback did not record a commit, the deploy settings changed since then, the commit can not be compared,
+     * the cascade has no dependency cache to find the dependents, or every fullHashInterval deploys as a check of the files git did not report.
+     */
+    private List<Script> getDeployCandidates() throws SQLException, IOException {
+        if(gitChangeSource == null) {
+            return scriptSource.getAllScripts();
+        }
+        String headCommitId = gitChangeSource.getHeadCommitId();
+        Set<Path> uncommittedFiles = headCommitId == null ? null : gitChangeSource.getChangedFiles("HEAD");
+        boolean isClean = uncommittedFiles != null && uncommittedFiles.stream().noneMatch(scriptSource::isScriptFile);
+        scriptRepo.setCommitId(isClean ? headCommitId : null);
+        if(!isClean) {
+            log.info("Script files differ from the git commit, the deploy will not record a commit.");
+        }
+        String configHash = getDeployConfigHash();
+        scriptRepo.setConfigHash(configHash);
+        DeployedCommit lastDeploy = scriptRepo.loadLastDeployedCommit();
+        if(lastDeploy == null || lastDeploy.getCommitId() == null) {
+            log.info("No git commit recorded by the last deploy or rollback, reading all script files.");
+            return scriptSource.getAllScripts();
+        }
+        if(!configHash.equals(lastDeploy.getConfigHash())) {
+            log.info("The deploy settings changed since the last deploy, reading all script files.");
+            return scriptSource.getAllScripts();
+        }
+        if((lastDeploy.getDeployCount() + 1) % config.getFullHashInterval() == 0) {
+            log.info("Reading all script files, all files are hashed every {} deploys.", config.getFullHashInterval());
+            return scriptSource.getAllScripts();
+        }
+        Set<Path> changedFiles = gitChangeSource.getChangedFiles(lastDeploy.getCommitId());
+        if(changedFiles == null) {
+            return scriptSource.getAllScripts();
+        }
+        log.info("Reading {} files changed since the deployed commit {}.", changedFiles.size(), lastDeploy.getCommitId());
+        List<Script> scripts = scriptSource.getScripts(changedFiles);
+        if(!config.isCascade()) {
+            return scripts;
+        }
+        Set<Path> dependentFiles = dependencyGraph.getCachedDependentPaths(scripts);
+        if(dependentFiles == null) {
+            log.info("Reading all script files to find the dependents of the changed scripts, the dependency cache is not enabled or empty.");
+            return scriptSource.getAllScripts();
+        }
+        dependentFiles.removeAll(changedFiles);
+        log.info("Reading {} files depending on the changed files according to the dependency cache.", dependentFiles.size());
+        Set<String> scriptIds = scripts.stream().map(Script::getId).collect(Collectors.toSet());
+        for(Script dependent: scriptSource.getScripts(dependentFiles)) {
+            if(scriptIds.add(dependent.getId())) {
+                scripts.add(dependent);
+            }
+        }
+        return scripts;
+    }
+
+    /**
+     * Hash of the config deciding which scripts are deployed. A change of it may deploy scripts of files git reports as unchanged.
+     */
+    private String getDeployConfigHash() {
+        return Util.getMd5Hash(config.getScriptExclusion() + "\n" + config.getDependencyOverride() + "\n" + config.isCascade());
+    }
+
     private void validateScript(Script script) {
         if(script instanceof MigrationScript && scriptRepo.isScriptVersionDeployed(script)) {
             log.error("Migration type script changed. Script for the object {} has changed from previous deployments.", script.getId());
@@ -40,13 +163,23 @@ public class ChangeManager {
         log.info("Started Deploying {}", onlyHashes?"Only Hashes":"scripts");
         startSync(ChangeType.DEPLOY);
         scriptRepo.loadScriptHash();
-        List<Script> changedScripts = scriptSource.getAllScripts()
+        List<Script> allScripts = getDeployCandidates();
+        dependencyGraph.addKnownScripts(allScripts);
+        List<Script> changedScripts = allScripts
                 .stream()
                 .filter(script -> !config.isScriptExcluded(script))
                 .filter(script -> scriptRepo.isScriptChanged(script))
                 .collect(Collectors.toList());
-        dependencyGraph.addNodes(changedScripts);
-        List<Script> sequencedScript = dependencyGraph.topologicalSort();
+        metrics.increment(MetricsRegistry.SCRIPTS_CHANGED, changedScripts.size());
+        List<Script> includedScripts = allScripts.stream().filter(script -> !config.isScriptExcluded(script)).collect(Collectors.toList());
+        DeploymentPlan plan = new DeploymentPlan();
+        List<List<Script>> steps = dependencyGraph.planDeployment(config, includedScripts, changedScripts, plan);
+        writePlan(plan);
+        if(config.getDeployParallelism() > 1) {
+            deployInLevels(onlyHashes, config.getDeployParallelism(), steps);
+            return;
+        }
+        List<Script> sequencedScript = steps.stream().flatMap(List::stream).collect(Collectors.toList());
         log.info("Deploying {} change scripts to db.", sequencedScript.size());
         
         int size = sequencedScript.size();
@@ -58,12 +191,11 @@ public class ChangeManager {
             log.info("{} of {}: Deploying object: {}", index++, size, script);
             
             try {  
-                parameterInjector.injectParameters(script);
-                validateScript(script);
-                scriptRepo.createScriptObject(script, onlyHashes);
+                deployScript(script, onlyHashes);
             }
             catch (Exception e) {
                 failedCount++;
+                metrics.increment(MetricsRegistry.SCRIPTS_FAILED);
                 failedScripts.add(script.getId()); 
                 log.error("Failed to deploy script {}: {}", script.getId(), e.getMessage());
                 
@@ -86,12 +218,183 @@ public class ChangeManager {
         }
     }
 
+    private void deployScript(Script script, boolean onlyHashes) throws SQLException {
+        parameterInjector.injectParameters(script);
+        validateScript(script);
+        scriptRepo.createScriptObject(script, onlyHashes);
+        metrics.increment(MetricsRegistry.SCRIPTS_DEPLOYED);
+    }
+
+    private void deployInLevels(boolean onlyHashes, int parallelism, List<List<Script>> levels) throws SQLException {
+        int size = levels.stream().mapToInt(List::size).sum();
+        log.info("Deploying {} change scripts to db in {} levels with parallelism {}.", size, levels.size(), parallelism);
+        AtomicInteger index = new AtomicInteger(1);
+        List<String> failedScripts = Collections.synchronizedList(new ArrayList<>());
+        Set<Script> skippedScripts = new HashSet<>();
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        try {
+            for(int level = 0; level < levels.size(); level++) {
+                List<Script> levelScripts = levels.get(level).stream()
+                        .filter(script -> !skippedScripts.contains(script))
+                        .collect(Collectors.toList());
+                log.info("Deploying level {} of {} with {} scripts.", level + 1, levels.size(), levelScripts.size());
+                Map<Script, Future<?>> deployments = new LinkedHashMap<>();
+                for(Script script: levelScripts) {
+                    deployments.put(script, executor.submit(() -> {
+                        log.info("{} of {}: Deploying object: {}", index.getAndIncrement(), size, script);
+                        deployScript(script, onlyHashes);
+                        return null;
+                    }));
+                }
+                Exception firstError = null;
+                for(Map.Entry<Script, Future<?>> deployment: deployments.entrySet()) {
+                    Script script = deployment.getKey();
+                    try {
+                        deployment.getValue().get();
+                    }
+                    catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new RuntimeException("Deployment interrupted.", e);
+                    }
+                    catch (ExecutionException e) {
+                        Exception cause = e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+                        failedScripts.add(script.getId());
+                        metrics.increment(MetricsRegistry.SCRIPTS_FAILED);
+                        log.error("Failed to deploy script {}: {}", script.getId(), cause.getMessage());
+                        if(firstError == null) {
+                            firstError = cause;
+                        }
+                        Set<Script> dependents = dependencyGraph.getAllDependents(script);
+                        if(!dependents.isEmpty()) {
+                            log.warn("Skipping {} scripts depending on failed script {}: {}", dependents.size(), script.getId(), dependents);
+                        }
+                        skippedScripts.addAll(dependents);
+                    }
+                }
+                scriptRepo.flushScriptHistory();
+                if(firstError != null && !config.isContinueOnFailure()) {
+                    if(firstError instanceof SQLException) {
+                        throw (SQLException) firstError;
+                    }
+                    if(firstError instanceof RuntimeException) {
+                        throw (RuntimeException) firstError;
+                    }
+                    throw new RuntimeException(firstError);
+                }
+            }
+        }
+        finally {
+            executor.shutdownNow();
+        }
+        if (!failedScripts.isEmpty()) {
+            String errorMsg = String.format("Deployment completed with %d failures and %d skipped scripts", failedScripts.size(), skippedScripts.size());
+            log.error(errorMsg);
+            log.error("Failed scripts: {}", String.join(", ", failedScripts));
+            if(!skippedScripts.isEmpty()) {
+                log.error("Skipped scripts: {}", skippedScripts.stream().map(Script::getId).collect(Collectors.joining(", ")));
+            }
+            endSyncError(ChangeType.DEPLOY, errorMsg);
+            throw new RuntimeException(errorMsg);
+        }
+        endSyncSuccess(ChangeType.DEPLOY, (long)size);
+    }
+
+    /**
+     * Watch the script files and write the deployment plan of the current scripts after every change, until the thread is interrupted.
+     * Only the changed files are parsed again and only their dependencies are extracted again, the plan is made by the same {@link DependencyGraph} planner as deploy.
+     * The plan compares the scripts with the hashes deployed when the watch started, nothing is deployed.
+     */
+    public void watch() throws SQLException, IOException {
+        log.info("Started watching script files.");
+        scriptRepo.loadScriptHash();
+        ScriptModel scriptModel = new ScriptModel(config);
+        scriptModel.load(scriptSource.getAllFileScripts());
+        updatePlan(scriptModel);
+        try (ScriptWatcher watcher = new ScriptWatcher(scriptSource.getScriptDirectories())) {
+            log.info("Watching {} for changes.", scriptSource.getScriptDirectories());
+            while(!Thread.currentThread().isInterrupted()) {
+                watchChanges(scriptModel, watcher.take());
+                updatePlan(scriptModel);
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            Thread.currentThread().interrupt();
+            log.info("Stopped watching script files.");
+        }
+    }
+
+    private void watchChanges(ScriptModel scriptModel, ScriptWatcher.Changes changes) throws IOException {
+        long startTime = System.nanoTime();
+        if(changes.isOverflow()) {
+            scriptSource.clearCache();
+            scriptModel.load(scriptSource.getAllFileScripts());
+            return;
+        }
+        List<Script> changedScripts = new ArrayList<>();
+        List<Path> removedPaths = new ArrayList<>();
+        for(Path path: changes.getPaths()) {
+            if(scriptSource.isTestScriptFile(path)) {
+                log.info("Test script changed: {}", path);
+            }
+            else if(!Files.exists(path)) {
+                removedPaths.add(path);
+            }
+            else {
+                try {
+                    Script script = scriptSource.readScript(path);
+                    if(script != null) {
+                        changedScripts.add(script);
+                    }
+                } catch (RuntimeException e) {
+                    log.error("Unable to parse {}, using its previous version: {}", path, e.getMessage());
+                }
+            }
+        }
+        int extractedCount = scriptModel.update(changedScripts, removedPaths);
+        log.info("Updated {} changed and {} removed script files in {} ms, dependencies of {} scripts extracted.",
+                changedScripts.size(), removedPaths.size(), (System.nanoTime() - startTime) / 1_000_000, extractedCount);
+    }
+
+    private void updatePlan(ScriptModel scriptModel) {
+        try {
+            List<Script> includedScripts = scriptModel.getScripts().stream()
+                    .filter(script -> !config.isScriptExcluded(script))
+                    .sorted(Comparator.comparing(Script::getId))
+                    .collect(Collectors.toList());
+            List<Script> changedScripts = includedScripts.stream().filter(scriptRepo::isScriptChanged).collect(Collectors.toList());
+            DependencyGraph planGraph = new DependencyGraph(new DependencyExtractor(), config);
+            planGraph.setScriptDependencies(scriptModel.getScriptDependencies());
+            DeploymentPlan plan = new DeploymentPlan();
+            planGraph.planDeployment(config, includedScripts, changedScripts, plan);
+            writePlan(plan);
+            log.info("Scripts to deploy: {}", plan.getLevels());
+        } catch (RuntimeException e) {
+            log.error("Unable to plan the deployment: {}", e.getMessage());
+        }
+    }
+
+    private void writePlan(DeploymentPlan plan) {
+        log.info("Deployment plan has {} changed and {} cascaded scripts in {} steps.", plan.getChanged().size(), plan.getCascaded().size(), plan.getLevels().size());
+        if(planFile == null) {
+            return;
+        }
+        try {
+            if(planFile.getParent() != null) {
+                Files.createDirectories(planFile.getParent());
+            }
+            new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(planFile.toFile(), plan);
+            log.info("Deployment plan written to {}", planFile);
+        } catch (IOException e) {
+            log.warn("Unable to write deployment plan to {}: {}", planFile, e.getMessage());
+        }
+    }
+
     public void rollback() throws SQLException, IOException {
         log.info("Starting ROLLBACK scripts.");
         startSync(ChangeType.ROLLBACK);
         Set<String> deployedScriptIds = new HashSet<>(scriptRepo.loadScriptHash());
         scriptSource.getAllScripts().forEach(script -> deployedScriptIds.remove(script.getId()));
         List<MigrationScript> migrations = scriptRepo.getDeployedMigrationScripts(deployedScriptIds);
+        dependencyGraph.addKnownScripts(scriptSource.getAllScripts());
         dependencyGraph.addNodes(migrations);
 
         List<Script> changedScripts = scriptSource.getAllScripts()
@@ -127,15 +430,41 @@ public class ChangeManager {
     public boolean verify() throws IOException, NoSuchAlgorithmException, SQLException{
         log.info("Started verify scripts.");
         startSync(ChangeType.VERIFY);
+        VerifyReport report = createVerifyReport();
+        log.info("Verify finished with {} verified, {} missing in source, {} missing in db, {} different from source and {} failed migration verify scripts. Phase timings in ms: {}",
+                report.getVerified().size(), report.getMissingInSource().size(), report.getMissingInDb().size(), report.getContentMismatch().size(), report.getFailedMigrationVerify().size(), report.getPhaseTimings());
+
+        if(report.getFailedCount() != 0) {
+            log.error("Verification failed!");
+            endSyncError(ChangeType.VERIFY, report.getFailedCount() + " scripts failed to verify.");
+            throw new RuntimeException("Verification failed!");
+        }
+        log.info("All scripts have been verified successfully.");
+        endSyncSuccess(ChangeType.VERIFY, (long)report.getVerified().size());
+        return true;
+    }
+
+    /**
+     * Compare the objects in the database with the source scripts and group the differences.
+     */
+    public VerifyReport createVerifyReport() throws IOException, NoSuchAlgorithmException, SQLException {
+        VerifyReport report = new VerifyReport();
+        long phaseStart = System.nanoTime();
         scriptRepo.loadDeployedHash();
-        int failedCount = 0;
-        Set<Script> sourceScripts = scriptSource.getAllScripts().stream()
+        Map<Script, Script> sourceIndex = scriptSource.getAllScripts().stream()
                 .filter(script -> !config.isScriptExcluded(script))
-                .collect(Collectors.toSet());
+                .collect(Collectors.toMap(script -> script, script -> script, (first, second) -> first, LinkedHashMap::new));
+        report.addPhaseTiming("loadSource", phaseStart);
 
+        phaseStart = System.nanoTime();
         List<String> schemaNames = scriptRepo.getAllSchemasInDatabase(scriptRepo.getDatabaseName());
+        Map<String, List<SchemaScript>> schemaScripts = scriptRepo.getAllScriptsInSchemas(schemaNames, config.getDdlParallelism());
+        report.addPhaseTiming("fetchDdl", phaseStart);
+
+        phaseStart = System.nanoTime();
+        Set<Script> matchedSourceScripts = new HashSet<>();
         for(String schema: schemaNames) {
-            List<SchemaScript> declarativeScripts = scriptRepo.getAllScriptsInSchema(schema)
+            List<SchemaScript> declarativeScripts = schemaScripts.get(schema)
                     .stream()
                     .filter(script -> !script.isMigration())
                     .filter(script -> !config.isScriptExcluded(script))
@@ -143,22 +472,32 @@ public class ChangeManager {
 
             for(SchemaScript script: declarativeScripts) {
                 parameterInjector.parametrizeScript(script, true);
-                Script sourceScript = sourceScripts.stream().filter(s -> s.equals(script)).findFirst().orElse(null);
+                Script sourceScript = sourceIndex.get(script);
                 if(sourceScript == null) {
                     log.error("Script [{}] is not found in source.", script);
-                    failedCount++;
+                    report.getMissingInSource().add(script);
                     continue;
                 }
+                matchedSourceScripts.add(sourceScript);
                 if (!scriptRepo.compareScript(script, sourceScript)) {
-                    failedCount++;
+                    report.getContentMismatch().add(script);
                     log.error("Script verification failed for {}. The source script is different from db object [{}] ", script, script.getContent());
                 } else {
+                    report.getVerified().add(script);
                     log.info("Verified Script {} is correct.", script);
                 }
             }
         }
+        for(Script sourceScript: sourceIndex.keySet()) {
+            if(sourceScript instanceof SchemaScript && !sourceScript.isMigration() && !matchedSourceScripts.contains(sourceScript)) {
+                log.warn("Script [{}] is not found in db.", sourceScript);
+                report.getMissingInDb().add(sourceScript);
+            }
+        }
+        report.addPhaseTiming("compare", phaseStart);
 
-        Map<String, List<MigrationScript>> groupedMigrationScripts = sourceScripts.stream()
+        phaseStart = System.nanoTime();
+        Map<String, List<MigrationScript>> groupedMigrationScripts = sourceIndex.keySet().stream()
                 .filter(script -> script instanceof MigrationScript)
                 .map(script -> (MigrationScript)script)
                 .collect(Collectors.groupingBy(MigrationScript::getFullObjectName));
@@ -170,22 +509,16 @@ public class ChangeManager {
                 MigrationScript migrationScript = lastMigration.get();
                 parameterInjector.injectParametersAll(migrationScript);
                 if (!scriptRepo.executeVerify(migrationScript)) {
-                    failedCount++;
+                    report.getFailedMigrationVerify().add(migrationScript);
                     log.error("Script verification failed for {}. The verify script [{}] failed to execute.", migrationScript, migrationScript.getVerify());
                 } else {
+                    report.getVerified().add(migrationScript);
                     log.info("Verified Script {} is correct.", migrationScript);
                 }
             }
         }
-
-        if(failedCount != 0) {
-            log.error("Verification failed!");
-            endSyncError(ChangeType.VERIFY, failedCount + " scripts failed to verify.");
-            throw new RuntimeException("Verification failed!");
-        }
-        log.info("All scripts have been verified successfully.");
-        endSyncSuccess(ChangeType.VERIFY, (long)sourceScripts.size());
-        return true;
+        report.addPhaseTiming("verifyMigrations", phaseStart);
+        return report;
     }
 
     public void createAllScriptsFromDB(String targetSchemas) throws SQLException, IOException {
@@ -204,21 +537,43 @@ public class ChangeManager {
             schemaNames = scriptRepo.getAllSchemasInDatabase(scriptRepo.getDatabaseName());
         }
         int count = 0;
+        Map<String, List<SchemaScript>> schemaScripts = scriptRepo.getAllScriptsInSchemas(schemaNames, config.getDdlParallelism());
         for(String schema: schemaNames) {
-            List<SchemaScript> scripts = scriptRepo.getAllScriptsInSchema(schema);
+            List<SchemaScript> scripts = schemaScripts.get(schema);
             for(SchemaScript script: scripts) {
                 count++;
-                if(configTables.contains(script.getFullObjectName())) {
-                    scriptRepo.addConfig(script);
-                }
                 parameterInjector.parametrizeScript(script, false);
+                if(configTables.contains(script.getFullObjectName()) && script.getObjectType() == ScriptObjectType.TABLES) {
+                    createConfigScriptFile(script);
+                }
+                else {
+                    scriptSource.createSchemaScriptFile(script);
+                }
             }
-            scriptSource.createSchemaScriptFiles(scripts);
         }
         endSyncSuccess(ChangeType.CREATE_SCRIPT, (long)count);
 
     }
 
+    /**
+     * Write the table script followed by its rows as INSERT migrations, each migration is parametrized and written as soon as it is read.
+     */
+    private void createConfigScriptFile(SchemaScript script) throws SQLException, IOException {
+        try (Writer writer = scriptSource.newSchemaScriptWriter(script)) {
+            writer.write(script.getContent());
+            long rowCount = scriptRepo.exportConfig(script, config.getConfigExportBatchSize(), migration -> {
+                try {
+                    writer.write("\n\n");
+                    writer.write(parameterInjector.parametrize(migration));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            metrics.increment(MetricsRegistry.CONFIG_ROWS_EXPORTED, rowCount);
+            log.info("Exported {} rows of config table {}", rowCount, script.getFullObjectName());
+        }
+    }
+
     public void createLineage() throws IOException, SQLException {
         log.info("Started Lineage graph.");
         startSync(ChangeType.CREATE_LINEAGE);
@@ -253,34 +608,120 @@ public class ChangeManager {
 
         List<TestScript> testScripts = scriptSource.getTestScripts(scripts);
         int size = testScripts.size();
-        int index = 1;
-        for(TestScript script: testScripts) {
-            log.info("{} of {}: testing object: {}", index++, size, script);
-//            TestQueryGenerator testQueryGenerator = new TestQueryGenerator(script);
-            log.debug("Testing query: [{}]", script.getTestQuery());
-            List<TestResult> testResults = scriptRepo.runTest(script);
-            if(testResults.size() > 0) {
-                log.info("Test query for script: {} is: \n{}", script, script.getTestQuery());
-                log.error("Test failed for script: {} with error: [{}]", script, testResults);
+        TestReport report = runTests(testScripts);
+        log.info("Tested {} objects: {} passed, {} failed, {} errors.", size, size - report.getFailureCount() - report.getErrorCount(), report.getFailureCount(), report.getErrorCount());
+        if(testReportFile != null) {
+            report.write(testReportFile);
+        }
+        endSyncSuccess(ChangeType.TEST, (long)size);
+    }
+
+    /**
+     * Generate the test queries in parallel on a pool sized to the available processors, and run each query as soon as it is generated
+     * with up to testParallelism queries running at the same time.
+     */
+    private TestReport runTests(List<TestScript> testScripts) {
+        TestReport report = new TestReport();
+        int size = testScripts.size();
+        if(size == 0) {
+            return report;
+        }
+        int parallelism = config.getTestParallelism();
+        log.info("Running {} tests with parallelism {}.", size, parallelism);
+        AtomicInteger index = new AtomicInteger(1);
+        ExecutorService generators = Executors.newFixedThreadPool(Math.min(Runtime.getRuntime().availableProcessors(), size));
+        ExecutorService runners = Executors.newFixedThreadPool(Math.min(parallelism, size));
+        try {
+            List<CompletableFuture<Void>> tests = new ArrayList<>();
+            for(TestScript script: testScripts) {
+                tests.add(CompletableFuture.supplyAsync(() -> generateTestQuery(script), generators)
+                        .handleAsync((testQuery, error) -> {
+                            runTest(script, testQuery, error, report);
+                            log.info("{} of {}: tested object: {}", index.getAndIncrement(), size, script);
+                            return null;
+                        }, runners));
             }
-            else {
-                log.info("Test passed for script: {}", script);
+            CompletableFuture.allOf(tests.toArray(new CompletableFuture[0])).join();
+        }
+        finally {
+            generators.shutdownNow();
+            runners.shutdownNow();
+            if(testQueryCache != null) {
+                testQueryCache.save();
             }
+        }
+        return report;
+    }
 
+    private String generateTestQuery(TestScript script) {
+        long startTime = System.nanoTime();
+        try {
+            String testQuery = testQueryCache == null ? script.getTestQuery() : testQueryCache.getTestQuery(script);
+            log.debug("Testing query: [{}]", testQuery);
+            return testQuery;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            metrics.recordTime(MetricsRegistry.TEST_GENERATION, startTime);
+        }
+    }
+
+    private void runTest(TestScript script, String testQuery, Throwable generationError, TestReport report) {
+        long startTime = System.nanoTime();
+        List<TestResult> testResults;
+        if(generationError != null) {
+            Throwable cause = generationError instanceof CompletionException && generationError.getCause() != null ? generationError.getCause() : generationError;
+            log.error("Unable to generate test query for script: {} with error: {}", script, cause.getMessage());
+            testResults = List.of(new TestResult(cause instanceof Exception ? (Exception) cause : new RuntimeException(cause)));
+        }
+        else {
+            testResults = scriptRepo.runTest(script, testQuery);
+            metrics.recordTime(MetricsRegistry.TEST_EXECUTION, startTime);
+        }
+        metrics.increment(MetricsRegistry.TESTS_RUN);
+        report.addTestCase(script, testResults, (System.nanoTime() - startTime) / 1_000_000);
+        if(testResults.size() > 0) {
+            metrics.increment(MetricsRegistry.TESTS_FAILED);
+            if(testQuery != null) {
+                log.info("Test query for script: {} is: \n{}", script, testQuery);
+            }
+            log.error("Test failed for script: {} with error: [{}]", script, testResults);
+        }
+        else {
+            log.info("Test passed for script: {}", script);
         }
-        endSyncSuccess(ChangeType.TEST, (long)size);
     }
 
     public void startSync(ChangeType changeType) throws SQLException {
+        metrics.reset(changeType.toString());
+        commandStartTime = System.nanoTime();
+        scriptSource.clearCache();
+        scriptRepo.setCommitId(null);
         scriptRepo.insertChangeSync(changeType, Status.IN_PROGRESS, changeType.toString() + " started.");
     }
 
     public void endSyncError(ChangeType changeType, String message) throws SQLException {
+        metrics.recordTime(MetricsRegistry.COMMAND, commandStartTime);
         scriptRepo.updateChangeSync(changeType, Status.ERROR, message, null);
+        writeMetrics(changeType);
     }
 
     public void endSyncSuccess(ChangeType changeType, Long changeCount) throws SQLException {
+        metrics.recordTime(MetricsRegistry.COMMAND, commandStartTime);
         scriptRepo.updateChangeSync(changeType, Status.SUCCESS, "Successfully completed " + changeType.toString() , changeCount);
+        writeMetrics(changeType);
+    }
+
+    private void writeMetrics(ChangeType changeType) {
+        log.info("Metrics of {}: {}", changeType, metrics.toJson());
+        if(metricsFile == null) {
+            return;
+        }
+        try {
+            metrics.writeSummary(metricsFile);
+        } catch (IOException e) {
+            log.warn("Unable to write metrics summary to {}: {}", metricsFile, e.getMessage());
+        }
     }
 
 
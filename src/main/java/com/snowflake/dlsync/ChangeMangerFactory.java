@@ -1,13 +1,23 @@
 package com.snowflake.dlsync;
 
+import com.snowflake.dlsync.dependency.DependencyCache;
 import com.snowflake.dlsync.dependency.DependencyExtractor;
 import com.snowflake.dlsync.dependency.DependencyGraph;
+import com.snowflake.dlsync.doa.ConnectionPool;
+import com.snowflake.dlsync.doa.ConnectionProvider;
+import com.snowflake.dlsync.doa.DeploymentStateCache;
+import com.snowflake.dlsync.doa.GitChangeSource;
+import com.snowflake.dlsync.doa.MeteredConnection;
+import com.snowflake.dlsync.doa.ScriptFileCache;
 import com.snowflake.dlsync.doa.ScriptRepo;
 import com.snowflake.dlsync.doa.ScriptSource;
 import com.snowflake.dlsync.parser.ParameterInjector;
+import com.snowflake.dlsync.parser.ScriptParser;
+import com.snowflake.dlsync.parser.TestQueryCache;
 import lombok.extern.slf4j.Slf4j;
 
 import java.io.IOException;
+import java.nio.file.Path;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
@@ -26,26 +36,83 @@ public class ChangeMangerFactory {
     }
 
     public static ChangeManager createChangeManger(ConfigManager configManager) throws IOException, SQLException {
+        return createChangeManger(configManager, () -> createConnection(configManager.getConfig().getConnection()));
+    }
+
+    /**
+     * Create a change manager using the connections of the given provider instead of a Snowflake JDBC connection.
+     */
+    public static ChangeManager createChangeManger(ConfigManager configManager, ConnectionProvider connectionProvider) throws IOException, SQLException {
+        return createChangeManger(configManager, connectionProvider, null);
+    }
+
+    /**
+     * Create a change manager reading the unchanged script files from the cache shared with the change managers created before.
+     */
+    public static ChangeManager createChangeManger(ConfigManager configManager, ConnectionProvider connectionProvider, ScriptFileCache scriptFileCache) throws IOException, SQLException {
         configManager.init();
+        ScriptHasher scriptHasher = new ScriptHasher(HashAlgorithm.fromName(configManager.getConfig().getHashAlgorithm()), configManager.getConfig().isNormalizedHash());
+        if(configManager.getConfig().isParserWarmUp()) {
+            ScriptParser.warmUpAsync();
+        }
 
         // Create connection
-        Connection connection = createConnection(configManager.getConfig().getConnection());
+        Properties connectionProperties = configManager.getConfig().getConnection();
+        MetricsRegistry metrics = new MetricsRegistry();
+        ConnectionProvider meteredConnectionProvider = () -> MeteredConnection.wrap(connectionProvider.getConnection(), metrics);
+        Connection connection = meteredConnectionProvider.getConnection();
+        int parallelism = configManager.getConfig().getDeployParallelism();
+        ConnectionPool connectionPool = parallelism > 1 ? new ConnectionPool(meteredConnectionProvider, parallelism) : null;
 
         // Create dependencies
         ScriptSource scriptSource = new ScriptSource(configManager.getScriptRoot());
-        ScriptRepo scriptRepo = new ScriptRepo(connection, configManager.getConfig().getConnection());
+        scriptSource.setMetrics(metrics);
+        scriptSource.setScriptFileCache(scriptFileCache);
+        scriptSource.setScriptHasher(scriptHasher);
+        ScriptRepo scriptRepo = new ScriptRepo(connection, connectionProperties, connectionPool);
+        scriptRepo.setMetrics(metrics);
+        scriptRepo.setScriptHasher(scriptHasher);
         scriptRepo.init();
+        int testParallelism = configManager.getConfig().getTestParallelism();
+        if(testParallelism > 1) {
+            scriptRepo.setTestConnectionPool(new ConnectionPool(meteredConnectionProvider, testParallelism));
+        }
+        if(configManager.getConfig().getHistoryBatchSize() > 1) {
+            scriptRepo.enableHistoryBatching(configManager.getConfig().getHistoryBatchSize(), configManager.getConfig().getHistoryFlushInterval() * 1000L);
+        }
+        if(configManager.getConfig().isStateCache()) {
+            Path cacheDirectory = Path.of(configManager.getScriptRoot(), ".dlsync");
+            scriptRepo.setDeploymentStateCache(new DeploymentStateCache(cacheDirectory, connectionProperties.getProperty("account"), scriptRepo.getDatabaseName(), scriptRepo.getSchemaName()));
+        }
         ParameterInjector parameterInjector = new ParameterInjector(configManager.getScriptParameters());
+        parameterInjector.setMetrics(metrics);
         DependencyExtractor dependencyExtractor = new DependencyExtractor();
+        if(configManager.getConfig().isDependencyCache()) {
+            dependencyExtractor.setDependencyCache(new DependencyCache(Path.of(configManager.getScriptRoot(), ".dlsync")));
+        }
         DependencyGraph dependencyGraph = new DependencyGraph(dependencyExtractor, configManager.getConfig());
+        dependencyGraph.setMetrics(metrics);
 
-        return new ChangeManager(configManager.getConfig(), scriptSource, scriptRepo, dependencyGraph, parameterInjector);
+        ChangeManager changeManager = new ChangeManager(configManager.getConfig(), scriptSource, scriptRepo, dependencyGraph, parameterInjector);
+        String metricsFile = configManager.getConfig().getMetricsFile();
+        changeManager.setMetrics(metrics, metricsFile == null ? null : Path.of(configManager.getScriptRoot()).resolve(metricsFile));
+        String planFile = configManager.getConfig().getPlanFile();
+        changeManager.setPlanFile(planFile == null ? null : Path.of(configManager.getScriptRoot()).resolve(planFile));
+        String testReport = configManager.getConfig().getTestReport();
+        changeManager.setTestReportFile(testReport == null ? null : Path.of(configManager.getScriptRoot()).resolve(testReport));
+        if(configManager.getConfig().isTestQueryCache()) {
+            changeManager.setTestQueryCache(new TestQueryCache(Path.of(configManager.getScriptRoot(), ".dlsync"), scriptHasher.getAlgorithm()));
+        }
+        if(configManager.getConfig().isGitChangeDetection()) {
+            changeManager.setGitChangeSource(new GitChangeSource(scriptSource.getMainScriptDirectory()));
+        }
+        return changeManager;
     }
 
     /**
      * Create a JDBC connection to Snowflake
      */
-    private static Connection createConnection(Properties connectionProperties) throws SQLException {
+    static Connection createConnection(Properties connectionProperties) throws SQLException {
         String account = connectionProperties.getProperty("account");
         if (account == null || account.isEmpty()) {
             throw new SQLException("Missing 'account' property in connection configuration");
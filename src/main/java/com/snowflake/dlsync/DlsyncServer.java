@@ -0,0 +1,276 @@
+package com.snowflake.dlsync;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.snowflake.dlsync.doa.ConnectionProvider;
+import com.snowflake.dlsync.doa.ScriptFileCache;
+import com.snowflake.dlsync.doa.SessionConnectionProvider;
+import com.snowflake.dlsync.models.ChangeType;
+import com.snowflake.dlsync.parser.ScriptParser;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Long running dlsync process serving the commands over HTTP on the loopback interface.
+ * The JVM, the parser prediction cache, the authenticated Snowflake sessions and the parsed scripts of unchanged files are kept between commands,
+ * while the config and parameter files are read again and a new change manager is created for every command.
+ * Commands are run one at a time with {@code POST /deploy}, {@code /verify}, {@code /rollback}, {@code /test}, {@code /create-script} and {@code /create-lineage},
+ * the {@code only-hashes} and {@code target-schemas} query parameters are passed to the command.
+ * Every request must send the random token written to {@code .dlsync/server-token} at startup in the {@value #TOKEN_HEADER} header,
+ * requests with an {@code Origin} header or a non loopback {@code Host} header are rejected, so web pages open in a browser can not send commands.
+ */
+@Slf4j
+public class DlsyncServer {
+    public static final int DEFAULT_PORT = 7373;
+    public static final String TOKEN_HEADER = "X-DLSync-Token";
+    private static final String TOKEN_FILE = "server-token";
+    private static final int HTTP_UNAUTHORIZED = 401;
+    private static final int HTTP_FORBIDDEN = 403;
+    private static final int HTTP_OK = 200;
+    private static final int HTTP_NOT_FOUND = 404;
+    private static final int HTTP_METHOD_NOT_ALLOWED = 405;
+    private static final int HTTP_UNPROCESSABLE = 422;
+    private static final int HTTP_ERROR = 500;
+
+    private final String scriptRoot;
+    private final String profile;
+    private final SessionConnectionProvider sessions;
+    private final ScriptFileCache scriptFileCache = new ScriptFileCache();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final CountDownLatch stopped = new CountDownLatch(1);
+    private final byte[] token;
+    private final Path tokenFile;
+    private HttpServer httpServer;
+    private ExecutorService executor;
+
+    public DlsyncServer(String scriptRoot, String profile, ConnectionProvider connectionProvider) {
+        this.scriptRoot = scriptRoot;
+        this.profile = profile;
+        this.sessions = new SessionConnectionProvider(connectionProvider);
+        byte[] randomBytes = new byte[32];
+        new SecureRandom().nextBytes(randomBytes);
+        this.token = Base64.getUrlEncoder().withoutPadding().encodeToString(randomBytes).getBytes(StandardCharsets.US_ASCII);
+        this.tokenFile = Path.of(scriptRoot, ".dlsync", TOKEN_FILE);
+    }
+
+    /**
+     * Server using the Snowflake connection properties of the config at startup, a change of the connection properties needs a restart.
+     */
+    public static DlsyncServer create(String scriptRoot, String profile) throws IOException {
+        ConfigManager configManager = new ConfigManager(scriptRoot, profile);
+        configManager.init();
+        return new DlsyncServer(scriptRoot, profile, () -> ChangeMangerFactory.createConnection(configManager.getConfig().getConnection()));
+    }
+
+    public void start(int port) throws IOException {
+        writeTokenFile();
+        ScriptParser.warmUpAsync();
+        executor = Executors.newFixedThreadPool(2);
+        httpServer = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        httpServer.createContext("/", this::handle);
+        httpServer.setExecutor(executor);
+        httpServer.start();
+        log.info("DLSync server listening on {}, the request token is in {}", httpServer.getAddress(), tokenFile);
+    }
+
+    public int getPort() {
+        return httpServer.getAddress().getPort();
+    }
+
+    public Path getTokenFile() {
+        return tokenFile;
+    }
+
+    public synchronized void stop() {
+        if(stopped.getCount() == 0) {
+            return;
+        }
+        if(httpServer != null) {
+            httpServer.stop(0);
+            executor.shutdownNow();
+        }
+        sessions.close();
+        try {
+            Files.deleteIfExists(tokenFile);
+        } catch (IOException e) {
+            log.warn("Unable to delete the server token file {}: {}", tokenFile, e.getMessage());
+        }
+        stopped.countDown();
+        log.info("DLSync server stopped.");
+    }
+
+    public void awaitStop() throws InterruptedException {
+        stopped.await();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            if(exchange.getRequestHeaders().containsKey("Origin") || !isLoopbackHost(exchange.getRequestHeaders().getFirst("Host"))) {
+                log.warn("Rejected request from a browser or a non loopback host: {}", exchange.getRequestURI());
+                sendJson(exchange, HTTP_FORBIDDEN, Map.of("message", "Requests from browsers or non loopback hosts are not allowed."));
+                return;
+            }
+            if(!hasValidToken(exchange.getRequestHeaders().getFirst(TOKEN_HEADER))) {
+                sendJson(exchange, HTTP_UNAUTHORIZED, Map.of("message", "Missing or invalid " + TOKEN_HEADER + " header, the token is in " + tokenFile));
+                return;
+            }
+            String path = exchange.getRequestURI().getPath().replaceAll("^/+|/+$", "");
+            if(path.equals("status")) {
+                sendJson(exchange, HTTP_OK, getStatus());
+                return;
+            }
+            if(!exchange.getRequestMethod().equalsIgnoreCase("POST")) {
+                sendJson(exchange, HTTP_METHOD_NOT_ALLOWED, Map.of("message", "Commands must be sent with POST."));
+                return;
+            }
+            if(path.equals("shutdown")) {
+                sendJson(exchange, HTTP_OK, Map.of("status", "STOPPING"));
+                new Thread(this::stop, "dlsync-server-stop").start();
+                return;
+            }
+            ChangeType changeType = getChangeType(path);
+            if(changeType == null) {
+                sendJson(exchange, HTTP_NOT_FOUND, Map.of("message", "Unknown command: " + path));
+                return;
+            }
+            Map<String, String> parameters = getQueryParameters(exchange.getRequestURI().getRawQuery());
+            Map<String, Object> result = runCommand(changeType, Boolean.parseBoolean(parameters.get("only-hashes")), parameters.get("target-schemas"));
+            String status = (String) result.get("status");
+            sendJson(exchange, status.equals("SUCCESS") ? HTTP_OK : status.equals("FAILED") ? HTTP_UNPROCESSABLE : HTTP_ERROR, result);
+        }
+        finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Run the command with a new change manager sharing the sessions and the parsed scripts of the previous commands.
+     */
+    synchronized Map<String, Object> runCommand(ChangeType changeType, boolean onlyHashes, String targetSchemas) {
+        long startTime = System.currentTimeMillis();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("command", changeType.toString());
+        ChangeManager changeManager = null;
+        try {
+            sessions.startCommand();
+            changeManager = ChangeMangerFactory.createChangeManger(new ConfigManager(scriptRoot, profile), sessions, scriptFileCache);
+            boolean success = Main.runCommand(changeManager, changeType, onlyHashes, targetSchemas);
+            result.put("status", success ? "SUCCESS" : "FAILED");
+        } catch (Exception e) {
+            log.error("Error in {}: {}", changeType, e.getMessage());
+            result.put("status", "ERROR");
+            result.put("message", String.valueOf(e.getMessage()));
+            if(changeManager != null) {
+                try {
+                    changeManager.endSyncError(changeType, e.getMessage());
+                } catch (Exception endError) {
+                    log.warn("Unable to record the error of {}: {}", changeType, endError.getMessage());
+                }
+            }
+        }
+        result.put("durationMillis", System.currentTimeMillis() - startTime);
+        return result;
+    }
+
+    private Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("status", "RUNNING");
+        status.put("sessions", sessions.getSessionCount());
+        status.put("cachedScripts", scriptFileCache.size());
+        return status;
+    }
+
+    /**
+     * Write the token readable only by the current user, replacing the token of a previous server.
+     */
+    private void writeTokenFile() throws IOException {
+        Files.createDirectories(tokenFile.getParent());
+        Files.deleteIfExists(tokenFile);
+        if(FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+            Files.createFile(tokenFile, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+        }
+        else {
+            Files.createFile(tokenFile);
+            tokenFile.toFile().setReadable(false, false);
+            tokenFile.toFile().setReadable(true, true);
+            tokenFile.toFile().setWritable(false, false);
+            tokenFile.toFile().setWritable(true, true);
+        }
+        Files.write(tokenFile, token);
+    }
+
+    private boolean hasValidToken(String requestToken) {
+        return requestToken != null && MessageDigest.isEqual(token, requestToken.trim().getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * Only loopback host names are accepted, so a DNS name rebound to the loopback address can not reach the server.
+     */
+    static boolean isLoopbackHost(String host) {
+        if(host == null) {
+            return false;
+        }
+        String hostName = host.trim().toLowerCase();
+        if(hostName.startsWith("[")) {
+            int end = hostName.indexOf(']');
+            hostName = end < 0 ? hostName : hostName.substring(1, end);
+        }
+        else if(hostName.indexOf(':') >= 0) {
+            hostName = hostName.substring(0, hostName.indexOf(':'));
+        }
+        return hostName.equals("localhost") || hostName.equals("::1") || hostName.matches("127(\\.\\d{1,3}){3}");
+    }
+
+    private static ChangeType getChangeType(String path) {
+        String name = path.replace('-', '_').toUpperCase();
+        for(ChangeType changeType: ChangeType.values()) {
+            if(changeType.toString().equals(name) && changeType != ChangeType.WATCH) {
+                return changeType;
+            }
+        }
+        return null;
+    }
+
+    private static Map<String, String> getQueryParameters(String query) {
+        Map<String, String> parameters = new HashMap<>();
+        if(query == null || query.isEmpty()) {
+            return parameters;
+        }
+        for(String parameter: query.split("&")) {
+            int separator = parameter.indexOf('=');
+            String name = URLDecoder.decode(separator < 0 ? parameter : parameter.substring(0, separator), StandardCharsets.UTF_8);
+            String value = separator < 0 ? "true" : URLDecoder.decode(parameter.substring(separator + 1), StandardCharsets.UTF_8);
+            parameters.put(name, value);
+        }
+        return parameters;
+    }
+
+    private void sendJson(HttpExchange exchange, int statusCode, Map<String, ?> body) throws IOException {
+        byte[] response = objectMapper.writeValueAsBytes(body);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(statusCode, response.length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(response);
+        }
+    }
+}
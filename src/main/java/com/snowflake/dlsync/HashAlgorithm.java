@@ -0,0 +1,86 @@
+package com.snowflake.dlsync;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.MurmurHash3;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Content hash algorithms of the script hashes. Hashes other than MD5 are stored with the algorithm tag as prefix,
+ * so hashes written by an earlier version or with another algorithm can still be recognized and compared.
+ */
+@Slf4j
+public enum HashAlgorithm {
+    /**
+     * The original untagged hash, uses the platform default charset to stay compatible with the existing script history.
+     */
+    MD5("") {
+        @Override
+        public String hash(String content) {
+            MessageDigest digest = MD5_DIGEST.get();
+            digest.reset();
+            return Hex.encodeHexString(digest.digest(content.getBytes()));
+        }
+    },
+    /**
+     * The 128-bit x64 MurmurHash3 of the UTF-8 content, a fast non-cryptographic hash.
+     */
+    MURMUR3("murmur3:") {
+        @Override
+        public String hash(String content) {
+            long[] hash = MurmurHash3.hash128x64(content.getBytes(StandardCharsets.UTF_8));
+            ByteBuffer bytes = ByteBuffer.allocate(16).order(ByteOrder.LITTLE_ENDIAN).putLong(hash[0]).putLong(hash[1]);
+            return getTag() + Hex.encodeHexString(bytes.array());
+        }
+    };
+
+    private static final ThreadLocal<MessageDigest> MD5_DIGEST = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            log.error("Hashing error: {}", e.getMessage());
+            throw new RuntimeException(e);
+        }
+    });
+
+    private final String tag;
+
+    HashAlgorithm(String tag) {
+        this.tag = tag;
+    }
+
+    public abstract String hash(String content);
+
+    public String getTag() {
+        return tag;
+    }
+
+    /**
+     * The algorithm of a stored hash, hashes without a known tag are MD5 hashes.
+     */
+    public static HashAlgorithm of(String storedHash) {
+        for(HashAlgorithm algorithm: values()) {
+            if(!algorithm.tag.isEmpty() && storedHash.startsWith(algorithm.tag)) {
+                return algorithm;
+            }
+        }
+        return MD5;
+    }
+
+    public static HashAlgorithm fromName(String name) {
+        if(name == null) {
+            return MD5;
+        }
+        try {
+            return valueOf(name.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            log.error("Unknown hash algorithm {}, supported algorithms are md5 and murmur3.", name);
+            throw new RuntimeException("Unknown hash algorithm: " + name);
+        }
+    }
+}
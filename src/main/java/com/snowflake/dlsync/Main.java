@@ -12,9 +12,14 @@ import java.util.List;
 
 @Slf4j
 public class Main {
+    private static final String SERVE_COMMAND = "serve";
 
     public static void main(String[] args) throws SQLException {
         log.info("DlSync change Manager started with args: {}", Arrays.toString(args));
+        if(args.length >= 1 && args[0].equalsIgnoreCase(SERVE_COMMAND)) {
+            serve(args);
+            return;
+        }
         ChangeManager changeManager = null;
         ChangeType changeType = null;
         boolean onlyHashes = false;
@@ -27,38 +32,7 @@ public class Main {
             String profile = commandLine.getOptionValue("profile");
             String targetSchemas = commandLine.getOptionValue("target-schemas");
             changeManager = ChangeMangerFactory.createChangeManger(scriptRoot, profile);
-            switch (changeType) {
-                case DEPLOY:
-                    changeManager.deploy(onlyHashes);
-                    log.info("DLsync Changes deployed successfully.");
-                    break;
-                case ROLLBACK:
-                    changeManager.rollback();
-                    log.info("DLsync Changes rollback successfully.");
-                    break;
-                case VERIFY:
-                    if(changeManager.verify()) {
-                        log.info("DLsync Changes verified successfully.");
-                    }
-                    else {
-                        log.error("DLsync Changes verification failed.");
-                    }
-                    break;
-                case CREATE_SCRIPT:
-                    changeManager.createAllScriptsFromDB(targetSchemas);
-                    log.info("DLsync created all scripts from DB.");
-                    break;
-                case CREATE_LINEAGE:
-                    changeManager.createLineage();
-                    log.info("DLsync successfully created lineage to DB.");
-                    break;
-                case TEST:
-                    changeManager.test();
-                    log.info("DLsync successfully tested.");
-                    break;
-                default:
-                    log.error("Change type not specified as an argument.");
-            }
+            runCommand(changeManager, changeType, onlyHashes, targetSchemas);
 
         } catch (IOException e) {
             e.printStackTrace();
@@ -88,6 +62,67 @@ public class Main {
         }
     }
 
+    /**
+     * Start the server and block until it is stopped with the shutdown endpoint.
+     */
+    private static void serve(String[] args) {
+        try {
+            CommandLine commandLine = buildCommandOptions(args);
+            int port = commandLine.hasOption("port") ? Integer.parseInt(commandLine.getOptionValue("port")) : DlsyncServer.DEFAULT_PORT;
+            DlsyncServer server = DlsyncServer.create(commandLine.getOptionValue("script-root"), commandLine.getOptionValue("profile"));
+            server.start(port);
+            Runtime.getRuntime().addShutdownHook(new Thread(server::stop));
+            server.awaitStop();
+        } catch (Exception e) {
+            e.printStackTrace();
+            log.error("Error: {}", e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Run the command with the change manager, returns false if the verification of a verify command failed.
+     */
+    public static boolean runCommand(ChangeManager changeManager, ChangeType changeType, boolean onlyHashes, String targetSchemas) throws Exception {
+        switch (changeType) {
+            case DEPLOY:
+                changeManager.deploy(onlyHashes);
+                log.info("DLsync Changes deployed successfully.");
+                break;
+            case ROLLBACK:
+                changeManager.rollback();
+                log.info("DLsync Changes rollback successfully.");
+                break;
+            case VERIFY:
+                if(changeManager.verify()) {
+                    log.info("DLsync Changes verified successfully.");
+                }
+                else {
+                    log.error("DLsync Changes verification failed.");
+                    return false;
+                }
+                break;
+            case CREATE_SCRIPT:
+                changeManager.createAllScriptsFromDB(targetSchemas);
+                log.info("DLsync created all scripts from DB.");
+                break;
+            case CREATE_LINEAGE:
+                changeManager.createLineage();
+                log.info("DLsync successfully created lineage to DB.");
+                break;
+            case TEST:
+                changeManager.test();
+                log.info("DLsync successfully tested.");
+                break;
+            case WATCH:
+                changeManager.watch();
+                break;
+            default:
+                log.error("Change type not specified as an argument.");
+        }
+        return true;
+    }
+
     public static CommandLine buildCommandOptions(String[] args) throws ParseException {
         Options options = new Options();
         try {
@@ -100,10 +135,12 @@ public class Main {
             options.addOption(profile);
             Option targetSchemas = new Option("t", "target-schemas", true, "Comma separated list of schemas to use");
             options.addOption(targetSchemas);
+            Option port = Option.builder().longOpt("port").hasArg().desc("Port of the server started with the serve command").build();
+            options.addOption(port);
             CommandLine commandLine = new DefaultParser().parse(options, argsWithoutCommand);
             return commandLine;
         } catch (ParseException e) {
-            new HelpFormatter().printHelp("dlsync [deploy|rollback|verify|create-script|create-lineage] [options]", "options:", options, "");
+            new HelpFormatter().printHelp("dlsync [deploy|rollback|verify|create-script|create-lineage|test|watch|serve] [options]", "options:", options, "");
             throw e;
         }
 
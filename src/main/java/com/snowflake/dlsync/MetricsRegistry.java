@@ -0,0 +1,165 @@
+package com.snowflake.dlsync;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thread safe timers and counters of a single dlsync command.
+ * Timers accumulate the time of every recorded call, so a timer recorded from several threads can exceed the wall clock time of the command.
+ */
+@Slf4j
+public class MetricsRegistry {
+    public static final String COMMAND = "command";
+    public static final String SOURCE_WALK = "source.walk";
+    public static final String SOURCE_READ = "source.read";
+    public static final String SOURCE_PARSE = "source.parse";
+    public static final String GRAPH_BUILD = "dependency.graphBuild";
+    public static final String GRAPH_SORT = "dependency.sort";
+    public static final String GRAPH_PLAN = "dependency.plan";
+    public static final String PARAMETER_INJECTION = "parameter.injection";
+    public static final String PARAMETRIZATION = "parameter.parametrization";
+    public static final String DDL_EXECUTION = "deploy.ddlExecution";
+    public static final String BOOKKEEPING = "deploy.bookkeeping";
+    public static final String JDBC_ROUND_TRIP = "jdbc.roundTrip";
+    public static final String TEST_GENERATION = "test.generation";
+    public static final String TEST_EXECUTION = "test.execution";
+    public static final String SCRIPTS_LOADED = "scripts.loaded";
+    public static final String SCRIPTS_REUSED = "scripts.reused";
+    public static final String SCRIPTS_CHANGED = "scripts.changed";
+    public static final String SCRIPTS_DEPLOYED = "scripts.deployed";
+    public static final String SCRIPTS_FAILED = "scripts.failed";
+    public static final String TESTS_RUN = "tests.run";
+    public static final String TESTS_FAILED = "tests.failed";
+    public static final String CONFIG_ROWS_EXPORTED = "config.rowsExported";
+
+    private final Map<String, LongAdder> counters = new ConcurrentSkipListMap<>();
+    private final Map<String, Timer> timers = new ConcurrentSkipListMap<>();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private String command;
+
+    public void reset(String command) {
+        this.command = command;
+        counters.clear();
+        timers.clear();
+    }
+
+    public void increment(String name) {
+        increment(name, 1);
+    }
+
+    public void increment(String name, long delta) {
+        counters.computeIfAbsent(name, key -> new LongAdder()).add(delta);
+    }
+
+    /**
+     * Record the time passed since startNanos, taken from {@link System#nanoTime()}, to the timer.
+     */
+    public void recordTime(String name, long startNanos) {
+        long elapsed = System.nanoTime() - startNanos;
+        Timer timer = timers.computeIfAbsent(name, key -> new Timer());
+        timer.count.increment();
+        timer.totalNanos.add(elapsed);
+        timer.maxNanos.accumulate(elapsed);
+    }
+
+    public long getCount(String name) {
+        LongAdder counter = counters.get(name);
+        return counter == null ? 0 : counter.sum();
+    }
+
+    public long getTimerCount(String name) {
+        Timer timer = timers.get(name);
+        return timer == null ? 0 : timer.count.sum();
+    }
+
+    public long getTimerMillis(String name) {
+        Timer timer = timers.get(name);
+        return timer == null ? 0 : timer.totalNanos.sum() / 1_000_000;
+    }
+
+    /**
+     * The counters and timers as nested maps, timers have the number of calls, the total and the maximum time in ms.
+     */
+    public Map<String, Object> getSummary() {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("command", command);
+        Map<String, Long> counterValues = new LinkedHashMap<>();
+        counters.forEach((name, counter) -> counterValues.put(name, counter.sum()));
+        summary.put("counters", counterValues);
+        Map<String, Map<String, Long>> timerValues = new LinkedHashMap<>();
+        timers.forEach((name, timer) -> {
+            Map<String, Long> values = new LinkedHashMap<>();
+            values.put("count", timer.count.sum());
+            values.put("totalMs", timer.totalNanos.sum() / 1_000_000);
+            values.put("maxMs", timer.maxNanos.get() / 1_000_000);
+            timerValues.put(name, values);
+        });
+        summary.put("timers", timerValues);
+        return summary;
+    }
+
+    public String toJson() {
+        try {
+            return objectMapper.writeValueAsString(getSummary());
+        } catch (JsonProcessingException e) {
+            log.error("Error serializing metrics: {}", e.getMessage());
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * The counters and timers in the Prometheus text exposition format, labeled with the command.
+     */
+    public String toPrometheus() {
+        StringBuilder text = new StringBuilder();
+        String label = String.format("{command=\"%s\"}", command == null ? "" : command.toLowerCase(Locale.ROOT));
+        counters.forEach((name, counter) -> {
+            String metricName = getPrometheusName(name) + "_total";
+            text.append("# TYPE ").append(metricName).append(" counter\n");
+            text.append(metricName).append(label).append(" ").append(counter.sum()).append("\n");
+        });
+        timers.forEach((name, timer) -> {
+            String metricName = getPrometheusName(name) + "_seconds";
+            text.append("# TYPE ").append(metricName).append(" summary\n");
+            text.append(metricName).append("_count").append(label).append(" ").append(timer.count.sum()).append("\n");
+            text.append(metricName).append("_sum").append(label).append(" ").append(timer.totalNanos.sum() / 1e9).append("\n");
+            String maxName = getPrometheusName(name) + "_max_seconds";
+            text.append("# TYPE ").append(maxName).append(" gauge\n");
+            text.append(maxName).append(label).append(" ").append(timer.maxNanos.get() / 1e9).append("\n");
+        });
+        return text.toString();
+    }
+
+    /**
+     * Write the summary to the file, in the Prometheus text format if the file name ends with .prom and as json otherwise.
+     */
+    public void writeSummary(Path file) throws IOException {
+        String content = file.getFileName().toString().endsWith(".prom") ? toPrometheus() : toJson();
+        if(file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        Files.writeString(file, content);
+        log.debug("Metrics summary written to {}", file);
+    }
+
+    private static String getPrometheusName(String name) {
+        return "dlsync_" + name.replaceAll("([a-z])([A-Z])", "$1_$2").replace('.', '_').toLowerCase(Locale.ROOT);
+    }
+
+    private static class Timer {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+    }
+}
@@ -74,6 +74,31 @@ public class ScriptFactory {
         return migrationScripts;
     }
 
+    /**
+     * Copy of a script read from a file, with copies of its migrations, so the copy can be changed without changing the script.
+     */
+    public static Script copyScript(Script script) {
+        Script copy;
+        if(script instanceof SchemaScript) {
+            copy = new SchemaScript((SchemaScript) script);
+        }
+        else if(script instanceof AccountScript) {
+            copy = new AccountScript((AccountScript) script);
+        }
+        else {
+            log.error("Unsupported script {} to copy.", script);
+            throw new UnsupportedOperationException("Only schema and account scripts can be copied.");
+        }
+        if(script.isMigration() && script.getMigrations() != null) {
+            List<MigrationScript> migrations = new ArrayList<>();
+            for(MigrationScript migration: script.getMigrations()) {
+                migrations.add(new MigrationScript(migration, copy));
+            }
+            copy.setMigrations(migrations);
+        }
+        return copy;
+    }
+
     public static TestScript getTestScript(String scriptPath, String objectName, String content, Script mainScript) {
         if (mainScript instanceof SchemaScript) {
             SchemaScript schemaScript = (SchemaScript) mainScript;
@@ -0,0 +1,96 @@
+package com.snowflake.dlsync;
+
+import com.snowflake.dlsync.models.MigrationScript;
+import com.snowflake.dlsync.models.Script;
+import com.snowflake.dlsync.parser.ScriptNormalizer;
+import com.snowflake.dlsync.parser.SqlTokens;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Hash configuration of a command: the hash algorithm, and whether the normalized tokens are hashed instead of the content.
+ * The change manager factory creates one from the config and passes it to the script source, the script repo and the caches.
+ */
+@Slf4j
+public class ScriptHasher {
+    public static final String NORMALIZED_HASH_TAG = "norm:";
+    /**
+     * The untagged MD5 hash of the content, used by scripts that were not hashed with a configured hasher.
+     */
+    public static final ScriptHasher DEFAULT = new ScriptHasher(HashAlgorithm.MD5, false);
+
+    private final HashAlgorithm algorithm;
+    private final boolean normalized;
+
+    public ScriptHasher(HashAlgorithm algorithm, boolean normalized) {
+        this.algorithm = algorithm;
+        this.normalized = normalized;
+    }
+
+    /**
+     * Hash of the content with the algorithm. In normalized mode the hash of the significant tokens is used, tagged with the normalized prefix.
+     */
+    public String hash(String content) {
+        if(normalized) {
+            return NORMALIZED_HASH_TAG + algorithm.hash(ScriptNormalizer.normalize(SqlTokens.tokenize(content)));
+        }
+        return algorithm.hash(content);
+    }
+
+    /**
+     * Hash of the script content. In normalized mode the tokens cached by the script are normalized, so the content is not scanned again.
+     */
+    public String hash(Script script) {
+        return hash(script, algorithm, normalized);
+    }
+
+    /**
+     * Set the hash of the script and of its migrations from their current content.
+     */
+    public void hashScript(Script script) {
+        script.setHash(hash(script));
+        if(script.isMigration() && script.getMigrations() != null) {
+            for(MigrationScript migration: script.getMigrations()) {
+                migration.setHash(hash(migration));
+            }
+        }
+    }
+
+    /**
+     * Check if the stored hash is the hash of the script content. A stored hash of another algorithm or normalization mode is compared by hashing the content again the same way,
+     * so scripts are not redeployed only because the hash configuration changed.
+     */
+    public boolean isSameHash(String storedHash, Script script) {
+        if(storedHash == null) {
+            return false;
+        }
+        if(storedHash.equals(script.getHash())) {
+            return true;
+        }
+        boolean storedNormalized = storedHash.startsWith(NORMALIZED_HASH_TAG);
+        HashAlgorithm storedAlgorithm = HashAlgorithm.of(storedNormalized ? storedHash.substring(NORMALIZED_HASH_TAG.length()) : storedHash);
+        if(storedAlgorithm == algorithm && storedNormalized == normalized) {
+            return false;
+        }
+        return storedHash.equals(hash(script, storedAlgorithm, storedNormalized));
+    }
+
+    public HashAlgorithm getAlgorithm() {
+        return algorithm;
+    }
+
+    public boolean isNormalized() {
+        return normalized;
+    }
+
+    @Override
+    public String toString() {
+        return algorithm + ":" + normalized;
+    }
+
+    private static String hash(Script script, HashAlgorithm algorithm, boolean normalized) {
+        if(normalized) {
+            return NORMALIZED_HASH_TAG + algorithm.hash(ScriptNormalizer.normalize(script.getTokens()));
+        }
+        return algorithm.hash(script.getContent());
+    }
+}
@@ -0,0 +1,120 @@
+package com.snowflake.dlsync;
+
+import com.snowflake.dlsync.models.TestResult;
+import com.snowflake.dlsync.models.TestScript;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Thread safe collection of the results of the test command, written in the JUnit XML format read by CI servers.
+ * A test with an ERROR result, from a query or test generation error, is reported as an error, any other result as a failure.
+ */
+@Slf4j
+public class TestReport {
+    private static final String ERROR_RESULT = "ERROR";
+
+    private final List<TestCase> testCases = new ArrayList<>();
+    private final Instant startTime = Instant.now();
+
+    public synchronized void addTestCase(TestScript testScript, List<TestResult> results, long timeMillis) {
+        testCases.add(new TestCase(testScript.getMainScript().getObjectType().toString(), testScript.getMainScript().getFullObjectName(), results, timeMillis));
+    }
+
+    public synchronized int getTestCount() {
+        return testCases.size();
+    }
+
+    public synchronized int getFailureCount() {
+        return (int) testCases.stream().filter(testCase -> !testCase.results.isEmpty() && !testCase.isError()).count();
+    }
+
+    public synchronized int getErrorCount() {
+        return (int) testCases.stream().filter(TestCase::isError).count();
+    }
+
+    public synchronized String toJUnitXml() {
+        List<TestCase> sortedCases = new ArrayList<>(testCases);
+        sortedCases.sort(Comparator.comparing((TestCase testCase) -> testCase.className).thenComparing(testCase -> testCase.name));
+        long totalMillis = Duration.between(startTime, Instant.now()).toMillis();
+        StringBuilder xml = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        xml.append(String.format("<testsuite name=\"dlsync\" tests=\"%d\" failures=\"%d\" errors=\"%d\" skipped=\"0\" time=\"%s\" timestamp=\"%s\">\n",
+                sortedCases.size(), getFailureCount(), getErrorCount(), toSeconds(totalMillis), startTime.truncatedTo(ChronoUnit.SECONDS)));
+        for(TestCase testCase: sortedCases) {
+            xml.append(String.format("  <testcase classname=\"%s\" name=\"%s\" time=\"%s\"", escape(testCase.className), escape(testCase.name), toSeconds(testCase.timeMillis)));
+            if(testCase.results.isEmpty()) {
+                xml.append("/>\n");
+                continue;
+            }
+            xml.append(">\n");
+            String element = testCase.isError() ? "error" : "failure";
+            for(TestResult result: testCase.results) {
+                xml.append(String.format("    <%s message=\"%s\" type=\"%s\"/>\n", element, escape(result.getMessage()), escape(result.getResult())));
+            }
+            xml.append("  </testcase>\n");
+        }
+        xml.append("</testsuite>\n");
+        return xml.toString();
+    }
+
+    public void write(Path file) throws IOException {
+        if(file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        Files.writeString(file, toJUnitXml());
+        log.info("Test report written to {}", file);
+    }
+
+    private static String toSeconds(long millis) {
+        return String.format(Locale.ROOT, "%.3f", millis / 1000.0);
+    }
+
+    private static String escape(String text) {
+        if(text == null) {
+            return "";
+        }
+        StringBuilder escaped = new StringBuilder(text.length());
+        for(char ch: text.toCharArray()) {
+            switch (ch) {
+                case '&': escaped.append("&amp;"); break;
+                case '<': escaped.append("&lt;"); break;
+                case '>': escaped.append("&gt;"); break;
+                case '"': escaped.append("&quot;"); break;
+                case '\'': escaped.append("&apos;"); break;
+                case '\n': escaped.append("&#10;"); break;
+                default:
+                    if(ch >= 0x20 || ch == '\t' || ch == '\r') {
+                        escaped.append(ch);
+                    }
+            }
+        }
+        return escaped.toString();
+    }
+
+    private static class TestCase {
+        private final String className;
+        private final String name;
+        private final List<TestResult> results;
+        private final long timeMillis;
+
+        private TestCase(String className, String name, List<TestResult> results, long timeMillis) {
+            this.className = className;
+            this.name = name;
+            this.results = results;
+            this.timeMillis = timeMillis;
+        }
+
+        private boolean isError() {
+            return results.stream().anyMatch(result -> ERROR_RESULT.equals(result.getResult()));
+        }
+    }
+}
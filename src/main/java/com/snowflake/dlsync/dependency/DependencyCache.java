@@ -0,0 +1,92 @@
+package com.snowflake.dlsync.dependency;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.snowflake.dlsync.models.DependencyState;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+
+/**
+ * Local copy of the object names referenced by each script, stored by script id with the script hash.
+ * Each entry also keeps the identifiers of the script and the known object names matching them when it was extracted,
+ * so the extractor only extracts a script again when its content changed or an object it may reference was added.
+ */
+@Slf4j
+public class DependencyCache {
+    private final Path cacheFile;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private DependencyState state;
+    private boolean changed;
+
+    public DependencyCache(Path cacheDirectory) {
+        this.cacheFile = cacheDirectory.resolve("dependencies.json");
+        log.debug("Dependency cache initialized with file: {}", cacheFile);
+    }
+
+    /**
+     * The cached dependencies of the script, or null if the script changed since they were cached.
+     */
+    public DependencyState.ScriptDependencies get(String scriptId, String scriptHash) {
+        DependencyState.ScriptDependencies cached = getState().getScripts().get(scriptId);
+        if(cached == null || !scriptHash.equals(cached.getScriptHash()) || cached.getReferencedNames() == null) {
+            return null;
+        }
+        return cached;
+    }
+
+    public void put(String scriptId, DependencyState.ScriptDependencies dependencies) {
+        getState().getScripts().put(scriptId, dependencies);
+        changed = true;
+    }
+
+    /**
+     * The cached dependencies of all scripts extracted in the previous runs, including scripts whose file was deleted since.
+     */
+    public Collection<DependencyState.ScriptDependencies> getAll() {
+        return getState().getScripts().values();
+    }
+
+    public void save() {
+        if(!changed) {
+            return;
+        }
+        try {
+            Files.createDirectories(cacheFile.getParent());
+            Path tempFile = Files.createTempFile(cacheFile.getParent(), "dependencies", ".tmp");
+            objectMapper.writeValue(tempFile.toFile(), state);
+            Files.move(tempFile, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            changed = false;
+            log.debug("Saved dependency cache with {} scripts", state.getScripts().size());
+        } catch (IOException e) {
+            log.warn("Failed to write dependency cache {}: {}", cacheFile, e.getMessage());
+        }
+    }
+
+    public Path getCacheFile() {
+        return cacheFile;
+    }
+
+    private DependencyState getState() {
+        if(state == null) {
+            state = load();
+        }
+        return state;
+    }
+
+    private DependencyState load() {
+        if(!Files.exists(cacheFile)) {
+            log.debug("No dependency cache found at {}", cacheFile);
+            return new DependencyState();
+        }
+        try {
+            return objectMapper.readValue(cacheFile.toFile(), DependencyState.class);
+        } catch (IOException e) {
+            log.warn("Ignoring unreadable dependency cache {}: {}", cacheFile, e.getMessage());
+            return new DependencyState();
+        }
+    }
+}
@@ -1,14 +1,12 @@
 package com.snowflake.dlsync.dependency;
 
+import com.snowflake.dlsync.models.DependencyState;
 import com.snowflake.dlsync.models.MigrationScript;
 import com.snowflake.dlsync.models.Script;
-import com.snowflake.dlsync.parser.SqlTokenizer;
 import lombok.extern.slf4j.Slf4j;
 
-import java.util.ArrayList;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Set;
+import java.nio.file.Path;
+import java.util.*;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -23,25 +21,137 @@ public class DependencyExtractor {
 
     private static final String DEPENDENCY_START_REGEX = "([()\\[\\],\\.\\s\\\"])";
     private static final String DEPENDENCY_END_REGEX = "([()\\[\\],\\.\\s\\'\\\";])";
-    private List<Script> scripts = new ArrayList<>();
+    private Map<String, List<Script>> scriptNameIndex = new HashMap<>();
+    private DependencyCache dependencyCache;
+    private Map<String, List<Script>> knownScriptIndex = new HashMap<>();
+
     public DependencyExtractor() {
         log.debug("Dependency extractor started.");
     }
 
+    /**
+     * Reuse the dependencies of unchanged scripts from the cache. The cached dependencies are resolved against all known scripts,
+     * so they stay valid when a later run extracts the dependencies between a different subset of the scripts.
+     */
+    public void setDependencyCache(DependencyCache dependencyCache) {
+        this.dependencyCache = dependencyCache;
+    }
+
+    /**
+     * Add scripts that can be referenced by the extracted scripts without being part of the dependency graph,
+     * the cached dependencies are resolved against these scripts. A known script replaces the known script with the same object name.
+     */
+    public void addKnownScripts(List<? extends Script> scripts) {
+        if(dependencyCache == null) {
+            return;
+        }
+        for(Script script: scripts) {
+            List<Script> candidates = knownScriptIndex.computeIfAbsent(getIndexKey(script.getObjectName()), k -> new ArrayList<>());
+            candidates.removeIf(candidate -> candidate.getFullObjectName().equals(script.getFullObjectName()));
+            candidates.add(script);
+        }
+    }
 
     public void addScripts(List<? extends Script> scripts) {
-        this.scripts.addAll(scripts);
+        addToIndex(scriptNameIndex, scripts);
+        if(dependencyCache != null) {
+            addKnownScripts(scripts);
+        }
+    }
+
+    /**
+     * Remove scripts added with {@link #addScripts(List)} or {@link #addKnownScripts(List)}, they are no longer extracted as dependencies.
+     * The scripts are removed by identity, a new version of a script with the same id is kept.
+     */
+    public void removeScripts(List<? extends Script> scripts) {
+        for(Script script: scripts) {
+            removeFromIndex(scriptNameIndex, script);
+            removeFromIndex(knownScriptIndex, script);
+        }
+    }
+
+    public void saveDependencyCache() {
+        if(dependencyCache != null) {
+            dependencyCache.save();
+        }
     }
 
     public Set<Script> extractScriptDependencies(Script script) {
-        Set<Script> dependencies = new HashSet<>();
-        dependencies = scripts.parallelStream()
-                .filter(s -> !s.getFullObjectName().equals(script.getFullObjectName()))
-                .filter(s -> isDependencyOf(s, script))
-                .collect(Collectors.toSet());
+        return extractScriptDependencies(script, scriptNameIndex);
+    }
+
+    /**
+     * For every script, the scripts in the list depending on it. The scripts added with {@link #addScripts(List)} are not used.
+     */
+    public Map<Script, Set<Script>> getReverseDependencies(List<? extends Script> scripts) {
+        Map<String, List<Script>> nameIndex = new HashMap<>();
+        addToIndex(nameIndex, scripts);
+        addKnownScripts(scripts);
+        Map<Script, Set<Script>> dependents = new HashMap<>();
+        for(Script script: scripts) {
+            for(Script dependency: extractScriptDependencies(script, nameIndex)) {
+                dependents.computeIfAbsent(dependency, k -> new HashSet<>()).add(script);
+            }
+        }
+        saveDependencyCache();
+        return dependents;
+    }
+
+    /**
+     * Paths of the script files with scripts depending on the scripts, directly or through other declarative scripts, found with the
+     * cached dependencies of the previous runs without reading the files. A cached script also depends on a script if it uses the name of
+     * the script and was cached before the script was added. Returns null if there is no dependency cache or it is empty.
+     */
+    public Set<Path> getCachedDependentPaths(List<? extends Script> scripts) {
+        if(dependencyCache == null || dependencyCache.getAll().isEmpty()) {
+            return null;
+        }
+        Map<String, List<DependencyState.ScriptDependencies>> dependentsByName = new HashMap<>();
+        Map<String, List<DependencyState.ScriptDependencies>> referencingByName = new HashMap<>();
+        for(DependencyState.ScriptDependencies cached: dependencyCache.getAll()) {
+            if(cached.getReferencedNames() == null) {
+                return null;
+            }
+            if(cached.getScriptPath() == null) {
+                continue;
+            }
+            cached.getDependencies().forEach(name -> dependentsByName.computeIfAbsent(name, k -> new ArrayList<>()).add(cached));
+            cached.getReferencedNames().forEach(name -> referencingByName.computeIfAbsent(name, k -> new ArrayList<>()).add(cached));
+        }
+        Set<String> visitedNames = new HashSet<>();
+        Deque<String> pending = new ArrayDeque<>();
+        for(Script script: scripts) {
+            if(visitedNames.add(script.getFullObjectName())) {
+                pending.add(script.getFullObjectName());
+            }
+        }
+        Set<Path> dependentPaths = new LinkedHashSet<>();
+        while(!pending.isEmpty()) {
+            String name = pending.poll();
+            List<DependencyState.ScriptDependencies> dependents = new ArrayList<>(dependentsByName.getOrDefault(name, List.of()));
+            for(DependencyState.ScriptDependencies referencing: referencingByName.getOrDefault(getIndexKey(name), List.of())) {
+                if(!referencing.getCandidates().contains(name)) {
+                    dependents.add(referencing);
+                }
+            }
+            for(DependencyState.ScriptDependencies dependent: dependents) {
+                if(dependent.getObjectName().equals(name)) {
+                    continue;
+                }
+                dependentPaths.add(Path.of(dependent.getScriptPath()));
+                if(!dependent.isMigration() && visitedNames.add(dependent.getObjectName())) {
+                    pending.add(dependent.getObjectName());
+                }
+            }
+        }
+        return dependentPaths;
+    }
+
+    private Set<Script> extractScriptDependencies(Script script, Map<String, List<Script>> nameIndex) {
+        Set<Script> dependencies = dependencyCache == null ? findReferencedScripts(script, nameIndex) : getCachedDependencies(script, nameIndex);
         if(script instanceof MigrationScript) {
             MigrationScript migrationScript = (MigrationScript)script;
-            Set<Script> versionDependencies  = scripts.stream()
+            Set<Script> versionDependencies  = nameIndex.getOrDefault(getIndexKey(script.getObjectName()), List.of()).stream()
                     .filter(s -> s.getFullObjectName().equals(script.getFullObjectName()) && s.getObjectType().equals(script.getObjectType()))
                     .map(s -> (MigrationScript) s)
                     .filter(s -> s.getVersion() <  migrationScript.getVersion()).collect(Collectors.toSet());
@@ -52,21 +162,124 @@ public class DependencyExtractor {
         return dependencies;
     }
 
-    private boolean isDependencyOf(Script dependency, Script target) {
+    private Set<Script> findReferencedScripts(Script script, Map<String, List<Script>> nameIndex) {
+        Set<Script> dependencies = new HashSet<>();
+        String fullObjectName = script.getFullObjectName();
+        for(String[] chain: script.getTokens().getIdentifierChains()) {
+            for(int i = 0; i < chain.length; i++) {
+                List<Script> candidates = nameIndex.get(chain[i].toUpperCase());
+                if(candidates == null) {
+                    continue;
+                }
+                for(Script candidate: candidates) {
+                    if(candidate.getFullObjectName().equals(fullObjectName)) {
+                        continue;
+                    }
+                    if(isDependencyOf(candidate, script, chain, i)) {
+                        dependencies.add(candidate);
+                    }
+                }
+            }
+        }
+        return dependencies;
+    }
+
+    private Set<Script> getCachedDependencies(Script script, Map<String, List<Script>> nameIndex) {
+        DependencyState.ScriptDependencies cached = dependencyCache.get(script.getId(), script.getHash());
+        if(cached == null || hasNewCandidates(script, cached)) {
+            cached = extractCachedDependencies(script);
+            dependencyCache.put(script.getId(), cached);
+        }
+        Set<Script> dependencies = new HashSet<>();
+        for(String dependencyName: cached.getDependencies()) {
+            for(Script candidate: nameIndex.getOrDefault(getIndexKey(dependencyName), List.of())) {
+                if(candidate.getFullObjectName().equals(dependencyName)) {
+                    dependencies.add(candidate);
+                }
+            }
+        }
+        return dependencies;
+    }
+
+    /**
+     * Extract the dependencies of the script against the known scripts, with the identifiers of the script and the known object names matching them.
+     * A cached dependency of a removed object is not resolved, so only the objects added later need an extraction again.
+     */
+    private DependencyState.ScriptDependencies extractCachedDependencies(Script script) {
+        List<String> dependencyNames = findReferencedScripts(script, knownScriptIndex).stream()
+                .map(Script::getFullObjectName)
+                .distinct()
+                .sorted()
+                .collect(Collectors.toList());
+        Set<String> referencedNames = new TreeSet<>();
+        for(String[] chain: script.getTokens().getIdentifierChains()) {
+            for(String identifier: chain) {
+                referencedNames.add(identifier.toUpperCase());
+            }
+        }
+        Set<String> candidates = new TreeSet<>();
+        for(String referencedName: referencedNames) {
+            for(Script candidate: knownScriptIndex.getOrDefault(referencedName, List.of())) {
+                if(!candidate.getFullObjectName().equals(script.getFullObjectName())) {
+                    candidates.add(candidate.getFullObjectName());
+                }
+            }
+        }
+        return new DependencyState.ScriptDependencies(script.getHash(), script.getScriptPath(), script.getFullObjectName(), script.isMigration(), dependencyNames, referencedNames, candidates);
+    }
+
+    private boolean hasNewCandidates(Script script, DependencyState.ScriptDependencies cached) {
+        for(String referencedName: cached.getReferencedNames()) {
+            for(Script candidate: knownScriptIndex.getOrDefault(referencedName, List.of())) {
+                String candidateName = candidate.getFullObjectName();
+                if(!candidateName.equals(script.getFullObjectName()) && !cached.getCandidates().contains(candidateName)) {
+                    log.debug("Object {} was added since the dependencies of {} were cached.", candidateName, script.getId());
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private boolean isDependencyOf(Script dependency, Script target, String[] chain, int nameEnd) {
         if(dependency.getObjectName().equals(target.getObjectName())) {
             log.debug("Found same object name with different schema: {}, {}", dependency, target);
         }
-        Set<String> fullIdentifiers = SqlTokenizer.getFullIdentifiers(dependency.getObjectName(), target.getContent());
-        if(fullIdentifiers.isEmpty()) {
+        String[] nameParts = dependency.getObjectName().split("\\.");
+        int nameStart = nameEnd - nameParts.length + 1;
+        if(nameStart < 0) {
             return false;
         }
-        for(String identifier: fullIdentifiers) {
-            String fullObjectName = target.resolveObjectReference(identifier);
-            if (fullObjectName.equals(dependency.getFullObjectName())) {
-                return true;
+        for(int i = 0; i < nameParts.length; i++) {
+            if(!chain[nameStart + i].equalsIgnoreCase(nameParts[i])) {
+                return false;
             }
         }
-        return false;
+        StringBuilder identifier = new StringBuilder();
+        for(int i = Math.max(0, nameStart - 2); i < nameStart; i++) {
+            identifier.append(chain[i]).append('.');
+        }
+        identifier.append(dependency.getObjectName());
+        String fullObjectName = target.resolveObjectReference(identifier.toString());
+        return fullObjectName.equals(dependency.getFullObjectName());
+    }
+
+    private void addToIndex(Map<String, List<Script>> nameIndex, List<? extends Script> scripts) {
+        for(Script script: scripts) {
+            nameIndex.computeIfAbsent(getIndexKey(script.getObjectName()), k -> new ArrayList<>()).add(script);
+        }
+    }
+
+    private void removeFromIndex(Map<String, List<Script>> nameIndex, Script script) {
+        String indexKey = getIndexKey(script.getObjectName());
+        List<Script> candidates = nameIndex.get(indexKey);
+        if(candidates != null && candidates.removeIf(candidate -> candidate == script) && candidates.isEmpty()) {
+            nameIndex.remove(indexKey);
+        }
+    }
+
+    private String getIndexKey(String objectName) {
+        return objectName.substring(objectName.lastIndexOf('.') + 1).toUpperCase();
     }
 
 }
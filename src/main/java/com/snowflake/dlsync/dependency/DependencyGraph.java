@@ -1,97 +1,289 @@
 package com.snowflake.dlsync.dependency;
 
+import com.snowflake.dlsync.MetricsRegistry;
 import com.snowflake.dlsync.models.*;
 import lombok.extern.slf4j.Slf4j;
 
+import java.nio.file.Path;
 import java.util.*;
 import java.util.stream.Collectors;
 
+/**
+ * Dependency graph of the scripts, with the scripts interned to int ids in the order they are added.
+ * The dependencies of each node are kept as an array of ids, and the dependents are built from them into a compressed sparse row
+ * adjacency (an offset array and a target array) the first time the graph is traversed after nodes were added.
+ * Scripts are interned by identity, so lookups of the scripts returned by the dependency extractor do not compute script hash codes.
+ */
 @Slf4j
 public class DependencyGraph {
+    private static final int[] NO_DEPENDENCIES = new int[0];
+
     private DependencyExtractor dependencyExtractor;
     private Config config;
-    private Map<Script, Set<Script>> dagGraph;
-    private Map<Script, Integer> inDegree;
-    private Stack<Script> zeroInDegreeScripts = new Stack<>();
+    private final Map<Script, Integer> scriptIds = new IdentityHashMap<>();
+    private final Map<Script, Integer> equalScriptIds = new HashMap<>();
+    private Script[] scripts = new Script[16];
+    private int[][] dependencies = new int[16][];
+    private int scriptCount;
+    private int[] dependentOffsets;
+    private int[] dependentIds;
+    private Map<Script, Set<Script>> scriptDependencies;
+    private MetricsRegistry metrics = new MetricsRegistry();
     public DependencyGraph(DependencyExtractor dependencyExtractor, Config config) {
         this.dependencyExtractor = dependencyExtractor;
         this.config = config;
-        dagGraph = new HashMap<>();
-        inDegree = new HashMap<>();
+    }
+
+    public void setMetrics(MetricsRegistry metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Use the dependencies already extracted for the scripts, including the dependency overrides, instead of extracting them.
+     * Used by the watch command to plan with the dependencies of the incrementally updated script model.
+     */
+    public void setScriptDependencies(Map<Script, Set<Script>> scriptDependencies) {
+        this.scriptDependencies = scriptDependencies;
+    }
+
+    /**
+     * Scripts that may be referenced by the nodes of the graph, used to resolve cached dependencies.
+     */
+    public void addKnownScripts(List<? extends Script> scripts) {
+        dependencyExtractor.addKnownScripts(scripts);
     }
 
     public void addNodes(List<? extends Script> nodes) {
         log.info("Building dependency graph of {} scripts.", nodes.size());
+        long startTime = System.nanoTime();
         dependencyExtractor.addScripts(nodes);
+        Set<Script> nodeSet = scriptDependencies == null ? null : new HashSet<>(nodes);
         for(Script script: nodes) {
-            Set<Script> scriptDependencies = dependencyExtractor.extractScriptDependencies(script);
-            List<Script> manualOverride = getDependencyOverride(script, nodes);
-            scriptDependencies.addAll(manualOverride);
-            for(Script dependency: scriptDependencies) {
-                dagGraph.computeIfAbsent(dependency, k -> new HashSet<>()).add(script);
+            Set<Script> nodeDependencies = getNodeDependencies(script, nodes, nodeSet);
+            int scriptId = intern(script);
+            int[] dependencyIds = new int[nodeDependencies.size()];
+            int dependencyCount = 0;
+            for(Script dependency: nodeDependencies) {
+                int dependencyId = intern(dependency);
+                if(!contains(dependencyIds, dependencyCount, dependencyId)) {
+                    dependencyIds[dependencyCount++] = dependencyId;
+                }
             }
+            dependencies[scriptId] = dependencyCount == 0 ? NO_DEPENDENCIES : Arrays.copyOf(dependencyIds, dependencyCount);
+        }
+        dependentOffsets = null;
+        dependentIds = null;
+        dependencyExtractor.saveDependencyCache();
+        metrics.recordTime(MetricsRegistry.GRAPH_BUILD, startTime);
+        if(log.isDebugEnabled()) {
+            log.debug("Using the following dependency graph: {}", getDagGraph());
+        }
+    }
 
-            inDegree.put(script, scriptDependencies.size());
-            if(scriptDependencies.size() == 0) {
-                zeroInDegreeScripts.push(script);
-            }
+    /**
+     * Plan the deployment of the changed scripts with the cascade and deployParallelism settings of the deploy config. With cascade the
+     * declarative scripts depending on them are added, the scripts to deploy are added as nodes, and they are grouped into dependency levels
+     * when deployParallelism is greater than 1, or sorted with one script per step otherwise. The ids of the scripts are added to the plan,
+     * and the steps are returned.
+     */
+    public List<List<Script>> planDeployment(Config deployConfig, List<? extends Script> includedScripts, List<? extends Script> changedScripts, DeploymentPlan plan) {
+        changedScripts.forEach(script -> plan.getChanged().add(script.getId()));
+        List<Script> deployScripts = new ArrayList<>(changedScripts);
+        if(deployConfig.isCascade() && !changedScripts.isEmpty()) {
+            deployScripts = new ArrayList<>(getChangeClosure(includedScripts, changedScripts));
+            deployScripts.subList(changedScripts.size(), deployScripts.size()).forEach(script -> plan.getCascaded().add(script.getId()));
         }
-        log.debug("Using the following dependency graph: {}", dagGraph);
+        addNodes(deployScripts);
+        List<List<Script>> steps;
+        if(deployConfig.getDeployParallelism() > 1) {
+            steps = getDependencyLevels();
+        }
+        else {
+            steps = topologicalSort().stream().map(List::of).collect(Collectors.toList());
+        }
+        steps.forEach(step -> plan.getLevels().add(step.stream().map(Script::getId).collect(Collectors.toList())));
+        return steps;
     }
 
     public List<Script> topologicalSort() {
         log.info("Sorting scripts based on dependency ...");
-        List<Script> sortedScript = new ArrayList<>(inDegree.size());
+        long startTime = System.nanoTime();
+        buildDependents();
+        int[] inDegree = getInDegrees();
+        IntStack zeroInDegreeScripts = new IntStack(scriptCount);
+        int nodeCount = 0;
+        for(int scriptId = 0; scriptId < scriptCount; scriptId++) {
+            if(isNode(scriptId)) {
+                nodeCount++;
+                if(inDegree[scriptId] == 0) {
+                    zeroInDegreeScripts.push(scriptId);
+                }
+            }
+        }
+        List<Script> sortedScript = new ArrayList<>(nodeCount);
         while(!zeroInDegreeScripts.isEmpty()) {
-            Script currentScript = zeroInDegreeScripts.pop();
-            sortedScript.add(currentScript);
-            log.debug("{} script edges {} ", currentScript, dagGraph.get(currentScript));
-            if(dagGraph.get(currentScript) == null) {
-                continue;
-            }
-            for(Script edge: dagGraph.get(currentScript)) {
-                int before = inDegree.get(edge);
-                inDegree.put(edge, inDegree.get(edge) - 1);
-                if (inDegree.get(edge) == 0) {
-                    zeroInDegreeScripts.push(edge);
+            int currentScript = zeroInDegreeScripts.pop();
+            sortedScript.add(scripts[currentScript]);
+            for(int edge = dependentOffsets[currentScript]; edge < dependentOffsets[currentScript + 1]; edge++) {
+                int dependent = dependentIds[edge];
+                if(--inDegree[dependent] == 0) {
+                    zeroInDegreeScripts.push(dependent);
                 }
             }
         }
-        if(inDegree.size() != sortedScript.size()) {
-            log.error("DAG graph Error, input script size({}) is different than sequenced script size({})", inDegree.size(), sortedScript.size());
-            for(Script script: inDegree.keySet()) {
-                if(!sortedScript.contains(script)) {
-                    log.warn("Dependencies for {} are: {}", script, dependencyExtractor.extractScriptDependencies(script));
+        if(nodeCount != sortedScript.size()) {
+            log.error("DAG graph Error, input script size({}) is different than sequenced script size({})", nodeCount, sortedScript.size());
+            for(int scriptId = 0; scriptId < scriptCount; scriptId++) {
+                if(isNode(scriptId) && inDegree[scriptId] > 0) {
+                    log.warn("Dependencies for {} are: {}", scripts[scriptId], getScripts(dependencies[scriptId]));
                 }
             }
             throw new RuntimeException("Sorting Error, Cyclic dependency detected. sorted script size is missing some scripts.");
         }
+        metrics.recordTime(MetricsRegistry.GRAPH_SORT, startTime);
         log.info("Sorted scripts: {}", sortedScript);
         return sortedScript;
     }
 
+    /**
+     * Groups the scripts into dependency levels. Scripts in the same level do not depend on each other,
+     * and every dependency of a script is placed in an earlier level.
+     */
+    public List<List<Script>> getDependencyLevels() {
+        log.info("Grouping scripts into dependency levels ...");
+        long startTime = System.nanoTime();
+        buildDependents();
+        int[] remainingInDegree = getInDegrees();
+        IntStack currentLevel = new IntStack(scriptCount);
+        int nodeCount = 0;
+        for(int scriptId = 0; scriptId < scriptCount; scriptId++) {
+            if(isNode(scriptId)) {
+                nodeCount++;
+                if(remainingInDegree[scriptId] == 0) {
+                    currentLevel.push(scriptId);
+                }
+            }
+        }
+        List<List<Script>> levels = new ArrayList<>();
+        IntStack nextLevel = new IntStack(scriptCount);
+        int sortedCount = 0;
+        while(!currentLevel.isEmpty()) {
+            List<Script> level = new ArrayList<>(currentLevel.size());
+            for(int index = 0; index < currentLevel.size(); index++) {
+                int scriptId = currentLevel.get(index);
+                level.add(scripts[scriptId]);
+                for(int edge = dependentOffsets[scriptId]; edge < dependentOffsets[scriptId + 1]; edge++) {
+                    int dependent = dependentIds[edge];
+                    if(--remainingInDegree[dependent] == 0) {
+                        nextLevel.push(dependent);
+                    }
+                }
+            }
+            levels.add(level);
+            sortedCount += level.size();
+            IntStack sortedLevel = currentLevel;
+            currentLevel = nextLevel;
+            nextLevel = sortedLevel;
+            nextLevel.clear();
+        }
+        if(sortedCount != nodeCount) {
+            log.error("DAG graph Error, input script size({}) is different than leveled script size({})", nodeCount, sortedCount);
+            throw new RuntimeException("Sorting Error, Cyclic dependency detected. leveled scripts are missing some scripts.");
+        }
+        metrics.recordTime(MetricsRegistry.GRAPH_SORT, startTime);
+        log.info("Grouped {} scripts into {} dependency levels.", sortedCount, levels.size());
+        return levels;
+    }
+
+    /**
+     * The changed scripts and all declarative scripts depending on them directly or through other declarative scripts.
+     * Migration scripts are never added, as they can not be deployed again. The dependents are found with a reverse dependency index over all the scripts.
+     */
+    public Set<Script> getChangeClosure(List<? extends Script> scripts, List<? extends Script> changedScripts) {
+        log.info("Finding scripts depending on {} changed scripts in {} scripts.", changedScripts.size(), scripts.size());
+        long startTime = System.nanoTime();
+        Map<Script, Set<Script>> dependents = scriptDependencies == null ? dependencyExtractor.getReverseDependencies(scripts) : getReverseDependencies(scripts);
+        Set<Script> closure = new LinkedHashSet<>(changedScripts);
+        Deque<Script> pending = new ArrayDeque<>(changedScripts);
+        while(!pending.isEmpty()) {
+            for(Script dependent: dependents.getOrDefault(pending.poll(), Collections.emptySet())) {
+                if(!dependent.isMigration() && closure.add(dependent)) {
+                    pending.add(dependent);
+                }
+            }
+        }
+        metrics.recordTime(MetricsRegistry.GRAPH_PLAN, startTime);
+        log.info("Found {} scripts depending on the changed scripts.", closure.size() - changedScripts.size());
+        return closure;
+    }
+
+    /**
+     * Paths of the script files depending on the scripts according to the dependency cache, or null if there is no usable dependency cache.
+     */
+    public Set<Path> getCachedDependentPaths(List<? extends Script> scripts) {
+        return dependencyExtractor.getCachedDependentPaths(scripts);
+    }
+
+    public Set<Script> getAllDependents(Script script) {
+        Set<Script> dependents = new HashSet<>();
+        Integer scriptId = getScriptId(script);
+        if(scriptId == null) {
+            return dependents;
+        }
+        buildDependents();
+        boolean[] visited = new boolean[scriptCount];
+        IntStack pending = new IntStack(16);
+        pending.push(scriptId);
+        while(!pending.isEmpty()) {
+            int current = pending.pop();
+            for(int edge = dependentOffsets[current]; edge < dependentOffsets[current + 1]; edge++) {
+                int dependent = dependentIds[edge];
+                if(!visited[dependent]) {
+                    visited[dependent] = true;
+                    dependents.add(scripts[dependent]);
+                    pending.push(dependent);
+                }
+            }
+        }
+        return dependents;
+    }
+
     public void printDependencyGraph() {
+        Map<Script, Set<Script>> dagGraph = getDagGraph();
         for(Script node: dagGraph.keySet()) {
             System.out.println("Script: " + node.getFullObjectName() + " depends on -> " + dagGraph.get(node).stream().map(s -> s.getFullObjectName()).collect(Collectors.toList()));
         }
     }
 
     public List<ScriptDependency> getDependencyList() {
+        buildDependents();
         Set<ScriptDependency> dependencyList = new HashSet<>();
-        for(Script dependency: dagGraph.keySet()) {
-            for(Script node: dagGraph.get(dependency)) {
+        for(int dependency = 0; dependency < scriptCount; dependency++) {
+            String dependencyName = dependentOffsets[dependency] < dependentOffsets[dependency + 1] ? scripts[dependency].getFullObjectName() : null;
+            for(int edge = dependentOffsets[dependency]; edge < dependentOffsets[dependency + 1]; edge++) {
+                Script node = scripts[dependentIds[edge]];
                 //Remove self dependency for migration scripts
-                if(node.getFullObjectName().equals(dependency.getFullObjectName())) {
+                if(node.getFullObjectName().equals(dependencyName)) {
                     continue;
                 }
-                ScriptDependency scriptDependency = new ScriptDependency(node, dependency);
+                ScriptDependency scriptDependency = new ScriptDependency(node, scripts[dependency]);
                 dependencyList.add(scriptDependency);
             }
         }
         return new ArrayList<>(dependencyList);
     }
 
+    /**
+     * The edges of the graph as a map of each script with dependents to its dependents, built from the int indexed graph on every call.
+     */
     public Map<Script, Set<Script>> getDagGraph() {
+        buildDependents();
+        Map<Script, Set<Script>> dagGraph = new LinkedHashMap<>();
+        for(int dependency = 0; dependency < scriptCount; dependency++) {
+            for(int edge = dependentOffsets[dependency]; edge < dependentOffsets[dependency + 1]; edge++) {
+                dagGraph.computeIfAbsent(scripts[dependency], k -> new LinkedHashSet<>()).add(scripts[dependentIds[edge]]);
+            }
+        }
         return dagGraph;
     }
 
@@ -115,7 +307,161 @@ public class DependencyGraph {
         return scriptsDependencyOverrides;
     }
 
+    /**
+     * The dependencies of the node on the other nodes, extracted or taken from the script dependencies.
+     */
+    private Set<Script> getNodeDependencies(Script script, List<? extends Script> nodes, Set<Script> nodeSet) {
+        if(scriptDependencies != null) {
+            return scriptDependencies.getOrDefault(script, Collections.emptySet()).stream().filter(nodeSet::contains).collect(Collectors.toSet());
+        }
+        Set<Script> nodeDependencies = dependencyExtractor.extractScriptDependencies(script);
+        nodeDependencies.addAll(getDependencyOverride(script, nodes));
+        return nodeDependencies;
+    }
+
+    private Map<Script, Set<Script>> getReverseDependencies(List<? extends Script> scripts) {
+        Set<Script> scriptSet = new HashSet<>(scripts);
+        Map<Script, Set<Script>> dependents = new HashMap<>();
+        for(Script script: scripts) {
+            for(Script dependency: scriptDependencies.getOrDefault(script, Collections.emptySet())) {
+                if(scriptSet.contains(dependency)) {
+                    dependents.computeIfAbsent(dependency, k -> new LinkedHashSet<>()).add(script);
+                }
+            }
+        }
+        return dependents;
+    }
+
     private Optional<? extends Script> findScriptByName(List<? extends Script> allScripts, String fullObjectName) {
         return allScripts.parallelStream().filter(script -> script.getFullObjectName().equals(fullObjectName)).findFirst();
     }
+
+    /**
+     * The id of the script, the same script instance or an equal script added before gets the same id.
+     */
+    private int intern(Script script) {
+        Integer scriptId = getScriptId(script);
+        if(scriptId != null) {
+            return scriptId;
+        }
+        if(scriptCount == scripts.length) {
+            scripts = Arrays.copyOf(scripts, scriptCount * 2);
+            dependencies = Arrays.copyOf(dependencies, scriptCount * 2);
+        }
+        scripts[scriptCount] = script;
+        scriptIds.put(script, scriptCount);
+        equalScriptIds.putIfAbsent(script, scriptCount);
+        return scriptCount++;
+    }
+
+    private Integer getScriptId(Script script) {
+        Integer scriptId = scriptIds.get(script);
+        if(scriptId == null) {
+            scriptId = equalScriptIds.get(script);
+            if(scriptId != null) {
+                scriptIds.put(script, scriptId);
+            }
+        }
+        return scriptId;
+    }
+
+    private boolean isNode(int scriptId) {
+        return dependencies[scriptId] != null;
+    }
+
+    private int[] getInDegrees() {
+        int[] inDegree = new int[scriptCount];
+        for(int scriptId = 0; scriptId < scriptCount; scriptId++) {
+            inDegree[scriptId] = isNode(scriptId) ? dependencies[scriptId].length : 0;
+        }
+        return inDegree;
+    }
+
+    /**
+     * Build the compressed sparse row adjacency of the dependents from the dependencies of the nodes, the dependents of each script
+     * are ordered by their id.
+     */
+    private void buildDependents() {
+        if(dependentOffsets != null) {
+            return;
+        }
+        int[] offsets = new int[scriptCount + 1];
+        for(int scriptId = 0; scriptId < scriptCount; scriptId++) {
+            if(isNode(scriptId)) {
+                for(int dependency: dependencies[scriptId]) {
+                    offsets[dependency + 1]++;
+                }
+            }
+        }
+        for(int scriptId = 0; scriptId < scriptCount; scriptId++) {
+            offsets[scriptId + 1] += offsets[scriptId];
+        }
+        int[] targets = new int[offsets[scriptCount]];
+        int[] next = Arrays.copyOf(offsets, scriptCount);
+        for(int scriptId = 0; scriptId < scriptCount; scriptId++) {
+            if(isNode(scriptId)) {
+                for(int dependency: dependencies[scriptId]) {
+                    targets[next[dependency]++] = scriptId;
+                }
+            }
+        }
+        dependentOffsets = offsets;
+        dependentIds = targets;
+    }
+
+    private List<Script> getScripts(int[] scriptIds) {
+        List<Script> scriptList = new ArrayList<>(scriptIds.length);
+        for(int scriptId: scriptIds) {
+            scriptList.add(scripts[scriptId]);
+        }
+        return scriptList;
+    }
+
+    private static boolean contains(int[] values, int count, int value) {
+        for(int index = 0; index < count; index++) {
+            if(values[index] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Growable stack of ints, also read by index as a list in the order the ints were pushed.
+     */
+    private static final class IntStack {
+        private int[] values;
+        private int size;
+
+        private IntStack(int capacity) {
+            values = new int[Math.max(capacity, 1)];
+        }
+
+        private void push(int value) {
+            if(size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        private int pop() {
+            return values[--size];
+        }
+
+        private int get(int index) {
+            return values[index];
+        }
+
+        private int size() {
+            return size;
+        }
+
+        private boolean isEmpty() {
+            return size == 0;
+        }
+
+        private void clear() {
+            size = 0;
+        }
+    }
 }
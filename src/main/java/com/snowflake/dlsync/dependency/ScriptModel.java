@@ -0,0 +1,181 @@
+package com.snowflake.dlsync.dependency;
+
+import com.snowflake.dlsync.models.*;
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * In memory model of the scripts of the script files and the dependencies between them, updated file by file.
+ * The dependencies are extracted again only for the scripts of the changed files, and for the scripts referencing
+ * an object that was added or removed by the change. Scripts and dependencies are kept by script id.
+ */
+@Slf4j
+public class ScriptModel {
+    private final Config config;
+    private final DependencyExtractor dependencyExtractor = new DependencyExtractor();
+    private final Map<Path, List<Script>> fileScripts = new HashMap<>();
+    private final Map<String, Script> scripts = new HashMap<>();
+    private final Map<String, List<Script>> scriptsByName = new HashMap<>();
+    private final Map<String, Set<String>> dependencies = new HashMap<>();
+
+    public ScriptModel(Config config) {
+        this.config = config;
+    }
+
+    /**
+     * Replace the model with the scripts of all script files, as returned by {@link com.snowflake.dlsync.doa.ScriptSource#getAllFileScripts()}.
+     */
+    public void load(List<Script> allFileScripts) {
+        dependencyExtractor.removeScripts(new ArrayList<>(scripts.values()));
+        fileScripts.clear();
+        scripts.clear();
+        scriptsByName.clear();
+        dependencies.clear();
+        update(allFileScripts, List.of());
+    }
+
+    /**
+     * Replace the scripts of the changed files and remove the scripts of the removed files or directories.
+     * Returns the number of scripts whose dependencies were extracted again.
+     */
+    public int update(List<Script> changedFileScripts, Collection<Path> removedPaths) {
+        List<Script> removedScripts = new ArrayList<>();
+        for(Path removedPath: removedPaths) {
+            Iterator<Map.Entry<Path, List<Script>>> files = fileScripts.entrySet().iterator();
+            while(files.hasNext()) {
+                Map.Entry<Path, List<Script>> file = files.next();
+                if(file.getKey().startsWith(removedPath)) {
+                    removedScripts.addAll(file.getValue());
+                    files.remove();
+                }
+            }
+        }
+        List<Script> addedScripts = new ArrayList<>();
+        for(Script fileScript: changedFileScripts) {
+            List<Script> previous = fileScripts.put(Path.of(fileScript.getScriptPath()), getScripts(fileScript));
+            if(previous != null) {
+                removedScripts.addAll(previous);
+            }
+            addedScripts.addAll(getScripts(fileScript));
+        }
+
+        Set<String> changedNames = new HashSet<>();
+        for(Script script: removedScripts) {
+            changedNames.add(script.getFullObjectName());
+        }
+        for(Script script: addedScripts) {
+            changedNames.add(script.getFullObjectName());
+        }
+        Set<String> previousNames = changedNames.stream().filter(scriptsByName::containsKey).collect(Collectors.toSet());
+        for(Script script: removedScripts) {
+            if(scripts.get(script.getId()) == script) {
+                scripts.remove(script.getId());
+                dependencies.remove(script.getId());
+            }
+            List<Script> named = scriptsByName.get(script.getFullObjectName());
+            named.removeIf(candidate -> candidate == script);
+            if(named.isEmpty()) {
+                scriptsByName.remove(script.getFullObjectName());
+            }
+        }
+        for(Script script: addedScripts) {
+            scripts.put(script.getId(), script);
+            scriptsByName.computeIfAbsent(script.getFullObjectName(), k -> new ArrayList<>()).add(script);
+        }
+        changedNames.removeIf(name -> previousNames.contains(name) == scriptsByName.containsKey(name));
+        dependencyExtractor.removeScripts(removedScripts);
+        dependencyExtractor.addScripts(addedScripts);
+
+        Set<Script> extractScripts = new LinkedHashSet<>(addedScripts);
+        if(!changedNames.isEmpty()) {
+            extractScripts.addAll(getScriptsReferencing(changedNames));
+        }
+        for(Script script: extractScripts) {
+            dependencies.put(script.getId(), extractDependencies(script));
+        }
+        log.debug("Updated the script model with {} changed and {} removed scripts, extracted the dependencies of {} scripts.",
+                addedScripts.size(), removedScripts.size(), extractScripts.size());
+        return extractScripts.size();
+    }
+
+    public List<Script> getScripts() {
+        return new ArrayList<>(scripts.values());
+    }
+
+    public int size() {
+        return scripts.size();
+    }
+
+    /**
+     * Ids of the scripts the script depends on, including the dependency overrides of the config.
+     */
+    public Set<String> getDependencies(String scriptId) {
+        return dependencies.getOrDefault(scriptId, Collections.emptySet()).stream()
+                .filter(scripts::containsKey)
+                .collect(Collectors.toSet());
+    }
+
+    /**
+     * The scripts each script depends on, to plan the deployment with a {@link DependencyGraph} without extracting the dependencies again.
+     */
+    public Map<Script, Set<Script>> getScriptDependencies() {
+        Map<Script, Set<Script>> scriptDependencies = new HashMap<>();
+        for(Script script: scripts.values()) {
+            Set<Script> dependencyScripts = getDependencies(script.getId()).stream().map(scripts::get).collect(Collectors.toSet());
+            scriptDependencies.put(script, dependencyScripts);
+        }
+        return scriptDependencies;
+    }
+
+    private Set<String> extractDependencies(Script script) {
+        Set<String> scriptDependencies = dependencyExtractor.extractScriptDependencies(script).stream()
+                .map(Script::getId)
+                .collect(Collectors.toCollection(HashSet::new));
+        for(String dependencyName: getDependencyOverride(script)) {
+            scriptsByName.getOrDefault(dependencyName, List.of()).forEach(dependency -> scriptDependencies.add(dependency.getId()));
+        }
+        return scriptDependencies;
+    }
+
+    private List<String> getDependencyOverride(Script script) {
+        List<DependencyOverride> overrides = config.getDependencyOverride();
+        if(overrides == null) {
+            return List.of();
+        }
+        return overrides.stream()
+                .filter(dependencyOverride -> dependencyOverride.getScript().equals(script.getFullObjectName()))
+                .flatMap(dependencyOverride -> dependencyOverride.getDependencies().stream())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Scripts with an identifier part matching the object name of one of the full object names, or with a dependency override on one of them.
+     */
+    private List<Script> getScriptsReferencing(Set<String> fullObjectNames) {
+        Set<String> objectNames = new HashSet<>();
+        for(String fullObjectName: fullObjectNames) {
+            objectNames.add(fullObjectName.substring(fullObjectName.lastIndexOf('.') + 1).toUpperCase());
+        }
+        List<Script> referencingScripts = new ArrayList<>();
+        for(Script script: scripts.values()) {
+            boolean isReferencing = getDependencyOverride(script).stream().anyMatch(fullObjectNames::contains);
+            for(Iterator<String[]> chains = script.getTokens().getIdentifierChains().iterator(); chains.hasNext() && !isReferencing; ) {
+                isReferencing = Arrays.stream(chains.next()).anyMatch(part -> objectNames.contains(part.toUpperCase()));
+            }
+            if(isReferencing) {
+                referencingScripts.add(script);
+            }
+        }
+        return referencingScripts;
+    }
+
+    private static List<Script> getScripts(Script fileScript) {
+        if(fileScript.isMigration() && fileScript.getMigrations() != null) {
+            return new ArrayList<>(fileScript.getMigrations());
+        }
+        return List.of(fileScript);
+    }
+}
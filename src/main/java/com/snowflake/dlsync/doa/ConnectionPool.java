@@ -0,0 +1,85 @@
+package com.snowflake.dlsync.doa;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounded pool of connections used to run scripts concurrently. Connections are opened lazily, so a run only creates as many sessions as it actually uses.
+ */
+@Slf4j
+public class ConnectionPool implements AutoCloseable {
+    private final ConnectionProvider connectionProvider;
+    private final int maxSize;
+    private final BlockingQueue<Connection> idleConnections = new LinkedBlockingQueue<>();
+    private final List<Connection> allConnections = new ArrayList<>();
+    private final AtomicInteger openedCount = new AtomicInteger(0);
+
+    public ConnectionPool(ConnectionProvider connectionProvider, int maxSize) {
+        if(maxSize < 1) {
+            throw new IllegalArgumentException("Connection pool size must be at least 1.");
+        }
+        this.connectionProvider = connectionProvider;
+        this.maxSize = maxSize;
+        log.debug("Connection pool initialized with max size: {}", maxSize);
+    }
+
+    public Connection acquire() throws SQLException {
+        Connection connection = idleConnections.poll();
+        if(connection != null) {
+            return connection;
+        }
+        if(openedCount.incrementAndGet() <= maxSize) {
+            try {
+                connection = connectionProvider.getConnection();
+                synchronized (allConnections) {
+                    allConnections.add(connection);
+                }
+                log.debug("Opened pooled connection {} of {}", openedCount.get(), maxSize);
+                return connection;
+            } catch (SQLException e) {
+                openedCount.decrementAndGet();
+                throw e;
+            }
+        }
+        openedCount.decrementAndGet();
+        try {
+            return idleConnections.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a pooled connection.", e);
+        }
+    }
+
+    public void release(Connection connection) {
+        if(connection != null) {
+            idleConnections.offer(connection);
+        }
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    @Override
+    public void close() {
+        synchronized (allConnections) {
+            for(Connection connection: allConnections) {
+                try {
+                    connection.close();
+                } catch (SQLException e) {
+                    log.warn("Error while closing pooled connection: {}", e.getMessage());
+                }
+            }
+            allConnections.clear();
+        }
+        idleConnections.clear();
+        openedCount.set(0);
+    }
+}
@@ -0,0 +1,9 @@
+package com.snowflake.dlsync.doa;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+@FunctionalInterface
+public interface ConnectionProvider {
+    Connection getConnection() throws SQLException;
+}
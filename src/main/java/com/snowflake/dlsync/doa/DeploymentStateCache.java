@@ -0,0 +1,55 @@
+package com.snowflake.dlsync.doa;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.snowflake.dlsync.models.DeploymentState;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Local copy of the script history hashes, stored per account, database and schema of the dlsync tables.
+ * The cached state is only trusted after it is validated against the history table watermark.
+ */
+@Slf4j
+public class DeploymentStateCache {
+    private final Path cacheFile;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public DeploymentStateCache(Path cacheDirectory, String account, String database, String schema) {
+        String key = String.format("%s-%s-%s", account, database, schema).replaceAll("[^A-Za-z0-9_-]", "_").toLowerCase();
+        this.cacheFile = cacheDirectory.resolve("state-" + key + ".json");
+        log.debug("Deployment state cache initialized with file: {}", cacheFile);
+    }
+
+    public DeploymentState load() {
+        if(!Files.exists(cacheFile)) {
+            log.debug("No deployment state cache found at {}", cacheFile);
+            return null;
+        }
+        try {
+            return objectMapper.readValue(cacheFile.toFile(), DeploymentState.class);
+        } catch (IOException e) {
+            log.warn("Ignoring unreadable deployment state cache {}: {}", cacheFile, e.getMessage());
+            return null;
+        }
+    }
+
+    public void save(DeploymentState state) {
+        try {
+            Files.createDirectories(cacheFile.getParent());
+            Path tempFile = Files.createTempFile(cacheFile.getParent(), "state", ".tmp");
+            objectMapper.writeValue(tempFile.toFile(), state);
+            Files.move(tempFile, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.debug("Saved deployment state cache with {} scripts at watermark {}", state.getScripts().size(), state.getWatermark());
+        } catch (IOException e) {
+            log.warn("Failed to write deployment state cache {}: {}", cacheFile, e.getMessage());
+        }
+    }
+
+    public Path getCacheFile() {
+        return cacheFile;
+    }
+}
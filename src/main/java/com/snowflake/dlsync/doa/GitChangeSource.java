@@ -0,0 +1,79 @@
+package com.snowflake.dlsync.doa;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Files of a directory changed since a commit, read with the git command line from the git repository containing the directory.
+ * The changes include the committed, uncommitted and untracked files, so the changed files match the files a deploy reads.
+ */
+@Slf4j
+public class GitChangeSource {
+    private static final Pattern COMMIT_ID_PATTERN = Pattern.compile("HEAD|[0-9a-fA-F]{4,64}");
+    private final Path directory;
+
+    public GitChangeSource(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * The commit id of HEAD, or null if the directory is not in a git repository.
+     */
+    public String getHeadCommitId() {
+        try {
+            return runGit("rev-parse", "--verify", "HEAD").get(0);
+        } catch (IOException e) {
+            log.warn("Unable to read the git commit of {}: {}", directory, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * The added, modified and deleted files of the directory since the commit, or null if the commit can not be compared.
+     */
+    public Set<Path> getChangedFiles(String commitId) {
+        if(!COMMIT_ID_PATTERN.matcher(commitId).matches()) {
+            log.warn("Invalid git commit id: {}", commitId);
+            return null;
+        }
+        try {
+            Set<Path> changedFiles = new LinkedHashSet<>();
+            runGit("diff", "--name-only", "--no-renames", "--relative", "-z", commitId, "--", ".").forEach(file -> changedFiles.add(directory.resolve(file)));
+            runGit("ls-files", "--others", "--exclude-standard", "-z", "--", ".").forEach(file -> changedFiles.add(directory.resolve(file)));
+            return changedFiles;
+        } catch (IOException e) {
+            log.warn("Unable to compare {} with commit {}: {}", directory, commitId, e.getMessage());
+            return null;
+        }
+    }
+
+    private List<String> runGit(String... arguments) throws IOException {
+        List<String> command = new ArrayList<>(List.of("git", "-c", "core.quotePath=false"));
+        command.addAll(Arrays.asList(arguments));
+        Process process = new ProcessBuilder(command).directory(directory.toFile()).start();
+        process.getOutputStream().close();
+        try (InputStream output = process.getInputStream(); InputStream error = process.getErrorStream()) {
+            String text = new String(output.readAllBytes(), StandardCharsets.UTF_8);
+            String errorText = new String(error.readAllBytes(), StandardCharsets.UTF_8).trim();
+            if(process.waitFor() != 0) {
+                throw new IOException("git " + arguments[0] + " failed: " + errorText);
+            }
+            return Arrays.stream(text.split("[\\x00\\n]")).filter(line -> !line.isEmpty()).collect(Collectors.toList());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            process.destroy();
+            throw new IOException("Interrupted while running git " + arguments[0], e);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.snowflake.dlsync.doa;
+
+import com.snowflake.dlsync.MetricsRegistry;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+
+/**
+ * Wraps a JDBC connection to record every statement execution, commit and rollback as a round trip in the metrics registry.
+ * All other calls, including unwrap, are passed to the wrapped connection.
+ */
+public class MeteredConnection {
+
+    public static Connection wrap(Connection connection, MetricsRegistry metrics) {
+        return proxy(Connection.class, connection, (target, method, args) -> {
+            Object result = invokeTimed(target, method, args, metrics, method.getName().equals("commit") || method.getName().equals("rollback"));
+            if(result instanceof CallableStatement) {
+                return wrapStatement(CallableStatement.class, (Statement) result, metrics);
+            }
+            if(result instanceof PreparedStatement) {
+                return wrapStatement(PreparedStatement.class, (Statement) result, metrics);
+            }
+            if(result instanceof Statement) {
+                return wrapStatement(Statement.class, (Statement) result, metrics);
+            }
+            return result;
+        });
+    }
+
+    private static <T extends Statement> T wrapStatement(Class<T> type, Statement statement, MetricsRegistry metrics) {
+        return proxy(type, statement, (target, method, args) -> invokeTimed(target, method, args, metrics, method.getName().startsWith("execute")));
+    }
+
+    private static Object invokeTimed(Object target, Method method, Object[] args, MetricsRegistry metrics, boolean isRoundTrip) throws Throwable {
+        long startTime = System.nanoTime();
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        } finally {
+            if(isRoundTrip) {
+                metrics.recordTime(MetricsRegistry.JDBC_ROUND_TRIP, startTime);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, Object target, TargetHandler handler) {
+        InvocationHandler invocationHandler = (proxy, method, args) -> {
+            if(method.getName().equals("equals") && method.getParameterCount() == 1) {
+                return proxy == args[0];
+            }
+            if(method.getName().equals("hashCode") && method.getParameterCount() == 0) {
+                return System.identityHashCode(proxy);
+            }
+            return handler.invoke(target, method, args);
+        };
+        return (T) Proxy.newProxyInstance(MeteredConnection.class.getClassLoader(), new Class<?>[]{type}, invocationHandler);
+    }
+
+    private interface TargetHandler {
+        Object invoke(Object target, Method method, Object[] args) throws Throwable;
+    }
+}
@@ -0,0 +1,73 @@
+package com.snowflake.dlsync.doa;
+
+import com.snowflake.dlsync.ScriptFactory;
+import com.snowflake.dlsync.ScriptHasher;
+import com.snowflake.dlsync.models.Script;
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In memory copy of the scripts parsed from each file, kept across the commands of a long running process.
+ * A file is parsed again only when its modification time or size changed, or when the hash configuration changed.
+ * Callers get a copy of the cached script, as the commands change the content of the scripts they deploy.
+ */
+@Slf4j
+public class ScriptFileCache {
+    private final Map<Path, CachedScript> scripts = new ConcurrentHashMap<>();
+
+    /**
+     * Copy of the script parsed from the file, or null if the file changed since it was parsed or it was hashed with another configuration.
+     */
+    public Script get(Path file, BasicFileAttributes attributes, ScriptHasher scriptHasher) {
+        CachedScript cached = scripts.get(file);
+        if(cached == null || !cached.isValid(attributes, scriptHasher.toString())) {
+            return null;
+        }
+        return ScriptFactory.copyScript(cached.script);
+    }
+
+    /**
+     * Cache the script parsed from the file and return a copy of it.
+     */
+    public Script put(Path file, BasicFileAttributes attributes, ScriptHasher scriptHasher, Script script) {
+        scripts.put(file, new CachedScript(attributes.lastModifiedTime(), attributes.size(), scriptHasher.toString(), script));
+        return ScriptFactory.copyScript(script);
+    }
+
+    public void invalidate(Path file) {
+        if(scripts.remove(file) != null) {
+            log.debug("Removed cached script of file {}", file);
+        }
+    }
+
+    public void clear() {
+        scripts.clear();
+    }
+
+    public int size() {
+        return scripts.size();
+    }
+
+    private static class CachedScript {
+        private final FileTime lastModified;
+        private final long size;
+        private final String hashConfiguration;
+        private final Script script;
+
+        private CachedScript(FileTime lastModified, long size, String hashConfiguration, Script script) {
+            this.lastModified = lastModified;
+            this.size = size;
+            this.hashConfiguration = hashConfiguration;
+            this.script = script;
+        }
+
+        private boolean isValid(BasicFileAttributes attributes, String currentHashConfiguration) {
+            return lastModified.equals(attributes.lastModifiedTime()) && size == attributes.size() && hashConfiguration.equals(currentHashConfiguration);
+        }
+    }
+}
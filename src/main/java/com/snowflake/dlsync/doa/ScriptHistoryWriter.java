@@ -0,0 +1,134 @@
+package com.snowflake.dlsync.doa;
+
+import com.snowflake.dlsync.models.ScriptEvent;
+import com.snowflake.dlsync.models.ScriptHistory;
+import lombok.extern.slf4j.Slf4j;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.*;
+
+/**
+ * Buffers script history upserts and script events, and writes them with one MERGE and one multi-row INSERT per flush.
+ * A flush is due when the buffer reaches the batch size or when the oldest buffered record is older than the flush interval.
+ * The MERGE and the INSERT of a flush are committed in one transaction, and the buffer is kept if the flush fails.
+ */
+@Slf4j
+public class ScriptHistoryWriter {
+    private final String historyTableName;
+    private final String eventTableName;
+    private final int batchSize;
+    private final long flushIntervalMillis;
+    private final Map<String, ScriptHistory> pendingHistory = new LinkedHashMap<>();
+    private final List<ScriptEvent> pendingEvents = new ArrayList<>();
+    private long oldestPendingTime = -1;
+
+    public ScriptHistoryWriter(String historyTableName, String eventTableName, int batchSize, long flushIntervalMillis) {
+        this.historyTableName = historyTableName;
+        this.eventTableName = eventTableName;
+        this.batchSize = batchSize;
+        this.flushIntervalMillis = flushIntervalMillis;
+        log.debug("Script history writer initialized with batch size {} and flush interval {} ms", batchSize, flushIntervalMillis);
+    }
+
+    public synchronized void addScriptHistory(ScriptHistory scriptHistory) {
+        pendingHistory.put(scriptHistory.getScriptId(), scriptHistory);
+        markPending();
+    }
+
+    public synchronized void addScriptEvent(ScriptEvent scriptEvent) {
+        pendingEvents.add(scriptEvent);
+        markPending();
+    }
+
+    public synchronized boolean isFlushDue() {
+        if(isEmpty()) {
+            return false;
+        }
+        return pendingHistory.size() + pendingEvents.size() >= batchSize || System.currentTimeMillis() - oldestPendingTime >= flushIntervalMillis;
+    }
+
+    public synchronized boolean isEmpty() {
+        return pendingHistory.isEmpty() && pendingEvents.isEmpty();
+    }
+
+    public synchronized void flush(Connection connection) throws SQLException {
+        if(isEmpty()) {
+            return;
+        }
+        log.debug("Flushing {} script history and {} script event records.", pendingHistory.size(), pendingEvents.size());
+        boolean autoCommit = connection.getAutoCommit();
+        try {
+            connection.setAutoCommit(false);
+            if(!pendingHistory.isEmpty()) {
+                mergeScriptHistory(connection, new ArrayList<>(pendingHistory.values()));
+            }
+            if(!pendingEvents.isEmpty()) {
+                insertScriptEvents(connection, pendingEvents);
+            }
+            connection.commit();
+        }
+        catch (SQLException e) {
+            connection.rollback();
+            log.error("Error {}, while writing {} script history and {} script event records.", e.getMessage(), pendingHistory.size(), pendingEvents.size());
+            throw e;
+        }
+        finally {
+            connection.setAutoCommit(autoCommit);
+        }
+        pendingHistory.clear();
+        pendingEvents.clear();
+        oldestPendingTime = -1;
+    }
+
+    private void markPending() {
+        if(oldestPendingTime < 0) {
+            oldestPendingTime = System.currentTimeMillis();
+        }
+    }
+
+    private void mergeScriptHistory(Connection connection, List<ScriptHistory> histories) throws SQLException {
+        StringJoiner rows = new StringJoiner(", ");
+        for(int i = 0; i < histories.size(); i++) {
+            rows.add("(?, ?, ?, ?, ?, ?, ?)");
+        }
+        String mergeSql = "MERGE INTO " + historyTableName + " t USING (SELECT column1 AS SCRIPT_ID, column2 AS OBJECT_NAME, column3 AS OBJECT_TYPE, column4 AS ROLLBACK_SCRIPT, column5 AS SCRIPT_HASH, column6 AS DEPLOYED_HASH, column7 AS CHANGE_SYNC_ID FROM VALUES " + rows + ") s ON t.SCRIPT_ID = s.SCRIPT_ID " +
+                "WHEN MATCHED THEN UPDATE SET ROLLBACK_SCRIPT=s.ROLLBACK_SCRIPT, SCRIPT_HASH=s.SCRIPT_HASH, DEPLOYED_HASH=s.DEPLOYED_HASH, CHANGE_SYNC_ID=s.CHANGE_SYNC_ID, updated_by=current_user, updated_ts=current_timestamp " +
+                "WHEN NOT MATCHED THEN INSERT (SCRIPT_ID, OBJECT_NAME, OBJECT_TYPE, ROLLBACK_SCRIPT, SCRIPT_HASH, DEPLOYED_HASH, CHANGE_SYNC_ID, CREATED_BY, CREATED_TS, UPDATED_BY, UPDATED_TS) " +
+                "VALUES (s.SCRIPT_ID, s.OBJECT_NAME, s.OBJECT_TYPE, s.ROLLBACK_SCRIPT, s.SCRIPT_HASH, s.DEPLOYED_HASH, s.CHANGE_SYNC_ID, current_user, current_timestamp, current_user, current_timestamp);";
+        PreparedStatement statement = connection.prepareStatement(mergeSql);
+        int index = 1;
+        for(ScriptHistory history: histories) {
+            statement.setString(index++, history.getScriptId());
+            statement.setString(index++, history.getObjectName());
+            statement.setString(index++, history.getObjectType());
+            statement.setString(index++, history.getRollbackScript());
+            statement.setString(index++, history.getScriptHash());
+            statement.setString(index++, history.getDeployedHash());
+            statement.setLong(index++, history.getChangeSyncId());
+        }
+        log.debug("Merging {} script history records with the following SQL: {}", histories.size(), mergeSql);
+        statement.executeUpdate();
+    }
+
+    private void insertScriptEvents(Connection connection, List<ScriptEvent> events) throws SQLException {
+        StringJoiner rows = new StringJoiner(", ");
+        for(int i = 0; i < events.size(); i++) {
+            rows.add("(?, ?, ?, ?, ?, ?)");
+        }
+        String insertSql = "INSERT INTO " + eventTableName + " SELECT UUID_STRING(), column1, column2, column3, column4, column5, column6, current_user, current_timestamp FROM VALUES " + rows + ";";
+        PreparedStatement statement = connection.prepareStatement(insertSql);
+        int index = 1;
+        for(ScriptEvent event: events) {
+            statement.setString(index++, event.getScriptId());
+            statement.setString(index++, event.getObjectName());
+            statement.setString(index++, event.getScriptHash());
+            statement.setString(index++, event.getStatus());
+            statement.setString(index++, event.getLog());
+            statement.setLong(index++, event.getChangeSyncId());
+        }
+        log.debug("Inserting {} script events with the following SQL: {}", events.size(), insertSql);
+        statement.executeUpdate();
+    }
+}
@@ -1,23 +1,40 @@
 package com.snowflake.dlsync.doa;
 
+import com.snowflake.dlsync.MetricsRegistry;
 import com.snowflake.dlsync.ScriptFactory;
-import com.snowflake.dlsync.Util;
+import com.snowflake.dlsync.ScriptHasher;
 import com.snowflake.dlsync.dependency.DependencyExtractor;
 import com.snowflake.dlsync.models.*;
 import com.snowflake.dlsync.parser.SqlTokenizer;
 import lombok.extern.slf4j.Slf4j;
+import net.snowflake.client.jdbc.SnowflakeConnection;
+import net.snowflake.client.jdbc.SnowflakeStatement;
 
 import java.io.IOException;
 import java.sql.*;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Slf4j
 public class ScriptRepo {
+    private static final int MAX_CONFIG_MIGRATION_LENGTH = 512 * 1024;
     private Properties connectionProperties;
     private Connection connection;
+    private ConnectionPool connectionPool;
+    private ConnectionPool testConnectionPool;
+    private ScriptHistoryWriter scriptHistoryWriter;
+    private DeploymentStateCache deploymentStateCache;
+    private MetricsRegistry metrics = new MetricsRegistry();
+    private ScriptHasher scriptHasher = ScriptHasher.DEFAULT;
     private Map<String, String> scriptHash = new HashMap<>();
     private Long changeSyncId;
+    private String commitId;
+    private String configHash;
 
     public final String CHANGE_SYNC_TABLE_NAME = "DL_SYNC_CHANGE_SYNC";
     public final String SCRIPT_HISTORY_TABLE_NAME = "DL_SYNC_SCRIPT_HISTORY";
@@ -31,10 +48,44 @@ public class ScriptRepo {
         log.debug("Repo initialized with connection and properties");
     }
 
+    public ScriptRepo(Connection connection, Properties connectionProperties, ConnectionPool connectionPool) {
+        this(connection, connectionProperties);
+        this.connectionPool = connectionPool;
+    }
+
+    /**
+     * Run the test queries on connections of this pool, so several tests can run at the same time.
+     */
+    public void setTestConnectionPool(ConnectionPool testConnectionPool) {
+        this.testConnectionPool = testConnectionPool;
+    }
+
     public void init() throws SQLException {
         initScriptTables();
     }
 
+    /**
+     * Buffers script history and event writes of deployed declarative scripts and flushes them in batches instead of writing them per script.
+     * Migrations are not idempotent, so their history is still committed together with the migration.
+     */
+    public void enableHistoryBatching(int batchSize, long flushIntervalMillis) {
+        scriptHistoryWriter = new ScriptHistoryWriter(getFullyQualifiedTableName(SCRIPT_HISTORY_TABLE_NAME), getFullyQualifiedTableName(SCRIPT_EVENT_TABLE_NAME), batchSize, flushIntervalMillis);
+    }
+
+    public void flushScriptHistory() throws SQLException {
+        if(scriptHistoryWriter != null) {
+            long startTime = System.nanoTime();
+            scriptHistoryWriter.flush(connection);
+            metrics.recordTime(MetricsRegistry.BOOKKEEPING, startTime);
+        }
+    }
+
+    private void flushScriptHistoryIfDue() throws SQLException {
+        if(scriptHistoryWriter != null && scriptHistoryWriter.isFlushDue()) {
+            flushScriptHistory();
+        }
+    }
+
     private void initScriptTables() throws SQLException {
         ////varchar OBJECT_NAME, varchar SCRIPT_HASH, varchar created_by, timestamp created_ts, varchar updated_by, timestamp updated_ts;
         ResultSet resultSet = connection.createStatement().executeQuery("select current_database(), current_schema();");
@@ -46,9 +97,10 @@ public class ScriptRepo {
             Statement statement = connection.createStatement();
             statement.executeQuery(query);
             updateOldTableNames();
+            updateOldTableColumns();
         } catch (SQLException e) {
             log.info("Running for the first time. Creating required tables.");
-            String createChangeSyncSql = "CREATE OR REPLACE TABLE " + getFullyQualifiedTableName(CHANGE_SYNC_TABLE_NAME) + " (ID integer PRIMARY KEY, CHANGE_TYPE varchar, STATUS varchar, LOG varchar, CHANGE_COUNT integer, START_TIME timestamp, END_TIME timestamp);";
+            String createChangeSyncSql = "CREATE OR REPLACE TABLE " + getFullyQualifiedTableName(CHANGE_SYNC_TABLE_NAME) + " (ID integer PRIMARY KEY, CHANGE_TYPE varchar, STATUS varchar, LOG varchar, CHANGE_COUNT integer, START_TIME timestamp, END_TIME timestamp, METRICS varchar, COMMIT_ID varchar, CONFIG_HASH varchar);";
 
             String createSqlHash = "CREATE OR REPLACE TABLE " + getFullyQualifiedTableName(SCRIPT_HISTORY_TABLE_NAME) + " (SCRIPT_ID VARCHAR, OBJECT_NAME varchar, OBJECT_TYPE varchar, ROLLBACK_SCRIPT varchar, SCRIPT_HASH varchar, DEPLOYED_HASH varchar, CHANGE_SYNC_ID integer, CREATED_BY varchar, CREATED_TS timestamp, UPDATED_BY varchar, UPDATED_TS timestamp, FOREIGN KEY (CHANGE_SYNC_ID) REFERENCES " + getFullyQualifiedTableName(CHANGE_SYNC_TABLE_NAME) + "(ID));";
 
@@ -76,33 +128,129 @@ public class ScriptRepo {
         }
     }
 
-    public Set<String> loadScriptHash() throws SQLException {
-        String hashQuery =  "SELECT * FROM " + getFullyQualifiedTableName(SCRIPT_HISTORY_TABLE_NAME) + ";";
-        log.debug("Loading hash with sql: {}", hashQuery);
-        Statement statement = connection.createStatement();
-        ResultSet resultSet = statement.executeQuery(hashQuery);
-        while (resultSet.next()) {
-            String id = resultSet.getString("SCRIPT_ID");
-            scriptHash.put(id, resultSet.getString("SCRIPT_HASH"));
+    private void updateOldTableColumns() {
+        for(String column: List.of("METRICS", "COMMIT_ID", "CONFIG_HASH")) {
+            try {
+                String alterSql = "ALTER TABLE " + getFullyQualifiedTableName(CHANGE_SYNC_TABLE_NAME) + " ADD COLUMN IF NOT EXISTS " + column + " varchar;";
+                connection.createStatement().executeUpdate(alterSql);
+            } catch (SQLException e) {
+                log.warn("Unable to add {} column to [{}]: {}", column, CHANGE_SYNC_TABLE_NAME, e.getMessage());
+            }
         }
+    }
+
+    public Set<String> loadScriptHash() throws SQLException {
+        loadScriptStates().forEach((id, state) -> scriptHash.put(id, state.getScriptHash()));
         log.debug("Script hash loaded: {}", scriptHash);
         return  scriptHash.keySet();
 
     }
 
     public Set<String> loadDeployedHash() throws SQLException {
-        String hashColumn = "DEPLOYED_HASH";
-        String hashQuery =  "SELECT * FROM " + getFullyQualifiedTableName(SCRIPT_HISTORY_TABLE_NAME) + ";";
+        loadScriptStates().forEach((id, state) -> scriptHash.put(id, state.getDeployedHash()));
+        log.debug("Script deployed hash loaded: {}", scriptHash);
+        return  scriptHash.keySet();
+
+    }
+
+    /**
+     * Use a local copy of the script history hashes, only reading the rows changed since the cached watermark.
+     */
+    public void setDeploymentStateCache(DeploymentStateCache deploymentStateCache) {
+        this.deploymentStateCache = deploymentStateCache;
+    }
+
+    public void setMetrics(MetricsRegistry metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Hash the deployed content and compare the stored hashes with the hasher of the command instead of the default MD5 hash.
+     */
+    public void setScriptHasher(ScriptHasher scriptHasher) {
+        this.scriptHasher = scriptHasher;
+    }
+
+    private Map<String, DeploymentState.ScriptState> loadScriptStates() throws SQLException {
+        if(deploymentStateCache == null) {
+            return queryScriptStates(null);
+        }
+        String watermarkQuery = "SELECT MAX(CHANGE_SYNC_ID), COUNT(1) FROM " + getFullyQualifiedTableName(SCRIPT_HISTORY_TABLE_NAME) + ";";
+        log.debug("Loading history watermark with sql: {}", watermarkQuery);
+        Statement statement = connection.createStatement();
+        ResultSet resultSet = statement.executeQuery(watermarkQuery);
+        resultSet.next();
+        long watermark = resultSet.getLong(1);
+        long rowCount = resultSet.getLong(2);
+
+        DeploymentState cachedState = deploymentStateCache.load();
+        if(cachedState != null && cachedState.getWatermark() != null && cachedState.getWatermark() <= watermark) {
+            Map<String, DeploymentState.ScriptState> scripts = cachedState.getScripts();
+            if(cachedState.getWatermark() < watermark) {
+                scripts.putAll(queryScriptStates(cachedState.getWatermark()));
+            }
+            if(scripts.size() == rowCount) {
+                log.info("Loaded script history from local cache with watermark {}", watermark);
+                if(cachedState.getWatermark() < watermark) {
+                    deploymentStateCache.save(new DeploymentState(watermark, scripts));
+                }
+                return scripts;
+            }
+            log.info("Local deployment state cache is out of sync with the script history, reloading all hashes.");
+        }
+        Map<String, DeploymentState.ScriptState> scripts = queryScriptStates(null);
+        deploymentStateCache.save(new DeploymentState(watermark, scripts));
+        return scripts;
+    }
+
+    private Map<String, DeploymentState.ScriptState> queryScriptStates(Long afterChangeSyncId) throws SQLException {
+        String hashQuery =  "SELECT SCRIPT_ID, SCRIPT_HASH, DEPLOYED_HASH FROM " + getFullyQualifiedTableName(SCRIPT_HISTORY_TABLE_NAME);
+        if(afterChangeSyncId != null) {
+            hashQuery += " WHERE CHANGE_SYNC_ID > " + afterChangeSyncId;
+        }
+        hashQuery += ";";
         log.debug("Loading hash with sql: {}", hashQuery);
+        Map<String, DeploymentState.ScriptState> scripts = new HashMap<>();
         Statement statement = connection.createStatement();
         ResultSet resultSet = statement.executeQuery(hashQuery);
         while (resultSet.next()) {
             String id = resultSet.getString("SCRIPT_ID");
-            scriptHash.put(id, resultSet.getString(hashColumn));
+            scripts.put(id, new DeploymentState.ScriptState(resultSet.getString("SCRIPT_HASH"), resultSet.getString("DEPLOYED_HASH")));
         }
-        log.debug("Script deployed hash loaded: {}", scriptHash);
-        return  scriptHash.keySet();
+        return scripts;
+    }
 
+    /**
+     * The git commit of the scripts of the current change sync, recorded when the change sync ends.
+     */
+    public void setCommitId(String commitId) {
+        this.commitId = commitId;
+    }
+
+    /**
+     * The hash of the deploy settings of the current change sync, recorded when the change sync ends.
+     */
+    public void setConfigHash(String configHash) {
+        this.configHash = configHash;
+    }
+
+    /**
+     * The commit and config hash recorded by the last deploy or rollback before the current change sync, and the number of successful deploys,
+     * or null if nothing was deployed. The commit is null unless the last of them is a successful deploy, as a rollback or a failed
+     * or unfinished deploy leaves the objects at another state than the recorded commit.
+     */
+    public DeployedCommit loadLastDeployedCommit() throws SQLException {
+        String query = "SELECT CHANGE_TYPE, STATUS, COMMIT_ID, CONFIG_HASH, COUNT_IF(CHANGE_TYPE = 'DEPLOY' AND STATUS = 'SUCCESS') OVER () AS DEPLOY_COUNT FROM "
+                + getFullyQualifiedTableName(CHANGE_SYNC_TABLE_NAME) + " WHERE CHANGE_TYPE IN ('DEPLOY', 'ROLLBACK') AND ID < ? ORDER BY ID DESC LIMIT 1;";
+        PreparedStatement statement = connection.prepareStatement(query);
+        statement.setLong(1, changeSyncId == null ? Long.MAX_VALUE : changeSyncId);
+        ResultSet resultSet = statement.executeQuery();
+        if(!resultSet.next()) {
+            return null;
+        }
+        boolean isDeployed = ChangeType.DEPLOY.toString().equals(resultSet.getString("CHANGE_TYPE")) && Status.SUCCESS.toString().equals(resultSet.getString("STATUS"));
+        String deployedCommitId = isDeployed ? resultSet.getString("COMMIT_ID") : null;
+        return new DeployedCommit(deployedCommitId, resultSet.getString("CONFIG_HASH"), resultSet.getLong("DEPLOY_COUNT"));
     }
 
     public Long insertChangeSync(ChangeType changeType, Status status, String logMessage) throws SQLException {
@@ -125,24 +273,28 @@ public class ScriptRepo {
     }
 
     public void updateChangeSync(ChangeType changeType, Status status, String logMessage, Long changeCount) throws SQLException {
-        String updateSql = "UPDATE " + getFullyQualifiedTableName(CHANGE_SYNC_TABLE_NAME) + " SET CHANGE_TYPE=?, STATUS=?, LOG=?, CHANGE_COUNT=?, END_TIME=CURRENT_TIMESTAMP WHERE ID = ? ;";
+        flushScriptHistory();
+        String updateSql = "UPDATE " + getFullyQualifiedTableName(CHANGE_SYNC_TABLE_NAME) + " SET CHANGE_TYPE=?, STATUS=?, LOG=?, CHANGE_COUNT=?, METRICS=?, COMMIT_ID=?, CONFIG_HASH=?, END_TIME=CURRENT_TIMESTAMP WHERE ID = ? ;";
         PreparedStatement statement = connection.prepareStatement(updateSql);
         statement.setString(1, changeType.toString());
         statement.setString(2, status.toString());
         statement.setString(3, logMessage);
         statement.setObject(4, changeCount);
-        statement.setLong(5, changeSyncId);
+        statement.setString(5, metrics.toJson());
+        statement.setString(6, commitId);
+        statement.setString(7, configHash);
+        statement.setLong(8, changeSyncId);
         log.debug("Creating script event with the following SQL: {}", updateSql);
         statement.executeUpdate();
     }
-    private boolean updateScriptHash(Script script) throws SQLException {
+    private boolean updateScriptHash(Connection connection, Script script) throws SQLException {
         String rollback = null;
         if(script instanceof MigrationScript) {
             MigrationScript migrationScript = (MigrationScript)script;
             rollback = migrationScript.getRollback();
         }
         PreparedStatement statement;
-        String deployedHash = Util.getMd5Hash(script.getContent());
+        String deployedHash = scriptHasher.hash(script);
         log.debug("Updating script hash of object {}", script.getId());
         if(scriptHash.containsKey(script.getId())) {
             String updateSql = "UPDATE " + getFullyQualifiedTableName(SCRIPT_HISTORY_TABLE_NAME) + " SET ROLLBACK_SCRIPT=?, SCRIPT_HASH=?, DEPLOYED_HASH=?, CHANGE_SYNC_ID=?, updated_by=current_user, updated_ts=current_timestamp WHERE SCRIPT_ID=?;";
@@ -171,6 +323,10 @@ public class ScriptRepo {
     }
 
     private boolean insertScriptEvent(Script script, String status, String logs) throws SQLException {
+        return insertScriptEvent(connection, script, status, logs);
+    }
+
+    private boolean insertScriptEvent(Connection connection, Script script, String status, String logs) throws SQLException {
         //varchar ID, varchar OBJECT_NAME, varchar SCRIPT_HASH, varchar STATUS, varchar log, varchar created_by, varchar created_ts;
         log.debug("Creating event for the object {} with status: {} and log: {} ", script.getObjectName(), status, logs);
         String insertSql = "INSERT INTO " + getFullyQualifiedTableName(SCRIPT_EVENT_TABLE_NAME) + " SELECT UUID_STRING(), ?, ?, ?, ?, ?, ?, current_user, current_timestamp;";
@@ -191,7 +347,7 @@ public class ScriptRepo {
 
     public boolean isScriptChanged(Script script) {
 //        return true;
-        return !scriptHash.getOrDefault(script.getId(), "null").equals(script.getHash());
+        return !scriptHasher.isSameHash(scriptHash.get(script.getId()), script);
     }
 
     public boolean isScriptVersionDeployed(Script script) {
@@ -199,24 +355,42 @@ public class ScriptRepo {
     }
 
     public void createScriptObject(Script script, boolean onlyHashes) throws SQLException {
+        if(connectionPool == null) {
+            createScriptObject(connection, script, onlyHashes);
+            return;
+        }
+        Connection pooledConnection = connectionPool.acquire();
+        try {
+            createScriptObject(pooledConnection, script, onlyHashes);
+        }
+        finally {
+            connectionPool.release(pooledConnection);
+        }
+    }
 
+    private void createScriptObject(Connection connection, Script script, boolean onlyHashes) throws SQLException {
+        if(scriptHistoryWriter != null && !(script instanceof MigrationScript)) {
+            createScriptObjectWithBatchedHistory(connection, script, onlyHashes);
+            return;
+        }
         Statement statement = connection.createStatement();
         boolean autoCommit = connection.getAutoCommit();
         try {
             connection.setAutoCommit(false);
             if(!onlyHashes) {
-                statement.execute(script.getContent());
-                log.debug("Creating object using the SQL: {}", script.getContent());
+                executeScript(statement, script);
             }
-            updateScriptHash(script);
-            insertScriptEvent(script, "SUCCESS", "Successfully Deployed Object");
+            long startTime = System.nanoTime();
+            updateScriptHash(connection, script);
+            insertScriptEvent(connection, script, "SUCCESS", "Successfully Deployed Object");
             connection.commit();
+            metrics.recordTime(MetricsRegistry.BOOKKEEPING, startTime);
             log.info("Successfully Deployed object: {}", script);
         }
         catch (SQLException e) {
             connection.rollback();
             log.error("Error {}, while creating the object {} with sql {}", e.getMessage(), script.getObjectName(), script.getContent());
-            insertScriptEvent(script, "ERROR", e.getMessage());
+            insertScriptEvent(connection, script, "ERROR", e.getMessage());
             throw e;
         }
         finally {
@@ -225,61 +399,281 @@ public class ScriptRepo {
 
     }
 
+    private void createScriptObjectWithBatchedHistory(Connection connection, Script script, boolean onlyHashes) throws SQLException {
+        try {
+            if(!onlyHashes) {
+                executeScript(connection.createStatement(), script);
+            }
+            scriptHistoryWriter.addScriptHistory(getScriptHistory(script));
+            scriptHistoryWriter.addScriptEvent(getScriptEvent(script, "SUCCESS", "Successfully Deployed Object"));
+            log.info("Successfully Deployed object: {}", script);
+        }
+        catch (SQLException e) {
+            log.error("Error {}, while creating the object {} with sql {}", e.getMessage(), script.getObjectName(), script.getContent());
+            scriptHistoryWriter.addScriptEvent(getScriptEvent(script, "ERROR", e.getMessage()));
+            throw e;
+        }
+        finally {
+            flushScriptHistoryIfDue();
+        }
+    }
+
+    private void executeScript(Statement statement, Script script) throws SQLException {
+        long startTime = System.nanoTime();
+        try {
+            statement.execute(script.getContent());
+            log.debug("Creating object using the SQL: {}", script.getContent());
+        }
+        finally {
+            metrics.recordTime(MetricsRegistry.DDL_EXECUTION, startTime);
+        }
+    }
+
+    private ScriptHistory getScriptHistory(Script script) {
+        ScriptHistory scriptHistory = new ScriptHistory();
+        scriptHistory.setScriptId(script.getId());
+        scriptHistory.setObjectName(script.getFullObjectName());
+        scriptHistory.setObjectType(script.getObjectType().toString());
+        if(script instanceof MigrationScript) {
+            scriptHistory.setRollbackScript(((MigrationScript) script).getRollback());
+        }
+        scriptHistory.setScriptHash(script.getHash());
+        scriptHistory.setDeployedHash(scriptHasher.hash(script));
+        scriptHistory.setChangeSyncId(changeSyncId);
+        return scriptHistory;
+    }
+
+    private ScriptEvent getScriptEvent(Script script, String status, String logs) {
+        ScriptEvent scriptEvent = new ScriptEvent();
+        scriptEvent.setScriptId(script.getId());
+        scriptEvent.setObjectName(script.getFullObjectName());
+        scriptEvent.setScriptHash(script.getHash());
+        scriptEvent.setStatus(status);
+        scriptEvent.setLog(logs);
+        scriptEvent.setChangeSyncId(changeSyncId);
+        return scriptEvent;
+    }
+
     public List<SchemaScript> getAllScriptsInSchema(String schema) throws SQLException {
         log.info("Getting all scripts in schema: {}", schema);
-        String sql = String.format("SELECT GET_DDL('SCHEMA', '%s', true)", schema);
+        String sql = getSchemaDdlQuery(schema);
         log.debug("Getting all scripts using SQL: {}", sql);
         ResultSet resultSet = connection.createStatement().executeQuery(sql);
+        return parseSchemaDdl(schema, resultSet);
+    }
+
+    /**
+     * Get the scripts of all the schemas with up to parallelism DDL queries running at the same time.
+     * Each schema DDL is parsed as soon as it is received while the remaining queries are still running.
+     */
+    public Map<String, List<SchemaScript>> getAllScriptsInSchemas(List<String> schemas, int parallelism) throws SQLException {
+        Map<String, List<SchemaScript>> schemaScripts = new LinkedHashMap<>();
+        if(parallelism > 1 && schemas.size() > 1 && isAsyncQuerySupported()) {
+            getAllScriptsInSchemasAsync(schemas, parallelism, schemaScripts);
+        }
+        else if(parallelism > 1 && schemas.size() > 1 && connectionPool != null) {
+            getAllScriptsInSchemasPooled(schemas, parallelism, schemaScripts);
+        }
+        else {
+            for(String schema: schemas) {
+                schemaScripts.put(schema, getAllScriptsInSchema(schema));
+            }
+        }
+        return schemaScripts;
+    }
+
+    private void getAllScriptsInSchemasAsync(List<String> schemas, int parallelism, Map<String, List<SchemaScript>> schemaScripts) throws SQLException {
+        log.debug("Getting scripts of {} schemas with {} async queries", schemas.size(), parallelism);
+        Iterator<String> pendingSchemas = schemas.iterator();
+        Deque<AsyncDdlQuery> runningQueries = new ArrayDeque<>();
+        while(pendingSchemas.hasNext() || !runningQueries.isEmpty()) {
+            while(pendingSchemas.hasNext() && runningQueries.size() < parallelism) {
+                String schema = pendingSchemas.next();
+                log.info("Getting all scripts in schema: {}", schema);
+                SnowflakeStatement statement = connection.createStatement().unwrap(SnowflakeStatement.class);
+                long startTime = System.nanoTime();
+                runningQueries.add(new AsyncDdlQuery(schema, statement.executeAsyncQuery(getSchemaDdlQuery(schema)), startTime));
+            }
+            AsyncDdlQuery query = runningQueries.poll();
+            String ddl;
+            try {
+                ddl = fetchSchemaDdl(query.resultSet);
+            }
+            finally {
+                metrics.recordTime(MetricsRegistry.JDBC_ROUND_TRIP, query.startTime);
+            }
+            schemaScripts.put(query.schema, SqlTokenizer.parseDdlScripts(ddl, getDatabaseName(), query.schema));
+        }
+    }
+
+    private void getAllScriptsInSchemasPooled(List<String> schemas, int parallelism, Map<String, List<SchemaScript>> schemaScripts) throws SQLException {
+        log.debug("Getting scripts of {} schemas with {} connections", schemas.size(), parallelism);
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, schemas.size()));
+        try {
+            Map<String, Future<List<SchemaScript>>> futures = new LinkedHashMap<>();
+            for(String schema: schemas) {
+                futures.put(schema, executor.submit(() -> {
+                    Connection pooledConnection = connectionPool.acquire();
+                    try {
+                        log.info("Getting all scripts in schema: {}", schema);
+                        ResultSet resultSet = pooledConnection.createStatement().executeQuery(getSchemaDdlQuery(schema));
+                        return parseSchemaDdl(schema, resultSet);
+                    }
+                    finally {
+                        connectionPool.release(pooledConnection);
+                    }
+                }));
+            }
+            for(Map.Entry<String, Future<List<SchemaScript>>> future: futures.entrySet()) {
+                try {
+                    schemaScripts.put(future.getKey(), future.getValue().get());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException("Interrupted while getting scripts of schema " + future.getKey(), e);
+                } catch (ExecutionException e) {
+                    if(e.getCause() instanceof SQLException) {
+                        throw (SQLException) e.getCause();
+                    }
+                    if(e.getCause() instanceof RuntimeException) {
+                        throw (RuntimeException) e.getCause();
+                    }
+                    throw new RuntimeException(e.getCause());
+                }
+            }
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private boolean isAsyncQuerySupported() {
+        try {
+            return connection.isWrapperFor(SnowflakeConnection.class);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private String getSchemaDdlQuery(String schema) {
+        return String.format("SELECT GET_DDL('SCHEMA', '%s', true)", schema);
+    }
+
+    private List<SchemaScript> parseSchemaDdl(String schema, ResultSet resultSet) throws SQLException {
+        return SqlTokenizer.parseDdlScripts(fetchSchemaDdl(resultSet), getDatabaseName(), schema);
+    }
+
+    /**
+     * The DDL of the schema query, for an async query this waits until the query finished.
+     */
+    private String fetchSchemaDdl(ResultSet resultSet) throws SQLException {
         if(resultSet.next()) {
-            String ddl = resultSet.getString(1);
-            return SqlTokenizer.parseDdlScripts(ddl, getDatabaseName(), schema);
+            return resultSet.getString(1);
         }
         else {
             throw new RuntimeException("Error while getting ddl scripts: result set has no data");
         }
     }
 
+    /**
+     * A submitted async GET_DDL query, timed from its submission until its result is fetched.
+     */
+    private static class AsyncDdlQuery {
+        private final String schema;
+        private final ResultSet resultSet;
+        private final long startTime;
+
+        private AsyncDdlQuery(String schema, ResultSet resultSet, long startTime) {
+            this.schema = schema;
+            this.resultSet = resultSet;
+            this.startTime = startTime;
+        }
+    }
 
-    public SchemaScript addConfig(SchemaScript script) throws SQLException {
-        if(script.getObjectType() == ScriptObjectType.TABLES) {
-            String additionalContent = String.format("SELECT * FROM %s", script.getFullObjectName());
-            ResultSet resultSet = connection.createStatement().executeQuery(additionalContent);
-            int count = resultSet.getMetaData().getColumnCount();
-            StringBuilder insertBuilder = new StringBuilder(String.format("INSERT INTO %s values", script.getFullObjectName()));
-            Boolean firstRow = true;
-            while(resultSet.next()) {
-                if(!firstRow) {
-                    insertBuilder.append(", ");
-                }
-                firstRow = false;
-                for(int i = 1; i <= count; i++) {
-                    if(i == 1) {
-                        insertBuilder.append("(");
+
+    /**
+     * Export the rows of the config table as INSERT migrations of at most batchSize rows, versioned after the table creation.
+     * The rows are read with a bounded fetch size and each migration is handed to the writer as soon as it is complete,
+     * so the memory used does not depend on the table size. Returns the number of exported rows.
+     */
+    public long exportConfig(SchemaScript script, int batchSize, Consumer<String> migrationWriter) throws SQLException {
+        String query = String.format("SELECT * FROM %s", script.getFullObjectName());
+        long rowCount = 0;
+        long version = 1;
+        try (Statement statement = connection.createStatement()) {
+            statement.setFetchSize(batchSize);
+            try (ResultSet resultSet = statement.executeQuery(query)) {
+                int columnCount = resultSet.getMetaData().getColumnCount();
+                StringBuilder migration = new StringBuilder();
+                int batchRows = 0;
+                while(resultSet.next()) {
+                    if(batchRows == 0) {
+                        startConfigMigration(migration, script, version);
                     }
                     else {
-                        insertBuilder.append(", ");
+                        migration.append(",\n");
                     }
-                    Object value = resultSet.getObject(i);
-                    if(value == null) {
-                        insertBuilder.append("null");
-                    }
-                    else {
-                        insertBuilder.append(String.format("'%s'", value.toString().replace("'", "''")));
+                    appendConfigRow(migration, resultSet, columnCount);
+                    batchRows++;
+                    rowCount++;
+                    if(batchRows == batchSize || migration.length() >= MAX_CONFIG_MIGRATION_LENGTH) {
+                        migrationWriter.accept(endConfigMigration(migration, script, version++));
+                        batchRows = 0;
                     }
                 }
-                insertBuilder.append(")");
+                if(batchRows > 0) {
+                    migrationWriter.accept(endConfigMigration(migration, script, version));
+                }
+            }
+        }
+        log.debug("Exported {} rows of config table {}", rowCount, script.getFullObjectName());
+        return rowCount;
+    }
+
+    private void startConfigMigration(StringBuilder migration, SchemaScript script, long version) {
+        migration.setLength(0);
+        migration.append("---version: ").append(version).append(", author: DlSync\n");
+        migration.append("INSERT INTO ").append(script.getFullObjectName()).append(" values\n");
+    }
+
+    private void appendConfigRow(StringBuilder migration, ResultSet resultSet, int columnCount) throws SQLException {
+        migration.append('(');
+        for(int i = 1; i <= columnCount; i++) {
+            if(i > 1) {
+                migration.append(", ");
+            }
+            Object value = resultSet.getObject(i);
+            if(value == null) {
+                migration.append("null");
+            }
+            else {
+                appendStringLiteral(migration, value.toString());
+            }
+        }
+        migration.append(')');
+    }
 
+    private static void appendStringLiteral(StringBuilder migration, String value) {
+        migration.append('\'');
+        for(int i = 0; i < value.length(); i++) {
+            char ch = value.charAt(i);
+            if(ch == '\'' || ch == '\\') {
+                migration.append(ch);
             }
-            insertBuilder.append(";");
-            String migrationHeader = "---version: 1, author: DlSync\n";
-            String rollback = "\n---rollback: DELETE FROM " + script.getFullObjectName() + ";";
-            String verify = "\n---verify: SELECT COUNT(*) FROM  " + script.getFullObjectName() + ";";
-            String insertContent = migrationHeader + insertBuilder + rollback + verify;
+            migration.append(ch);
+        }
+        migration.append('\'');
+    }
 
-            String newContent = script.getContent() + "\n\n" + insertContent;
-            script.setContent(newContent);
+    /**
+     * Only the first migration deletes the rows on rollback, rolling back a later batch alone leaves the rows in place.
+     */
+    private String endConfigMigration(StringBuilder migration, SchemaScript script, long version) {
+        migration.append(";");
+        if(version == 1) {
+            migration.append("\n---rollback: DELETE FROM ").append(script.getFullObjectName()).append(";");
         }
-        return script;
+        migration.append("\n---verify: SELECT COUNT(*) FROM ").append(script.getFullObjectName()).append(";");
+        return migration.toString();
     }
 
     public List<String> getAllSchemasInDatabase(String database) throws SQLException {
@@ -442,7 +836,7 @@ public class ScriptRepo {
         if(!scriptHash.containsKey(script.getId())) {
             log.warn("Script file does not exist for the db object: {}", script);
         }
-        return scriptHash.getOrDefault(script.getId(), script.getHash()).equals(script.getHash());
+        return !scriptHash.containsKey(script.getId()) || scriptHasher.isSameHash(scriptHash.get(script.getId()), script);
     }
 
     public boolean compareScript(Script script1, Script script2) {
@@ -450,19 +844,33 @@ public class ScriptRepo {
     }
 
     public List<TestResult> runTest(TestScript testScript) throws IOException {
+        return runTest(testScript, testScript.getTestQuery());
+    }
+
+    /**
+     * Run the generated test query of the test script, on a connection of the test connection pool if there is one.
+     */
+    public List<TestResult> runTest(TestScript testScript, String testQuery) {
         List<TestResult> testResults = new ArrayList<>();
+        Connection testConnection = null;
         try {
+            testConnection = testConnectionPool == null ? connection : testConnectionPool.acquire();
             log.debug("Running test script: {}", testScript.getObjectName());
-            ResultSet resultSet = connection.createStatement().executeQuery(testScript.getTestQuery());
-            while(resultSet.next()) {
-                TestResult testResult = new TestResult(resultSet.getString(1), resultSet.getString(2));
-                testResults.add(testResult);
+            try (Statement statement = testConnection.createStatement(); ResultSet resultSet = statement.executeQuery(testQuery)) {
+                while(resultSet.next()) {
+                    TestResult testResult = new TestResult(resultSet.getString(1), resultSet.getString(2));
+                    testResults.add(testResult);
+                }
             }
             return testResults;
         } catch (SQLException e) {
             log.error("Error while running test script: {}", e.getMessage());
             testResults.add(new TestResult(e));
             return testResults;
+        } finally {
+            if(testConnectionPool != null) {
+                testConnectionPool.release(testConnection);
+            }
         }
     }
 }
@@ -1,6 +1,8 @@
 package com.snowflake.dlsync.doa;
 
+import com.snowflake.dlsync.MetricsRegistry;
 import com.snowflake.dlsync.ScriptFactory;
+import com.snowflake.dlsync.ScriptHasher;
 import com.snowflake.dlsync.models.*;
 import com.snowflake.dlsync.parser.SqlTokenizer;
 import lombok.extern.slf4j.Slf4j;
@@ -8,11 +10,17 @@ import lombok.extern.slf4j.Slf4j;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Slf4j
 public class ScriptSource {
@@ -20,6 +28,12 @@ public class ScriptSource {
     private String mainScriptDir;
     private String testScriptDir;
     private final String accountDir = "ACCOUNT";
+    private static final int SCHEMA_SCRIPT_DEPTH = 4;
+    private static final int ACCOUNT_SCRIPT_DEPTH = 3;
+    private List<Script> fileScripts;
+    private ScriptFileCache scriptFileCache;
+    private ScriptHasher scriptHasher = ScriptHasher.DEFAULT;
+    private MetricsRegistry metrics = new MetricsRegistry();
 
     public ScriptSource(String scriptRoot) {
         this.scriptRoot = scriptRoot;
@@ -28,37 +42,22 @@ public class ScriptSource {
         log.debug("Script file reader initialized with scriptRoot: {}", scriptRoot);
     }
 
-    private List<String> readDatabase() {
-        File scriptFiles = new File(mainScriptDir);
-        List<String> dbs = new ArrayList<>();
-        if(scriptFiles.exists()) {
-            File[] allDbs = scriptFiles.listFiles();
-            for(File file: allDbs) {
-                if(file.isDirectory() && !file.getName().equalsIgnoreCase(accountDir)) {
-                    dbs.add(file.getName());
-                }
-            }
-        }
-        else {
-            log.error("Invalid path for script provided: {}", scriptFiles.getAbsolutePath());
-            throw new RuntimeException("No valid script source path provided");
-        }
-        return dbs;
+    public void setMetrics(MetricsRegistry metrics) {
+        this.metrics = metrics;
     }
 
-    private List<String> readSchemas(String database) {
-        log.info("Reading all schema from database {}", database);
-        List<String> schemas = new ArrayList<>();
-        File dbFile = Path.of(mainScriptDir, database).toFile();
-        if(dbFile.exists()) {
-            File[] allFiles = dbFile.listFiles();
-            for(File file: allFiles) {
-                if(file.isDirectory()) {
-                    schemas.add(file.getName());
-                }
-            }
-        }
-        return schemas;
+    /**
+     * Hash the scripts read from the files with the hasher instead of the default MD5 hash.
+     */
+    public void setScriptHasher(ScriptHasher scriptHasher) {
+        this.scriptHasher = scriptHasher;
+    }
+
+    /**
+     * Reuse the scripts parsed by earlier instances from the cache while their files are unchanged.
+     */
+    public void setScriptFileCache(ScriptFileCache scriptFileCache) {
+        this.scriptFileCache = scriptFileCache;
     }
 
     public List<Script> getAllScripts() throws IOException {
@@ -73,70 +72,202 @@ public class ScriptSource {
                 }).collect(Collectors.toList());
     }
 
+    /**
+     * All scripts in the script root. The files are read once and the parsed scripts are reused until {@link #clearCache()} is called.
+     */
     public List<Script> getAllFileScripts() throws IOException {
-        List<Script> allScripts = new ArrayList<>();
-        List<AccountScript> accountScripts = getScriptsInAccount();
-        for(String database: readDatabase()) {
-            for(String schema: readSchemas(database)) {
-                allScripts.addAll(getScriptsInSchema(database, schema));
+        if(fileScripts == null) {
+            Path mainScriptPath = Path.of(mainScriptDir);
+            if(!Files.isDirectory(mainScriptPath)) {
+                log.error("Invalid path for script provided: {}", mainScriptPath.toAbsolutePath());
+                throw new RuntimeException("No valid script source path provided");
             }
+            List<Script> scripts = readScriptFiles(mainScriptPath);
+            List<Script> allScripts = scripts.stream().filter(script -> !(script instanceof AccountScript)).collect(Collectors.toList());
+            allScripts.addAll(scripts.stream().filter(script -> script instanceof AccountScript).collect(Collectors.toList()));
+            fileScripts = allScripts;
+            metrics.increment(MetricsRegistry.SCRIPTS_LOADED, allScripts.size());
         }
-        allScripts.addAll(accountScripts);
-        return allScripts;
+        return new ArrayList<>(fileScripts);
+    }
+
+    /**
+     * Forget the scripts read by {@link #getAllFileScripts()}, the next call reads the script files again.
+     */
+    public void clearCache() {
+        fileScripts = null;
     }
 
     public List<AccountScript> getScriptsInAccount() throws IOException {
-        List<AccountScript> allScripts = new ArrayList<>();
         log.info("Reading all Account objects from {}", accountDir);
-        File accountFile = Path.of(mainScriptDir, accountDir).toFile();
-        if(!accountFile.exists()) {
-            return allScripts;
-        }
-        File[] scriptTypeDirectories = accountFile.listFiles();
-        for(File scriptType: scriptTypeDirectories) {
-            if(scriptType.isDirectory() ) {
-                File[] scriptFiles = scriptType.listFiles();
-                for(File file: scriptFiles) {
-                    if(file.getName().toLowerCase().endsWith(".sql")){
-                        AccountScript scriptFromFile = SqlTokenizer.parseAccountScript(file.getPath(), file.getName(), scriptType.getName(), Files.readString(file.toPath()));
-                        allScripts.add(scriptFromFile);
-                    }
-                    else {
-                        log.warn("Script Skipped, File not SQL: {} ", file.getName());
-                    }
-                }
-            }
-            else {
-                log.warn("Script file found outside object type directory: {} ", scriptType.getName());
-            }
+        Path accountPath = Path.of(mainScriptDir, accountDir);
+        if(!Files.exists(accountPath)) {
+            return new ArrayList<>();
         }
-        return allScripts;
+        return readScriptFiles(accountPath).stream().map(script -> (AccountScript)script).collect(Collectors.toList());
     }
 
     public List<SchemaScript> getScriptsInSchema(String database, String schema) throws IOException {
         log.info("Reading script files from schema: {}", schema);
-        List<SchemaScript> scripts = new ArrayList<>();
-        File schemaDirectory = Path.of(mainScriptDir, database, schema).toFile();
-        File[] scriptTypeDirectories = schemaDirectory.listFiles();
-
-        for(File scriptType: scriptTypeDirectories) {
-            if(scriptType.isDirectory() ) {
-                File[] scriptFiles = scriptType.listFiles();
-                for(File file: scriptFiles) {
-                    if(file.getName().toLowerCase().endsWith(".sql")){
-                       SchemaScript scriptFromFile = SqlTokenizer.parseSchemaScript(file.getPath(), file.getName(), scriptType.getName(), Files.readString(file.toPath()));
-                       scripts.add(scriptFromFile);
+        return readScriptFiles(Path.of(mainScriptDir, database, schema)).stream().map(script -> (SchemaScript)script).collect(Collectors.toList());
+    }
+
+    /**
+     * Find the script files under the directory with a single tree walk, then read and parse them in parallel.
+     * The directory must be the main script directory or one of the database, schema or account directories below it.
+     */
+    private List<Script> readScriptFiles(Path directory) throws IOException {
+        Path mainScriptPath = Path.of(mainScriptDir);
+        List<Path> scriptFiles = new ArrayList<>();
+        long startTime = System.nanoTime();
+        int maxDepth = directory.equals(mainScriptPath) ? SCHEMA_SCRIPT_DEPTH : SCHEMA_SCRIPT_DEPTH - mainScriptPath.relativize(directory).getNameCount();
+        Files.walkFileTree(directory, EnumSet.noneOf(FileVisitOption.class), maxDepth, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                if(!dir.equals(directory) && dir.getFileName().toString().startsWith(".")) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                Path relativePath = mainScriptPath.relativize(dir);
+                if(isAccountPath(relativePath) && relativePath.getNameCount() == ACCOUNT_SCRIPT_DEPTH) {
+                    log.warn("Script Skipped, File not SQL: {} ", dir.getFileName());
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                Path relativePath = mainScriptPath.relativize(file);
+                int scriptDepth = isAccountPath(relativePath) ? ACCOUNT_SCRIPT_DEPTH : SCHEMA_SCRIPT_DEPTH;
+                if(relativePath.getNameCount() == scriptDepth - 1) {
+                    log.warn("Script file found outside object type directory: {} ", file.getFileName());
+                }
+                else if(relativePath.getNameCount() == scriptDepth) {
+                    if(!attrs.isDirectory() && file.getFileName().toString().toLowerCase().endsWith(".sql")) {
+                        scriptFiles.add(file);
                     }
                     else {
-                        log.warn("Script Skipped, File not SQL: {} ", file.getName());
+                        log.warn("Script Skipped, File not SQL: {} ", file.getFileName());
                     }
                 }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        metrics.recordTime(MetricsRegistry.SOURCE_WALK, startTime);
+        log.debug("Found {} script files in {}", scriptFiles.size(), directory);
+        try {
+            return scriptFiles.parallelStream().map(file -> parseScriptFile(mainScriptPath, file)).collect(Collectors.toList());
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * The main and test script directories, watched by the watch command.
+     */
+    public List<Path> getScriptDirectories() {
+        return List.of(getMainScriptDirectory(), Path.of(testScriptDir));
+    }
+
+    public Path getMainScriptDirectory() {
+        return Path.of(mainScriptDir);
+    }
+
+    public boolean isTestScriptFile(Path file) {
+        return file.startsWith(Path.of(testScriptDir));
+    }
+
+    /**
+     * True if the path is the path of a script file in the main script directory, read by {@link #getAllFileScripts()} if the file exists.
+     */
+    public boolean isScriptFile(Path file) {
+        Path mainScriptPath = Path.of(mainScriptDir);
+        if(!file.startsWith(mainScriptPath) || !file.getFileName().toString().toLowerCase().endsWith(".sql")) {
+            return false;
+        }
+        Path relativePath = mainScriptPath.relativize(file);
+        int scriptDepth = isAccountPath(relativePath) ? ACCOUNT_SCRIPT_DEPTH : SCHEMA_SCRIPT_DEPTH;
+        if(relativePath.getNameCount() != scriptDepth) {
+            return false;
+        }
+        for(Path name: relativePath) {
+            if(name.toString().startsWith(".")) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Read the single script file, or return null if the file is not an existing script file of the main script directory.
+     */
+    public Script readScript(Path file) throws IOException {
+        if(!isScriptFile(file) || !Files.isRegularFile(file)) {
+            return null;
+        }
+        try {
+            return parseScriptFile(Path.of(mainScriptDir), file);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * The scripts of the given files, in the order of {@link #getAllScripts()}. Missing files and files that are not script files are skipped.
+     */
+    public List<Script> getScripts(Collection<Path> files) throws IOException {
+        List<Script> scripts = new ArrayList<>();
+        for(Path file: files) {
+            Script script = readScript(file);
+            if(script != null) {
+                scripts.add(script);
             }
-            else {
-                log.warn("Script file found outside object type directory: {} ", scriptType.getName());
+        }
+        metrics.increment(MetricsRegistry.SCRIPTS_LOADED, scripts.size());
+        return scripts.stream()
+                .sorted(Comparator.comparing(script -> script instanceof AccountScript))
+                .flatMap(script -> script.isMigration() && script.getMigrations() != null ? script.getMigrations().stream() : Stream.of(script))
+                .collect(Collectors.toList());
+    }
+
+    private Script parseScriptFile(Path mainScriptPath, Path file) {
+        if(scriptFileCache == null) {
+            return readScriptFile(mainScriptPath, file);
+        }
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            Script script = scriptFileCache.get(file, attributes, scriptHasher);
+            if(script != null) {
+                metrics.increment(MetricsRegistry.SCRIPTS_REUSED);
+                return script;
             }
+            return scriptFileCache.put(file, attributes, scriptHasher, readScriptFile(mainScriptPath, file));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
-        return scripts;
+    }
+
+    private Script readScriptFile(Path mainScriptPath, Path file) {
+        try {
+            long startTime = System.nanoTime();
+            String content = Files.readString(file);
+            metrics.recordTime(MetricsRegistry.SOURCE_READ, startTime);
+            String fileName = file.getFileName().toString();
+            String scriptType = file.getParent().getFileName().toString();
+            startTime = System.nanoTime();
+            Script script = isAccountPath(mainScriptPath.relativize(file))
+                    ? SqlTokenizer.parseAccountScript(file.toString(), fileName, scriptType, content)
+                    : SqlTokenizer.parseSchemaScript(file.toString(), fileName, scriptType, content);
+            scriptHasher.hashScript(script);
+            metrics.recordTime(MetricsRegistry.SOURCE_PARSE, startTime);
+            return script;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private boolean isAccountPath(Path relativePath) {
+        return relativePath.getNameCount() > 0 && relativePath.getName(0).toString().equalsIgnoreCase(accountDir);
     }
 
     public List<TestScript> getTestScripts(List<Script> scripts) throws IOException {
@@ -176,21 +307,25 @@ public class ScriptSource {
     }
 
     public void createSchemaScriptFile(SchemaScript script) {
-        try {
-            String scriptFileName = script.getObjectName() + ".SQL";
-            String scriptDirectoryPath = String.format("%s/%s/%s/%s", mainScriptDir, script.getDatabaseName(), script.getSchemaName(), script.getObjectType());
-            File directory = new File(scriptDirectoryPath);
-            directory.mkdirs();
-            FileWriter fileWriter = new FileWriter(Path.of(scriptDirectoryPath,  scriptFileName).toFile());
-            fileWriter.write(script.getContent());
-            fileWriter.close();
-            log.debug("File {} created successfully", Path.of(scriptDirectoryPath,  scriptFileName));
+        try (Writer writer = newSchemaScriptWriter(script)) {
+            writer.write(script.getContent());
         } catch (IOException e) {
             log.error("Error in creating script: {}", e.getMessage());
             throw new RuntimeException(e);
         }
     }
 
+    /**
+     * Buffered writer of the script file of the schema script, for content that is written in parts.
+     */
+    public Writer newSchemaScriptWriter(SchemaScript script) throws IOException {
+        Path scriptDirectory = Path.of(mainScriptDir, script.getDatabaseName(), script.getSchemaName(), script.getObjectType().toString());
+        Files.createDirectories(scriptDirectory);
+        Path scriptFile = scriptDirectory.resolve(script.getObjectName() + ".SQL");
+        log.debug("Creating file {}", scriptFile);
+        return Files.newBufferedWriter(scriptFile);
+    }
+
     public void createAccountScriptFiles(List<AccountScript> scripts) {
         log.debug("Creating script files for the account scripts: {}", scripts);
         for(AccountScript script: scripts) {
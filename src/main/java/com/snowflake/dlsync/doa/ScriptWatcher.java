@@ -0,0 +1,126 @@
+package com.snowflake.dlsync.doa;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * Watches the directory trees of the scripts for created, modified and deleted files.
+ * New directories are watched as they are created, directories starting with a dot are not watched.
+ * The events of a burst of changes, like an editor save or a git checkout, are collected into a single batch of changes.
+ */
+@Slf4j
+public class ScriptWatcher implements Closeable {
+    public static final long DEFAULT_QUIET_PERIOD_MILLIS = 100;
+
+    private final WatchService watchService;
+    private final Map<WatchKey, Path> watchedDirectories = new HashMap<>();
+    private final List<Path> roots;
+    private final long quietPeriodMillis;
+
+    public ScriptWatcher(List<Path> roots) throws IOException {
+        this(roots, DEFAULT_QUIET_PERIOD_MILLIS);
+    }
+
+    public ScriptWatcher(List<Path> roots, long quietPeriodMillis) throws IOException {
+        this.roots = roots;
+        this.quietPeriodMillis = quietPeriodMillis;
+        watchService = FileSystems.getDefault().newWatchService();
+        for(Path root: roots) {
+            boolean isNested = roots.stream().anyMatch(other -> !other.equals(root) && root.startsWith(other));
+            if(Files.isDirectory(root) && !isNested) {
+                registerTree(root, new HashSet<>());
+            }
+        }
+        log.debug("Watching {} directories under {}", watchedDirectories.size(), roots);
+    }
+
+    /**
+     * Wait for the next changes and return them once no event arrived for the quiet period.
+     * The changed paths are the created, modified and deleted files, and the deleted directories.
+     * The files of a new directory are returned as changed files, as they may have been created before the directory was watched.
+     */
+    public Changes take() throws InterruptedException, IOException {
+        Changes changes = new Changes();
+        WatchKey key = watchService.take();
+        while(key != null) {
+            collectEvents(key, changes);
+            key = watchService.poll(quietPeriodMillis, TimeUnit.MILLISECONDS);
+        }
+        return changes;
+    }
+
+    private void collectEvents(WatchKey key, Changes changes) throws IOException {
+        Path directory = watchedDirectories.get(key);
+        for(WatchEvent<?> event: key.pollEvents()) {
+            if(event.kind() == OVERFLOW || directory == null) {
+                log.warn("Lost file events of {}, all scripts will be read again.", directory);
+                changes.overflow = true;
+                continue;
+            }
+            Path path = directory.resolve((Path) event.context());
+            if(event.kind() == ENTRY_CREATE && Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)) {
+                registerTree(path, changes.paths);
+            }
+            else if(!isHidden(path)) {
+                changes.paths.add(path);
+            }
+        }
+        if(!key.reset()) {
+            watchedDirectories.remove(key);
+            changes.paths.add(directory);
+        }
+    }
+
+    private void registerTree(Path directory, Set<Path> newFiles) throws IOException {
+        Files.walkFileTree(directory, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                if(isHidden(dir)) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                watchedDirectories.put(dir.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE), dir);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                newFiles.add(file);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private boolean isHidden(Path path) {
+        for(Path root: roots) {
+            if(path.startsWith(root)) {
+                for(Path name: root.relativize(path)) {
+                    if(name.toString().startsWith(".")) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+    }
+
+    @Getter
+    public static class Changes {
+        private final Set<Path> paths = new LinkedHashSet<>();
+        private boolean overflow;
+    }
+}
@@ -0,0 +1,63 @@
+package com.snowflake.dlsync.doa;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps the connections opened for one command, so the next command reuses the authenticated sessions instead of logging in again.
+ * Within a command every call returns a different connection, as the connection pools expect.
+ * {@link #startCommand()} hands out the same connections again from the first one, closed connections are replaced.
+ */
+@Slf4j
+public class SessionConnectionProvider implements ConnectionProvider {
+    private final ConnectionProvider connectionProvider;
+    private final List<Connection> sessions = new ArrayList<>();
+    private int nextSession;
+
+    public SessionConnectionProvider(ConnectionProvider connectionProvider) {
+        this.connectionProvider = connectionProvider;
+    }
+
+    public synchronized void startCommand() {
+        nextSession = 0;
+    }
+
+    @Override
+    public synchronized Connection getConnection() throws SQLException {
+        int index = nextSession++;
+        if(index < sessions.size()) {
+            Connection session = sessions.get(index);
+            if(!session.isClosed()) {
+                log.debug("Reusing session {} of {}", index + 1, sessions.size());
+                return session;
+            }
+            log.info("Session {} is closed, opening a new session.", index + 1);
+            Connection connection = connectionProvider.getConnection();
+            sessions.set(index, connection);
+            return connection;
+        }
+        Connection connection = connectionProvider.getConnection();
+        sessions.add(connection);
+        log.debug("Opened session {}", sessions.size());
+        return connection;
+    }
+
+    public synchronized int getSessionCount() {
+        return sessions.size();
+    }
+
+    public synchronized void close() {
+        for(Connection session: sessions) {
+            try {
+                session.close();
+            } catch (SQLException e) {
+                log.warn("Failed to close session: {}", e.getMessage());
+            }
+        }
+        sessions.clear();
+    }
+}
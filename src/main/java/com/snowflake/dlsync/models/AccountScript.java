@@ -13,6 +13,10 @@ public class AccountScript extends Script {
         super(scriptPath, objectName, objectType, content, migrations);
     }
 
+    public AccountScript(AccountScript script) {
+        super(script);
+    }
+
     @Override
     public String getId() {
         return getFullObjectName();
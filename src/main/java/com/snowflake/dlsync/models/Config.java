@@ -12,6 +12,24 @@ public class Config {
     private List<String> scriptExclusion;
     private List<DependencyOverride> dependencyOverride;
     private List<String> configTables;
+    private Integer deployParallelism;
+    private Integer historyBatchSize;
+    private Integer configExportBatchSize;
+    private Integer historyFlushInterval;
+    private Boolean stateCache;
+    private Boolean dependencyCache;
+    private Boolean cascade;
+    private Boolean gitChangeDetection;
+    private Integer fullHashInterval;
+    private String planFile;
+    private String hashAlgorithm;
+    private Boolean normalizedHash;
+    private Boolean parserWarmUp;
+    private Boolean testQueryCache;
+    private Integer ddlParallelism;
+    private Integer testParallelism;
+    private String testReport;
+    private String metricsFile;
     private Properties connection;
 
     public boolean isScriptExcluded(Script script) {
@@ -25,4 +43,60 @@ public class Config {
     public boolean isContinueOnFailure() {
         return continueOnFailure != null && continueOnFailure;
     }
+
+    public boolean isStateCache() {
+        return stateCache != null && stateCache;
+    }
+
+    public boolean isCascade() {
+        return cascade != null && cascade;
+    }
+
+    public boolean isGitChangeDetection() {
+        return gitChangeDetection != null && gitChangeDetection;
+    }
+
+    public boolean isNormalizedHash() {
+        return normalizedHash != null && normalizedHash;
+    }
+
+    public boolean isParserWarmUp() {
+        return parserWarmUp != null && parserWarmUp;
+    }
+
+    public boolean isTestQueryCache() {
+        return testQueryCache != null && testQueryCache;
+    }
+
+    public boolean isDependencyCache() {
+        return dependencyCache != null && dependencyCache;
+    }
+
+    public int getDeployParallelism() {
+        return deployParallelism == null || deployParallelism < 1 ? 1 : deployParallelism;
+    }
+
+    public int getDdlParallelism() {
+        return ddlParallelism == null || ddlParallelism < 1 ? 1 : ddlParallelism;
+    }
+
+    public int getTestParallelism() {
+        return testParallelism == null || testParallelism < 1 ? 1 : testParallelism;
+    }
+
+    public int getHistoryBatchSize() {
+        return historyBatchSize == null || historyBatchSize < 1 ? 1 : historyBatchSize;
+    }
+
+    public int getConfigExportBatchSize() {
+        return configExportBatchSize == null || configExportBatchSize < 1 ? 1000 : configExportBatchSize;
+    }
+
+    public int getFullHashInterval() {
+        return fullHashInterval == null || fullHashInterval < 1 ? 10 : fullHashInterval;
+    }
+
+    public int getHistoryFlushInterval() {
+        return historyFlushInterval == null || historyFlushInterval < 1 ? 30 : historyFlushInterval;
+    }
 }
\ No newline at end of file
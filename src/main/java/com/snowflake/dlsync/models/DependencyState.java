@@ -0,0 +1,35 @@
+package com.snowflake.dlsync.models;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class DependencyState {
+    private Map<String, ScriptDependencies> scripts = new HashMap<>();
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class ScriptDependencies {
+        private String scriptHash;
+        private String scriptPath;
+        private String objectName;
+        private boolean migration;
+        private List<String> dependencies = new ArrayList<>();
+        private Set<String> referencedNames;
+        private Set<String> candidates = new HashSet<>();
+    }
+}
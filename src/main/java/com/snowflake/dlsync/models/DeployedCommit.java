@@ -0,0 +1,14 @@
+package com.snowflake.dlsync.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DeployedCommit {
+    private String commitId;
+    private String configHash;
+    private long deployCount;
+}
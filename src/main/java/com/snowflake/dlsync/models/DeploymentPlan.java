@@ -0,0 +1,13 @@
+package com.snowflake.dlsync.models;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class DeploymentPlan {
+    private List<String> changed = new ArrayList<>();
+    private List<String> cascaded = new ArrayList<>();
+    private List<List<String>> levels = new ArrayList<>();
+}
@@ -0,0 +1,24 @@
+package com.snowflake.dlsync.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DeploymentState {
+    private Long watermark;
+    private Map<String, ScriptState> scripts = new HashMap<>();
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ScriptState {
+        private String scriptHash;
+        private String deployedHash;
+    }
+}
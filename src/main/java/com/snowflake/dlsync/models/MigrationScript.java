@@ -17,6 +17,14 @@ public class MigrationScript extends Script {
         this.verify = verify;
     }
 
+    public MigrationScript(MigrationScript migration, Script parentScript) {
+        super(migration);
+        this.parentScript = parentScript;
+        this.version = migration.version;
+        this.author = migration.author;
+        this.rollback = migration.rollback;
+        this.verify = migration.verify;
+    }
 
     @Override
     public String getId() {
@@ -22,6 +22,12 @@ public class SchemaScript extends Script {
         this.schemaName = schemaName.toUpperCase();
     }
 
+    public SchemaScript(SchemaScript script) {
+        super(script);
+        this.databaseName = script.databaseName;
+        this.schemaName = script.schemaName;
+    }
+
     @Override
     public String getId() {
         return getFullObjectName();
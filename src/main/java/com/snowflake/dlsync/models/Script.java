@@ -1,6 +1,7 @@
 package com.snowflake.dlsync.models;
 
-import com.snowflake.dlsync.Util;
+import com.snowflake.dlsync.ScriptHasher;
+import com.snowflake.dlsync.parser.SqlTokens;
 
 import java.util.List;
 import java.util.Objects;
@@ -11,14 +12,16 @@ public abstract class Script {
     private ScriptObjectType objectType;
     private String content;
     private String hash;
+    private String hashedContent;
     private List<MigrationScript> migrations;
+    private volatile SqlTokens tokens;
 
     public Script(String scriptPath, String objectName, ScriptObjectType objectType, String content) {
         this.scriptPath = scriptPath;
         this.objectName = objectName.toUpperCase();
         this.objectType = objectType;
         this.content = content.trim();
-        this.hash = hash = Util.getMd5Hash(this.content);
+        this.hashedContent = this.content;
     }
 
     public Script(String scriptPath, String objectName, ScriptObjectType objectType, String content, List<MigrationScript> migrations) {
@@ -26,6 +29,19 @@ public abstract class Script {
         this.migrations = migrations;
     }
 
+    /**
+     * Copy of the script with the same content, hash and tokens, without the migrations.
+     */
+    protected Script(Script script) {
+        this.scriptPath = script.scriptPath;
+        this.objectName = script.objectName;
+        this.objectType = script.objectType;
+        this.content = script.content;
+        this.hash = script.hash;
+        this.hashedContent = script.hashedContent;
+        this.tokens = script.tokens;
+    }
+
     public String getScriptPath() {
         return scriptPath;
     }
@@ -54,6 +70,22 @@ public abstract class Script {
         this.content = content.trim();
     }
 
+    /**
+     * The tokens of the current content, created on first use and reused until the content changes.
+     */
+    public SqlTokens getTokens() {
+        SqlTokens current = tokens;
+        if(current == null || !current.getContent().equals(content)) {
+            current = SqlTokens.tokenize(content);
+            tokens = current;
+        }
+        return current;
+    }
+
+    public void setTokens(SqlTokens tokens) {
+        this.tokens = tokens;
+    }
+
     public List<MigrationScript> getMigrations() {
         if (isMigration()) {
             return migrations;
@@ -70,12 +102,20 @@ public abstract class Script {
         }
     }
 
-    public String getHash() {
+    /**
+     * The hash set by the hasher of the command, or the default hash of the content the script was created with.
+     */
+    public synchronized String getHash() {
+        if(hash == null) {
+            hash = ScriptHasher.DEFAULT.hash(hashedContent);
+            hashedContent = null;
+        }
         return hash;
     }
 
-    public void setHash(String hash) {
+    public synchronized void setHash(String hash) {
         this.hash = hash;
+        this.hashedContent = null;
     }
 
     public boolean isMigration() {
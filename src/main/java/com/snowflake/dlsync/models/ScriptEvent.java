@@ -1,7 +1,10 @@
 package com.snowflake.dlsync.models;
 
+import lombok.Data;
+
 import java.sql.Date;
 
+@Data
 public class ScriptEvent {
     private String id;
     private String scriptId;
@@ -0,0 +1,24 @@
+package com.snowflake.dlsync.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TestQueryState {
+    private Map<String, TestQuery> tests = new ConcurrentHashMap<>();
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class TestQuery {
+        private String testHash;
+        private String mainHash;
+        private String query;
+    }
+}
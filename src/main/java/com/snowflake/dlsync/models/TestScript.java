@@ -7,6 +7,9 @@ import java.io.IOException;
 public class TestScript extends Script {
     private Script mainScript;
     private TestQueryGenerator testQueryGenerator;
+    private String testQuery;
+    private String testQueryContent;
+    private String testQueryMainContent;
 
     public TestScript(String scriptPath, String objectName, ScriptObjectType objectType, String content, Script mainScript) {
         super(scriptPath, objectName, objectType, content);
@@ -18,8 +21,17 @@ public class TestScript extends Script {
         return mainScript;
     }
 
-    public String getTestQuery() throws IOException {
-        return testQueryGenerator.generateTestQuery();
+    /**
+     * The generated test query, generated again only when the content of the test script or the main script changed.
+     */
+    public synchronized String getTestQuery() throws IOException {
+        String content = getContent(), mainContent = mainScript.getContent();
+        if(testQuery == null || !content.equals(testQueryContent) || !mainContent.equals(testQueryMainContent)) {
+            testQuery = testQueryGenerator.generateTestQuery();
+            testQueryContent = content;
+            testQueryMainContent = mainContent;
+        }
+        return testQuery;
     }
 
     @Override
@@ -0,0 +1,29 @@
+package com.snowflake.dlsync.models;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Data
+public class VerifyReport {
+    private List<Script> verified = new ArrayList<>();
+    private List<Script> missingInSource = new ArrayList<>();
+    private List<Script> missingInDb = new ArrayList<>();
+    private List<Script> contentMismatch = new ArrayList<>();
+    private List<MigrationScript> failedMigrationVerify = new ArrayList<>();
+    private Map<String, Long> phaseTimings = new LinkedHashMap<>();
+
+    public void addPhaseTiming(String phase, long startNanos) {
+        phaseTimings.put(phase, (System.nanoTime() - startNanos) / 1_000_000);
+    }
+
+    /**
+     * Number of scripts failing the verification, scripts that are only missing in the db are not counted as failures.
+     */
+    public int getFailedCount() {
+        return missingInSource.size() + contentMismatch.size() + failedMigrationVerify.size();
+    }
+}
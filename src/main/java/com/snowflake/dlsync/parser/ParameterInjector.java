@@ -1,42 +1,54 @@
 package com.snowflake.dlsync.parser;
 
+import com.snowflake.dlsync.MetricsRegistry;
 import com.snowflake.dlsync.models.MigrationScript;
 import com.snowflake.dlsync.models.SchemaScript;
 import com.snowflake.dlsync.models.Script;
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 @Slf4j
 public class ParameterInjector {
     private static final String PARAMETER_FORMAT = "${%s}";
-    private static final String PARAMETRIZATION_START_REGEX = "([(),\\.\\s\\'\\\"@])";
-    private static final String PARAMETRIZATION_END_REGEX = "([(),;\\.\\s\\'\\\"])";
 
 
     private Properties parameters;
+    private ParameterMatcher injectionMatcher;
+    private ParameterMatcher parametrizationMatcher;
+    private ParameterMatcher objectNameMatcher;
+    private MetricsRegistry metrics = new MetricsRegistry();
 
     public ParameterInjector(Properties parameters) {
         log.debug("Parameter injector initialized with parameters: {}", parameters);
         this.parameters = parameters;
+        Map<String, String> placeholderToValue = new LinkedHashMap<>();
+        Map<String, String> valueToPlaceholder = new LinkedHashMap<>();
+        List<String> parameterKeys = parameters.stringPropertyNames().stream().sorted().collect(Collectors.toList());
+        for(String parameter: parameterKeys) {
+            String parameterPlaceholder = String.format(PARAMETER_FORMAT, parameter);
+            placeholderToValue.put(parameterPlaceholder, parameters.getProperty(parameter));
+            valueToPlaceholder.putIfAbsent(parameters.getProperty(parameter), parameterPlaceholder);
+        }
+        this.injectionMatcher = new ParameterMatcher(placeholderToValue, false);
+        this.parametrizationMatcher = new ParameterMatcher(valueToPlaceholder, true);
+        this.objectNameMatcher = new ParameterMatcher(valueToPlaceholder, false);
+    }
+
+    public void setMetrics(MetricsRegistry metrics) {
+        this.metrics = metrics;
     }
 
     private String injectParameters(String content) {
-        if(content == null) {
-            return null;
-        }
-        for(String parameter: parameters.stringPropertyNames()) {
-            String parameterPlaceholder = String.format(PARAMETER_FORMAT, parameter);
-            String regex = "(?i)" + Pattern.quote(parameterPlaceholder);
-            String replacement =  Matcher.quoteReplacement(parameters.getProperty(parameter));
-            content = content.replaceAll(regex, replacement);
-        }
-        return content;
+        long startTime = System.nanoTime();
+        String injectedContent = injectionMatcher.replace(content);
+        metrics.recordTime(MetricsRegistry.PARAMETER_INJECTION, startTime);
+        return injectedContent;
     }
 
     public void injectParameters(Script script) {
@@ -63,14 +75,9 @@ public class ParameterInjector {
 
     public void parametrizeScript(Script script, boolean parametrizeObjectName){
         log.debug("Parametrizing script: {}", script.getObjectName());
-        String parametrizedScript = script.getContent();
-        List<String> parameterKeys = parameters.stringPropertyNames().stream().sorted().collect(Collectors.toList());
-        for(String parameter: parameterKeys) {
-            String parameterPlaceholder = String.format(PARAMETER_FORMAT, parameter);
-            String regex = PARAMETRIZATION_START_REGEX + "(?i)" + Pattern.quote(parameters.getProperty(parameter)) + PARAMETRIZATION_END_REGEX;
-            String replacement = "$1" + Matcher.quoteReplacement(parameterPlaceholder) + "$2";
-            parametrizedScript = parametrizedScript.replaceAll(regex, replacement);
-        }
+        long startTime = System.nanoTime();
+        String parametrizedScript = parametrizationMatcher.replace(script.getContent());
+        metrics.recordTime(MetricsRegistry.PARAMETRIZATION, startTime);
         script.setContent(parametrizedScript);
         if(parametrizeObjectName) {
             parameterizeObjectName(script);
@@ -78,6 +85,16 @@ public class ParameterInjector {
         log.debug("Script for {} after parameterized: {}", script.getObjectName(), parametrizedScript);
     }
 
+    /**
+     * Replace the parameter values in the content with their parameter, like {@link #parametrizeScript(Script, boolean)} without the object name.
+     */
+    public String parametrize(String content) {
+        long startTime = System.nanoTime();
+        String parametrized = parametrizationMatcher.replace(content);
+        metrics.recordTime(MetricsRegistry.PARAMETRIZATION, startTime);
+        return parametrized;
+    }
+
     public void parameterizeObjectName(Script script) {
 //        String objectName = script.getObjectName();
 
@@ -88,15 +105,9 @@ public class ParameterInjector {
             databaseName = ((SchemaScript) script).getDatabaseName();
         }
 
-        List<String> parameterKeys = parameters.stringPropertyNames().stream().sorted().collect(Collectors.toList());
-        for(String parameter: parameterKeys) {
-            String parameterPlaceholder = String.format(PARAMETER_FORMAT, parameter);
-            String regex = "(?i)" + Pattern.quote(parameters.getProperty(parameter));
-            String replacement = Matcher.quoteReplacement(parameterPlaceholder);
-//            objectName = objectName.replaceAll(regex, replacement);
-            schemaName = schemaName.replaceAll(regex, replacement);
-            databaseName = databaseName.replaceAll(regex, replacement);
-        }
+//        objectName = objectNameMatcher.replace(objectName);
+        schemaName = objectNameMatcher.replace(schemaName);
+        databaseName = objectNameMatcher.replace(databaseName);
 
         String oldName = script.getFullObjectName();
 //        script.setObjectName(objectName);
@@ -109,15 +120,7 @@ public class ParameterInjector {
     }
 
     public Set<String> injectParameters(Set<String> configs) {
-        return configs.stream().map(config -> {
-            for(String parameter: parameters.stringPropertyNames()) {
-                String parameterPlaceholder = String.format(PARAMETER_FORMAT, parameter);
-                String regex = "(?i)" + Pattern.quote(parameterPlaceholder);
-                String replacement =  Matcher.quoteReplacement(parameters.getProperty(parameter));
-                config = config.replaceAll(regex, replacement);
-            }
-            return config;
-        }).collect(Collectors.toSet());
+        return configs.stream().map(this::injectParameters).collect(Collectors.toSet());
     }
 
 }
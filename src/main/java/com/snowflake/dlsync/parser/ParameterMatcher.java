@@ -0,0 +1,86 @@
+package com.snowflake.dlsync.parser;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Case-insensitive multi pattern replacer. All patterns are compiled into one trie so a content is scanned once,
+ * replacing the longest pattern matching at each position.
+ * When bounded, a pattern only matches between identifier delimiters, the delimiters themselves are not consumed.
+ */
+class ParameterMatcher {
+    private final Node root = new Node();
+    private final boolean bounded;
+
+    /**
+     * @param replacements pattern to replacement, when two patterns are equal ignoring case the first one is used.
+     * @param bounded only match patterns surrounded by identifier delimiters.
+     */
+    ParameterMatcher(Map<String, String> replacements, boolean bounded) {
+        this.bounded = bounded;
+        for(Map.Entry<String, String> entry: replacements.entrySet()) {
+            if(entry.getKey().isEmpty()) {
+                continue;
+            }
+            Node node = root;
+            for(char c: entry.getKey().toCharArray()) {
+                node = node.children.computeIfAbsent(Character.toLowerCase(c), k -> new Node());
+            }
+            if(node.replacement == null) {
+                node.replacement = entry.getValue();
+            }
+        }
+    }
+
+    String replace(String content) {
+        if(content == null || root.children.isEmpty()) {
+            return content;
+        }
+        int length = content.length();
+        StringBuilder result = null;
+        int copiedUntil = 0;
+        for(int start = 0; start < length; start++) {
+            if(bounded && (start == 0 || !isMatchStart(content.charAt(start - 1)))) {
+                continue;
+            }
+            Node node = root;
+            String replacement = null;
+            int matchEnd = -1;
+            for(int index = start; index < length; index++) {
+                node = node.children.get(Character.toLowerCase(content.charAt(index)));
+                if(node == null) {
+                    break;
+                }
+                if(node.replacement != null && (!bounded || (index + 1 < length && isMatchEnd(content.charAt(index + 1))))) {
+                    replacement = node.replacement;
+                    matchEnd = index + 1;
+                }
+            }
+            if(replacement != null) {
+                if(result == null) {
+                    result = new StringBuilder(length + 32);
+                }
+                result.append(content, copiedUntil, start).append(replacement);
+                copiedUntil = matchEnd;
+                start = matchEnd - 1;
+            }
+        }
+        if(result == null) {
+            return content;
+        }
+        return result.append(content, copiedUntil, length).toString();
+    }
+
+    private static boolean isMatchStart(char c) {
+        return Character.isWhitespace(c) || "(),.'\"@".indexOf(c) >= 0;
+    }
+
+    private static boolean isMatchEnd(char c) {
+        return Character.isWhitespace(c) || "(),;.'\"".indexOf(c) >= 0;
+    }
+
+    private static class Node {
+        private final Map<Character, Node> children = new HashMap<>();
+        private String replacement;
+    }
+}
@@ -0,0 +1,97 @@
+package com.snowflake.dlsync.parser;
+
+import java.util.Locale;
+
+/**
+ * Normalizes script content to its significant tokens, so formatting and comment only edits produce the same text.
+ * Comments and whitespace are dropped and unquoted identifiers and keywords are upper cased.
+ * Literals, quoted text and dollar or single quoted bodies are kept as they are, as the body may be code of a case or whitespace sensitive language.
+ * The tokens are the ones cached by the script, so the content is not scanned again.
+ */
+public class ScriptNormalizer {
+    private static final char SEPARATOR = ' ';
+    private static final String DOLLAR_QUOTE = "$$";
+
+    public static String normalize(String content) {
+        return normalize(SqlTokens.tokenize(content));
+    }
+
+    public static String normalize(SqlTokens tokens) {
+        String content = tokens.getContent();
+        StringBuilder normalized = new StringBuilder(content.length());
+        int verbatimEnd = 0;
+        for(int token = 0; token < tokens.size(); token++) {
+            int start = tokens.getStart(token), end = tokens.getEnd(token);
+            if(end <= verbatimEnd) {
+                continue;
+            }
+            if(start < verbatimEnd) {
+                appendToken(normalized, content.substring(verbatimEnd, end));
+                continue;
+            }
+            byte kind = tokens.getKind(token);
+            if(kind == SqlTokens.COMMENT) {
+                continue;
+            }
+            if(kind == SqlTokens.IDENTIFIER) {
+                verbatimEnd = appendIdentifier(normalized, content, start, end);
+            }
+            else if(kind == SqlTokens.SYMBOL) {
+                verbatimEnd = appendSymbol(normalized, tokens, start);
+            }
+            else {
+                appendToken(normalized, content.substring(start, end));
+            }
+        }
+        return normalized.toString();
+    }
+
+    /**
+     * Append the upper cased identifier, or the identifier text before a dollar quote followed by the dollar quoted body as it is.
+     * Returns the end of the text appended as it is.
+     */
+    private static int appendIdentifier(StringBuilder normalized, String content, int start, int end) {
+        int bodyStart = content.indexOf(DOLLAR_QUOTE, start);
+        if(bodyStart < 0 || bodyStart >= end) {
+            appendToken(normalized, content.substring(start, end).toUpperCase(Locale.ROOT));
+            return 0;
+        }
+        if(bodyStart > start) {
+            appendToken(normalized, content.substring(start, bodyStart).toUpperCase(Locale.ROOT));
+        }
+        int bodyEnd = content.indexOf(DOLLAR_QUOTE, bodyStart + DOLLAR_QUOTE.length());
+        bodyEnd = bodyEnd < 0 ? content.length() : bodyEnd + DOLLAR_QUOTE.length();
+        appendToken(normalized, content.substring(bodyStart, bodyEnd));
+        return bodyEnd;
+    }
+
+    /**
+     * Append the symbol, or the single or double quoted text it opens as it is when the tokens treat that text as code.
+     * Returns the end of the quoted text.
+     */
+    private static int appendSymbol(StringBuilder normalized, SqlTokens tokens, int start) {
+        String content = tokens.getContent();
+        char symbol = content.charAt(start);
+        int quotedEnd = -1;
+        if(symbol == '\'') {
+            quotedEnd = tokens.findStringEnd(start);
+        }
+        else if(symbol == '"') {
+            int closing = content.indexOf('"', start + 1);
+            quotedEnd = closing < 0 ? -1 : closing + 1;
+        }
+        if(quotedEnd < 0) {
+            appendToken(normalized, String.valueOf(symbol));
+            return 0;
+        }
+        appendToken(normalized, content.substring(start, quotedEnd));
+        return quotedEnd;
+    }
+
+    private static void appendToken(StringBuilder normalized, String text) {
+        if(normalized.length() > 0) {
+            normalized.append(SEPARATOR);
+        }
+        normalized.append(text);
+    }
+}
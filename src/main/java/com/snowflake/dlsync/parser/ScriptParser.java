@@ -3,16 +3,28 @@ package com.snowflake.dlsync.parser;
 import com.snowflake.dlsync.parser.antlr.SnowflakeLexer;
 import com.snowflake.dlsync.parser.antlr.SnowflakeParser;
 import com.snowflake.dlsync.parser.antlr.SnowflakeParserBaseListener;
-import org.antlr.v4.runtime.CharStreams;
-import org.antlr.v4.runtime.CommonTokenStream;
+import lombok.extern.slf4j.Slf4j;
+import org.antlr.v4.runtime.*;
+import org.antlr.v4.runtime.atn.PredictionMode;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
 import org.antlr.v4.runtime.tree.ParseTree;
 import org.antlr.v4.runtime.tree.ParseTreeWalker;
 
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
 
-
+@Slf4j
 public class ScriptParser extends SnowflakeParserBaseListener {
+    private static final List<String> WARM_UP_SCRIPTS = List.of(
+            "create or replace view DB1.SCHEMA1.VIEW1 as select t1.id, count(*) as total from DB1.SCHEMA1.TABLE1 t1 left join DB1.SCHEMA1.TABLE2 t2 on t1.id = t2.id where t1.amount > 100 group by t1.id;",
+            "create or replace function DB1.SCHEMA1.FUNCTION1(ID number) returns table(ID number) as 'select ID from DB1.SCHEMA1.TABLE1 where ID = ID';",
+            "with MOCK1 as (select 1 as ID, 'a' as NAME union all select 2, 'b'), EXPECTED_DATA as (select * from MOCK1 where ID > 1) select * from EXPECTED_DATA;"
+    );
+
+    private static final AtomicBoolean warmUpStarted = new AtomicBoolean(false);
+
     protected String content;
     protected String objectName;
     protected String mainQuery;
@@ -21,15 +33,58 @@ public class ScriptParser extends SnowflakeParserBaseListener {
         this.content = content;
     }
 
+    /**
+     * Parse with the faster SLL prediction first and bail out on the first error, then parse again with full LL prediction and the default error handling.
+     * SLL bails out on common valid constructs of this grammar, such as comparisons in a WHERE clause, so many view and test scripts are
+     * parsed twice. The failed SLL attempt then adds a few milliseconds to the LL parse.
+     */
     public void parse() {
         SnowflakeLexer lexer = new SnowflakeLexer(CharStreams.fromString(content));
         CommonTokenStream tokens = new CommonTokenStream(lexer);
         SnowflakeParser parser = new SnowflakeParser(tokens);
-        ParseTree tree = parser.snowflake_file();
+        parser.getInterpreter().setPredictionMode(PredictionMode.SLL);
+        parser.removeErrorListeners();
+        parser.setErrorHandler(new BailErrorStrategy());
+        ParseTree tree;
+        try {
+            tree = parser.snowflake_file();
+        } catch (ParseCancellationException e) {
+            log.debug("SLL parsing failed, parsing again with LL prediction.");
+            tokens.seek(0);
+            parser.reset();
+            parser.addErrorListener(ConsoleErrorListener.INSTANCE);
+            parser.setErrorHandler(new DefaultErrorStrategy());
+            parser.getInterpreter().setPredictionMode(PredictionMode.LL);
+            tree = parser.snowflake_file();
+        }
         ParseTreeWalker walker = new ParseTreeWalker();
         walker.walk(this, tree);
     }
 
+    /**
+     * Parse a few typical view, function and test scripts to fill the prediction cache shared by all parsers,
+     * so the first scripts parsed afterwards do not pay for building it.
+     */
+    public static void warmUp() {
+        long startTime = System.currentTimeMillis();
+        for(String script: WARM_UP_SCRIPTS) {
+            new ScriptParser(script).parse();
+        }
+        log.debug("Parser warm up completed in {} ms.", System.currentTimeMillis() - startTime);
+    }
+
+    /**
+     * Run {@link #warmUp()} in a background daemon thread, only the first call of the process starts the thread.
+     */
+    public static void warmUpAsync() {
+        if(!warmUpStarted.compareAndSet(false, true)) {
+            return;
+        }
+        Thread thread = new Thread(ScriptParser::warmUp, "dlsync-parser-warm-up");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
     @Override
     public void enterObject_name(SnowflakeParser.Object_nameContext ctx) {
         objectReferences.add(ctx.getText());
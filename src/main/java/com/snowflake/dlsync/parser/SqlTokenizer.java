@@ -31,6 +31,29 @@ public class SqlTokenizer {
     private static final String PROCEDURE_BODY_REGEX = "(CREATE\\s+OR\\s+REPLACE\\s+PROCEDURE\\s+)(?<name>[\\w.${}]+)(?:[\\s\\S]*?AS\\s+('|\\$\\$)\\s*)(?<body>[\\s\\S]+)('|\\$\\$)\\s*;$";
     private static final String FILE_FORMAT_BODY_REGEX = "(CREATE\\s+OR\\s+REPLACE\\s+FILE FORMAT\\s+)(?<body>[\\w.${}]+)([\\s\\S]+)$";
 
+    /**
+     * Compiled patterns are immutable and thread safe, so the fixed patterns are compiled once and shared by all calls.
+     */
+    private static final Pattern MIGRATION_PATTERN = Pattern.compile(MIGRATION_REGEX);
+    private static final Pattern DDL_PATTERN = Pattern.compile(DDL_REGEX, Pattern.CASE_INSENSITIVE);
+    private static final Pattern STRING_LITERAL_PATTERN = Pattern.compile(STRING_LITERAL_REGEX, Pattern.CASE_INSENSITIVE);
+    private static final Pattern VIEW_BODY_PATTERN = Pattern.compile(VIEW_BODY_REGEX, Pattern.CASE_INSENSITIVE);
+    private static final Pattern FUNCTION_BODY_PATTERN = Pattern.compile(FUNCTION_BODY_REGEX, Pattern.CASE_INSENSITIVE);
+    private static final Pattern PROCEDURE_BODY_PATTERN = Pattern.compile(PROCEDURE_BODY_REGEX, Pattern.CASE_INSENSITIVE);
+    private static final Pattern FILE_FORMAT_BODY_PATTERN = Pattern.compile(FILE_FORMAT_BODY_REGEX, Pattern.CASE_INSENSITIVE);
+    private static final Pattern SQL_FILE_EXTENSION_PATTERN = Pattern.compile("(?i)\\.sql$");
+
+    private static final int IDENTIFIER_PATTERNS_SIZE = 1024;
+    /**
+     * Identifier patterns by object name, least recently used patterns are dropped once the cache is full.
+     */
+    private static final Map<String, Pattern> IDENTIFIER_PATTERNS = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Pattern> eldest) {
+            return size() > IDENTIFIER_PATTERNS_SIZE;
+        }
+    });
+
     /**
      * Dynamically builds DDL_REGEX pattern from ScriptObjectType enum values
      * This ensures that all supported object types are included in the regex
@@ -53,9 +76,7 @@ public class SqlTokenizer {
     public static List<Migration> parseMigrationScripts(String content) {
         List<Migration> migrations = new ArrayList<>();
 
-        Pattern pattern = Pattern.compile(MIGRATION_REGEX);
-
-        Matcher matcher = pattern.matcher(content);
+        Matcher matcher = MIGRATION_PATTERN.matcher(content);
         while (matcher.find()) {
             String versionedContent = matcher.group();
             Long version = Long.parseLong(matcher.group("version"));
@@ -102,7 +123,8 @@ public class SqlTokenizer {
             throw new RuntimeException("Unknown script type of directory: " + scriptType);
         }
         ScriptObjectType objectType = optionalObjectType.get();
-        String fullIdentifier = SqlTokenizer.getFirstFullIdentifier(objectName, content);
+        SqlTokens tokens = SqlTokens.tokenize(content.trim());
+        String fullIdentifier = tokens.getFirstFullIdentifier(objectName);
         if(fullIdentifier == null || fullIdentifier.isEmpty()) {
             log.error("Error reading script: {}, name and content mismatch", name);
             throw new RuntimeException("Object name and file name must match!");
@@ -114,6 +136,7 @@ public class SqlTokenizer {
             throw new RuntimeException("Database, schema and object name must be provided in the script file.");
         }
         SchemaScript schemaScript = ScriptFactory.getSchemaScript(filePath, database, schema, objectType, objectName, content);
+        schemaScript.setTokens(tokens);
         if(objectType.isMigration()) {
             List<Migration> migrations = SqlTokenizer.parseMigrationScripts(content);
             if(migrations.isEmpty()) {
@@ -200,10 +223,7 @@ public class SqlTokenizer {
             }
             else {
                 if(token == '\'') {
-                    int current = index - 1, end = 0;
-                    String prevString = sql.substring(0, index);
-                    Matcher matcher = Pattern.compile("\\s+(?i)as\\s+$").matcher(prevString);
-                    if(!matcher.find()) {
+                    if(!isPrecededByAs(sqlChar, index)) {
                         isOpened = true;
                     }
                     withoutLiterals[destinationIndex++] = sqlChar[index++];
@@ -217,36 +237,44 @@ public class SqlTokenizer {
         return new String(withoutLiterals, 0, destinationIndex);
     }
 
+    /**
+     * Check if the characters before the index end with an AS keyword surrounded by whitespace, scanning backwards from the index.
+     */
+    private static boolean isPrecededByAs(char[] sqlChar, int index) {
+        int current = index - 1;
+        if(current < 0 || !Character.isWhitespace(sqlChar[current])) {
+            return false;
+        }
+        while(current >= 0 && Character.isWhitespace(sqlChar[current])) {
+            current--;
+        }
+        if(current < 2 || Character.toLowerCase(sqlChar[current]) != 's' || Character.toLowerCase(sqlChar[current - 1]) != 'a') {
+            return false;
+        }
+        return Character.isWhitespace(sqlChar[current - 2]);
+    }
+
     public static String removeSqlStringLiterals(String sql) {
-        return Pattern.compile(STRING_LITERAL_REGEX, Pattern.CASE_INSENSITIVE).matcher(sql).replaceAll("''");
+        return STRING_LITERAL_PATTERN.matcher(sql).replaceAll("''");
+    }
+
+    static int getIdentifierPatternCount() {
+        return IDENTIFIER_PATTERNS.size();
+    }
+
+    private static Pattern getIdentifierPattern(String name) {
+        return IDENTIFIER_PATTERNS.computeIfAbsent(name, key -> Pattern.compile(TOKEN_START_REGEX +  IDENTIFIER_REGEX + "(\"?" + Pattern.quote(key) + "\"?)" + TOKEN_END_REGEX));
     }
 
     public static String getFirstFullIdentifier(String name, String content) {
-        content = removeSqlComments(content);
-        content = removeSqlStringLiterals(content);
-        String regex = TOKEN_START_REGEX +  IDENTIFIER_REGEX + "(\"?" + Pattern.quote(name) + "\"?)" + TOKEN_END_REGEX;
-        Matcher matcher = Pattern.compile(regex).matcher(content);
-        while(matcher.find()) {
-            String fullIdentifier = matcher.group(3);
-            String schema = matcher.group(2);
-            String db = matcher.group(1);
-            if(schema != null) {
-                fullIdentifier = schema + fullIdentifier;
-            }
-            if(db != null) {
-                fullIdentifier = db + fullIdentifier;
-            }
-            return  fullIdentifier;
-        }
-        return null;
+        return SqlTokens.tokenize(content).getFirstFullIdentifier(name);
     }
 
     public static Set<String> getFullIdentifiers(String name, String content) {
         Set<String> fullIdentifiers = new HashSet<>();
         content = removeSqlComments(content);
         content = removeSqlStringLiterals(content);
-        String regex = TOKEN_START_REGEX +  IDENTIFIER_REGEX + "(\"?" + Pattern.quote(name) + "\"?)" + TOKEN_END_REGEX;
-        Matcher matcher = Pattern.compile(regex).matcher(content);
+        Matcher matcher = getIdentifierPattern(name).matcher(content);
         while(matcher.find()) {
             String fullIdentifier = name;
             String schema = matcher.group(2);
@@ -263,8 +291,15 @@ public class SqlTokenizer {
         return fullIdentifiers;
     }
 
+    /**
+     * Chains of dot separated identifier parts (e.g. DB.SCHEMA.OBJECT) of the content, see {@link SqlTokens#getIdentifierChains()}.
+     */
+    public static List<String[]> getIdentifierChains(String content) {
+        return SqlTokens.tokenize(content).getIdentifierChains();
+    }
+
     public static List<SchemaScript> parseDdlScripts(String ddl, String database, String schema) {
-        Matcher matcher = Pattern.compile(DDL_REGEX, Pattern.CASE_INSENSITIVE).matcher(ddl);
+        Matcher matcher = DDL_PATTERN.matcher(ddl);
         List<SchemaScript> scripts = new ArrayList<>();
         log.debug("parsing ddl scripts {}", ddl);
         while(matcher.find()) {
@@ -361,25 +396,25 @@ public class SqlTokenizer {
 //    }
 
     public static boolean compareScripts(Script script1, Script script2) {
-        String content1 = removeSqlComments(script1.getContent());
-        String content2 = removeSqlComments(script2.getContent());
+        String content1 = script1.getTokens().getContentWithoutComments();
+        String content2 = script2.getTokens().getContentWithoutComments();
         content1 = content1.replace("''", "'");
         content2 = content2.replace("''", "'");
         Pattern pattern;
         if(script1.getObjectType().equals(ScriptObjectType.VIEWS)) {
-            pattern = Pattern.compile(VIEW_BODY_REGEX, Pattern.CASE_INSENSITIVE);
+            pattern = VIEW_BODY_PATTERN;
         }
         else if(script1.getObjectType().equals(ScriptObjectType.FUNCTIONS)) {
-            pattern = Pattern.compile(FUNCTION_BODY_REGEX, Pattern.CASE_INSENSITIVE);
+            pattern = FUNCTION_BODY_PATTERN;
         }
         else if(script1.getObjectType().equals(ScriptObjectType.PROCEDURES)) {
-            pattern = Pattern.compile(PROCEDURE_BODY_REGEX, Pattern.CASE_INSENSITIVE);
+            pattern = PROCEDURE_BODY_PATTERN;
         }
         else if(script1.getObjectType().equals(ScriptObjectType.FILE_FORMATS)) {
-            pattern = Pattern.compile(FILE_FORMAT_BODY_REGEX, Pattern.CASE_INSENSITIVE);
+            pattern = FILE_FORMAT_BODY_PATTERN;
         }
         else {
-            pattern = Pattern.compile("(?<body>[\\s\\S]+)$");
+            return content1.equals(content2);
         }
         Matcher viewMatcher1 = pattern.matcher(content1);
         Matcher viewMatcher2 = pattern.matcher(content2);
@@ -392,7 +427,7 @@ public class SqlTokenizer {
     }
 
     public static String extractObjectName(String fileName, String content) {
-        return fileName.replaceAll("(?i)\\.sql$", "").toUpperCase();
+        return SQL_FILE_EXTENSION_PATTERN.matcher(fileName).replaceAll("").toUpperCase();
     }
 
     public static String extractDatabaseName(String fullIdentifier) {
@@ -418,7 +453,7 @@ public class SqlTokenizer {
         ddlContent = removeSqlComments(ddlContent);
         ddlContent = removeSqlStringLiterals(ddlContent);
 
-        Matcher matcher = Pattern.compile(DDL_REGEX, Pattern.CASE_INSENSITIVE).matcher(ddlContent);
+        Matcher matcher = DDL_PATTERN.matcher(ddlContent);
         if (matcher.find()) {
             String fullObjectName = matcher.group("name");
             if (fullObjectName != null && !fullObjectName.isEmpty()) {
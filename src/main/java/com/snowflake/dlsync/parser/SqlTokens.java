@@ -0,0 +1,301 @@
+package com.snowflake.dlsync.parser;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Compact token array of a script content, produced by a single pass over the content.
+ * Tokens are stored as parallel arrays of kinds and offsets, whitespace is not stored.
+ * Comments and string literals are classified instead of removed, so the same tokens serve the identifier search,
+ * the dependency extraction and the content comparison of a script.
+ * A string right after the AS keyword is the body of a function or procedure, its content is tokenized as code, as is the text after an unterminated quote.
+ * Double quoted text is a quoted identifier only when it is a plain identifier or part of a dotted chain,
+ * otherwise its content is tokenized as code without comments, as it may be a query inside a procedure body.
+ */
+public class SqlTokens {
+    public static final byte IDENTIFIER = 0;
+    public static final byte QUOTED_IDENTIFIER = 1;
+    public static final byte STRING = 2;
+    public static final byte COMMENT = 3;
+    public static final byte SYMBOL = 4;
+
+    private static final String TOKEN_START_SYMBOLS = "@=()[],.\"'";
+    private static final String TOKEN_END_SYMBOLS = "=()[],.\"';";
+
+    private final String content;
+    private byte[] kinds;
+    private int[] starts;
+    private int[] ends;
+    private int count;
+    private int quotedTextEnd;
+    private volatile List<int[]> chainRanges;
+    private volatile List<String[]> identifierChains;
+    private volatile String contentWithoutComments;
+
+    private SqlTokens(String content) {
+        this.content = content;
+        int capacity = Math.max(16, content.length() / 4);
+        kinds = new byte[capacity];
+        starts = new int[capacity];
+        ends = new int[capacity];
+    }
+
+    public static SqlTokens tokenize(String content) {
+        SqlTokens tokens = new SqlTokens(content);
+        tokens.scan();
+        return tokens;
+    }
+
+    public String getContent() {
+        return content;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public byte getKind(int token) {
+        return kinds[token];
+    }
+
+    public String getText(int token) {
+        return content.substring(starts[token], ends[token]);
+    }
+
+    public int getStart(int token) {
+        return starts[token];
+    }
+
+    public int getEnd(int token) {
+        return ends[token];
+    }
+
+    /**
+     * Chains of dot separated identifier parts (e.g. DB.SCHEMA.OBJECT) with the quotes stripped from quoted parts.
+     * Parts that are not bounded by whitespace, comments, literals or the token start and end characters of {@link SqlTokenizer} are dropped from the chain.
+     */
+    public List<String[]> getIdentifierChains() {
+        List<String[]> chains = identifierChains;
+        if(chains == null) {
+            chains = new ArrayList<>();
+            for(int[] range: getChainRanges()) {
+                String[] parts = new String[range[1]];
+                for(int part = 0; part < parts.length; part++) {
+                    parts[part] = getPart(range[0] + part * 2);
+                }
+                chains.add(parts);
+            }
+            chains = Collections.unmodifiableList(chains);
+            identifierChains = chains;
+        }
+        return chains;
+    }
+
+    /**
+     * The first reference to the object name, with up to two qualifiers as written in the content.
+     * A dotted name is matched as consecutive parts of a chain.
+     */
+    public String getFirstFullIdentifier(String name) {
+        String[] nameParts = name.split("\\.");
+        for(int[] range: getChainRanges()) {
+            for(int part = 0; part + nameParts.length <= range[1]; part++) {
+                if(isNameAt(range[0] + part * 2, nameParts)) {
+                    int first = range[0] + Math.max(0, part - 2) * 2;
+                    int last = range[0] + (part + nameParts.length - 1) * 2;
+                    return content.substring(starts[first], ends[last]);
+                }
+            }
+        }
+        return null;
+    }
+
+    private boolean isNameAt(int token, String[] nameParts) {
+        for(int part = 0; part < nameParts.length; part++) {
+            if(!getPart(token + part * 2).equalsIgnoreCase(nameParts[part])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public String getContentWithoutComments() {
+        String withoutComments = contentWithoutComments;
+        if(withoutComments == null) {
+            StringBuilder builder = new StringBuilder(content.length());
+            int copied = 0;
+            for(int token = 0; token < count; token++) {
+                if(kinds[token] == COMMENT) {
+                    builder.append(content, copied, starts[token]);
+                    copied = ends[token];
+                }
+            }
+            builder.append(content, copied, content.length());
+            withoutComments = builder.toString();
+            contentWithoutComments = withoutComments;
+        }
+        return withoutComments;
+    }
+
+    private void scan() {
+        int index = 0, length = content.length();
+        while(index < length) {
+            char ch = content.charAt(index);
+            char next = index + 1 < length ? content.charAt(index + 1) : 0;
+            if(Character.isWhitespace(ch)) {
+                index++;
+            }
+            else if((ch == '-' || ch == '/') && next == ch && index >= quotedTextEnd) {
+                int end = content.indexOf('\n', index);
+                index = add(COMMENT, index, end < 0 ? length : end);
+            }
+            else if(ch == '/' && next == '*' && index >= quotedTextEnd) {
+                int end = content.indexOf("*/", index + 2);
+                index = add(COMMENT, index, end < 0 ? length : end + 2);
+            }
+            else if(ch == '\'') {
+                int end = isBodyStart(index) ? -1 : findStringEnd(index);
+                index = end < 0 ? add(SYMBOL, index, index + 1) : add(STRING, index, end);
+            }
+            else if(ch == '"') {
+                int closing = content.indexOf('"', index + 1);
+                if(closing > index + 1 && isQuotedIdentifier(index, closing)) {
+                    index = add(QUOTED_IDENTIFIER, index, closing + 1);
+                }
+                else {
+                    quotedTextEnd = Math.max(quotedTextEnd, closing);
+                    index = add(SYMBOL, index, index + 1);
+                }
+            }
+            else if(isIdentifierChar(ch)) {
+                int end = index + 1;
+                while(end < length && isIdentifierChar(content.charAt(end))) {
+                    end++;
+                }
+                index = add(IDENTIFIER, index, end);
+            }
+            else {
+                index = add(SYMBOL, index, index + 1);
+            }
+        }
+    }
+
+    private int add(byte kind, int start, int end) {
+        if(count == kinds.length) {
+            int capacity = count * 2;
+            kinds = Arrays.copyOf(kinds, capacity);
+            starts = Arrays.copyOf(starts, capacity);
+            ends = Arrays.copyOf(ends, capacity);
+        }
+        kinds[count] = kind;
+        starts[count] = start;
+        ends[count] = end;
+        count++;
+        return end;
+    }
+
+    int findStringEnd(int start) {
+        int index = start + 1, length = content.length();
+        while(index < length) {
+            char ch = content.charAt(index);
+            if(ch == '\\') {
+                index += 2;
+            }
+            else if(ch == '\'') {
+                if(index + 1 < length && content.charAt(index + 1) == '\'') {
+                    index += 2;
+                }
+                else {
+                    return index + 1;
+                }
+            }
+            else {
+                index++;
+            }
+        }
+        return -1;
+    }
+
+    private boolean isQuotedIdentifier(int start, int closing) {
+        boolean isQualifier = closing + 1 < content.length() && content.charAt(closing + 1) == '.';
+        boolean isQualified = count > 0 && isSymbol(count - 1, '.') && ends[count - 1] == start;
+        int newline = content.indexOf('\n', start);
+        if((isQualifier || isQualified) && (newline < 0 || newline > closing)) {
+            return true;
+        }
+        for(int index = start + 1; index < closing; index++) {
+            if(!isIdentifierChar(content.charAt(index))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isBodyStart(int index) {
+        if(count == 0 || kinds[count - 1] != IDENTIFIER || ends[count - 1] == index) {
+            return false;
+        }
+        return ends[count - 1] - starts[count - 1] == 2 && content.regionMatches(true, starts[count - 1], "AS", 0, 2);
+    }
+
+    /**
+     * The identifier chains as the first token and the number of parts, the parts are every other token.
+     */
+    private List<int[]> getChainRanges() {
+        List<int[]> ranges = chainRanges;
+        if(ranges == null) {
+            ranges = new ArrayList<>();
+            int token = 0;
+            while(token < count) {
+                if(!isPart(token)) {
+                    token++;
+                    continue;
+                }
+                int first = token;
+                while(token + 2 < count && isSymbol(token + 1, '.') && ends[token] == starts[token + 1]
+                        && ends[token + 1] == starts[token + 2] && isPart(token + 2)) {
+                    token += 2;
+                }
+                int from = isValidStart(first) ? first : first + 2;
+                int to = isValidEnd(token) ? token + 2 : token;
+                if(to > from) {
+                    ranges.add(new int[]{from, (to - from) / 2});
+                }
+                token++;
+            }
+            chainRanges = ranges;
+        }
+        return ranges;
+    }
+
+    private boolean isPart(int token) {
+        return kinds[token] == IDENTIFIER || kinds[token] == QUOTED_IDENTIFIER;
+    }
+
+    private String getPart(int token) {
+        return kinds[token] == QUOTED_IDENTIFIER ? content.substring(starts[token] + 1, ends[token] - 1) : getText(token);
+    }
+
+    private boolean isSymbol(int token, char symbol) {
+        return kinds[token] == SYMBOL && content.charAt(starts[token]) == symbol;
+    }
+
+    private boolean isValidStart(int token) {
+        if(token == 0 || ends[token - 1] < starts[token]) {
+            return true;
+        }
+        return kinds[token - 1] != SYMBOL || TOKEN_START_SYMBOLS.indexOf(content.charAt(starts[token - 1])) >= 0;
+    }
+
+    private boolean isValidEnd(int token) {
+        if(token + 1 == count || ends[token] < starts[token + 1]) {
+            return true;
+        }
+        return kinds[token + 1] != SYMBOL || TOKEN_END_SYMBOLS.indexOf(content.charAt(starts[token + 1])) >= 0;
+    }
+
+    static boolean isIdentifierChar(char ch) {
+        return (ch >= 'a' && ch <= 'z') || (ch >= 'A' && ch <= 'Z') || (ch >= '0' && ch <= '9') || ch == '_' || ch == '$' || ch == '{' || ch == '}';
+    }
+}
@@ -0,0 +1,101 @@
+package com.snowflake.dlsync.parser;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.snowflake.dlsync.HashAlgorithm;
+import com.snowflake.dlsync.models.TestQueryState;
+import com.snowflake.dlsync.models.TestScript;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Local copy of the generated test query of each test script, stored with the content hashes of the test script and its main script.
+ * A cached query is only used while both scripts are unchanged, so unchanged tests are not parsed again.
+ */
+@Slf4j
+public class TestQueryCache {
+    private final Path cacheFile;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HashAlgorithm hashAlgorithm;
+    private TestQueryState state;
+    private volatile boolean changed;
+
+    public TestQueryCache(Path cacheDirectory) {
+        this(cacheDirectory, HashAlgorithm.MD5);
+    }
+
+    public TestQueryCache(Path cacheDirectory, HashAlgorithm hashAlgorithm) {
+        this.cacheFile = cacheDirectory.resolve("test-queries.json");
+        this.hashAlgorithm = hashAlgorithm;
+        log.debug("Test query cache initialized with file: {}", cacheFile);
+    }
+
+    /**
+     * The cached test query of the test script, or the generated query if the test script or its main script changed since it was cached.
+     */
+    public String getTestQuery(TestScript testScript) throws IOException {
+        String testHash = getContentHash(testScript.getContent());
+        String mainHash = getContentHash(testScript.getMainScript().getContent());
+        TestQueryState.TestQuery cached = getState().getTests().get(testScript.getId());
+        if(cached != null && cached.getTestHash().equals(testHash) && cached.getMainHash().equals(mainHash)) {
+            log.debug("Using cached test query for {}", testScript);
+            return cached.getQuery();
+        }
+        String testQuery = testScript.getTestQuery();
+        getState().getTests().put(testScript.getId(), new TestQueryState.TestQuery(testHash, mainHash, testQuery));
+        changed = true;
+        return testQuery;
+    }
+
+    public synchronized void save() {
+        if(!changed) {
+            return;
+        }
+        try {
+            Files.createDirectories(cacheFile.getParent());
+            Path tempFile = Files.createTempFile(cacheFile.getParent(), "test-queries", ".tmp");
+            objectMapper.writeValue(tempFile.toFile(), state);
+            Files.move(tempFile, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            changed = false;
+            log.debug("Saved test query cache with {} tests", state.getTests().size());
+        } catch (IOException e) {
+            log.warn("Failed to write test query cache {}: {}", cacheFile, e.getMessage());
+        }
+    }
+
+    public Path getCacheFile() {
+        return cacheFile;
+    }
+
+    /**
+     * The generated query embeds the script text, so the raw content is hashed even when the normalized script hash is configured.
+     */
+    private String getContentHash(String content) {
+        return hashAlgorithm.hash(content);
+    }
+
+    private synchronized TestQueryState getState() {
+        if(state == null) {
+            state = load();
+        }
+        return state;
+    }
+
+    private TestQueryState load() {
+        if(!Files.exists(cacheFile)) {
+            log.debug("No test query cache found at {}", cacheFile);
+            return new TestQueryState();
+        }
+        try {
+            TestQueryState loaded = objectMapper.readValue(cacheFile.toFile(), TestQueryState.class);
+            return new TestQueryState(new ConcurrentHashMap<>(loaded.getTests()));
+        } catch (IOException e) {
+            log.warn("Ignoring unreadable test query cache {}: {}", cacheFile, e.getMessage());
+            return new TestQueryState();
+        }
+    }
+}
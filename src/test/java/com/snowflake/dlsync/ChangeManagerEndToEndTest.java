@@ -0,0 +1,261 @@
+package com.snowflake.dlsync;
+
+import com.snowflake.dlsync.doa.FakeSnowflakeBackend;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.NoSuchAlgorithmException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChangeManagerEndToEndTest {
+
+    @TempDir
+    Path scriptRoot;
+
+    private FakeSnowflakeBackend backend;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        writeFile("config.yaml", "connection:\n  account: test_account\n  db: TEST_DB\n  schema: DLSYNC\n");
+        writeFile("parameter-test.properties", "db=TEST_DB\nschema=MAIN_SCHEMA\n");
+        writeFile("main/TEST_DB/MAIN_SCHEMA/TABLES/ORDERS.SQL",
+                "---version: 0, author: test\n" +
+                "create or replace table ${db}.${schema}.ORDERS (id int, amount number);\n" +
+                "---rollback: drop table if exists ${db}.${schema}.ORDERS;\n" +
+                "---verify: select * from ${db}.${schema}.ORDERS limit 1;");
+        writeFile("main/TEST_DB/MAIN_SCHEMA/VIEWS/ORDER_SUMMARY.SQL",
+                "create or replace view ${db}.${schema}.ORDER_SUMMARY as select count(*) as order_count from ${db}.${schema}.ORDERS;");
+        writeFile("main/TEST_DB/MAIN_SCHEMA/VIEWS/LARGE_ORDERS.SQL",
+                "create or replace view ${db}.${schema}.LARGE_ORDERS as select * from ${db}.${schema}.ORDERS where amount > 100;");
+        backend = new FakeSnowflakeBackend("TEST_DB", "DLSYNC", 0);
+    }
+
+    @Test
+    void deployCreatesObjectsAndHistory() throws SQLException, IOException, NoSuchAlgorithmException {
+        createChangeManager().deploy(false);
+
+        assertEquals(Set.of("TEST_DB.MAIN_SCHEMA.ORDERS", "TEST_DB.MAIN_SCHEMA.ORDER_SUMMARY", "TEST_DB.MAIN_SCHEMA.LARGE_ORDERS"), backend.getObjects().keySet());
+        assertEquals(3, backend.getScriptHistoryIds().size());
+        assertEquals(3, backend.getEventCount());
+    }
+
+    @Test
+    void redeployWithoutChangesRunsNoScripts() throws SQLException, IOException, NoSuchAlgorithmException {
+        createChangeManager().deploy(false);
+        long scriptStatements = backend.getStatementCount(FakeSnowflakeBackend.StatementType.SCRIPT);
+
+        createChangeManager().deploy(false);
+
+        assertEquals(scriptStatements, backend.getStatementCount(FakeSnowflakeBackend.StatementType.SCRIPT));
+        assertEquals(2, backend.getChangeSyncCount());
+    }
+
+    @Test
+    void verifyAfterDeploySucceeds() throws SQLException, IOException, NoSuchAlgorithmException {
+        createChangeManager().deploy(false);
+
+        assertTrue(createChangeManager().verify());
+        assertEquals(1, backend.getStatementCount(FakeSnowflakeBackend.StatementType.GET_DDL));
+    }
+
+    @Test
+    void deployRecordsMetricsInChangeSyncAndSummaryFile() throws SQLException, IOException, NoSuchAlgorithmException {
+        writeFile("config.yaml", "metricsFile: metrics/deploy.prom\nconnection:\n  account: test_account\n  db: TEST_DB\n  schema: DLSYNC\n");
+        createChangeManager().deploy(false);
+
+        String metrics = backend.getLastChangeSyncMetrics();
+        assertTrue(metrics.contains("\"command\":\"DEPLOY\""));
+        assertTrue(metrics.contains("\"scripts.deployed\":3"));
+        assertTrue(metrics.contains("\"deploy.ddlExecution\":{\"count\":3"));
+        String summary = Files.readString(scriptRoot.resolve("metrics/deploy.prom"));
+        assertTrue(summary.contains("dlsync_scripts_deployed_total{command=\"deploy\"} 3"));
+        assertTrue(summary.contains("dlsync_jdbc_round_trip_seconds_count{command=\"deploy\"}"));
+    }
+
+    @Test
+    void cascadeRedeploysDependentsAndWritesPlan() throws SQLException, IOException, NoSuchAlgorithmException {
+        writeFile("main/TEST_DB/MAIN_SCHEMA/VIEWS/TOP_ORDERS.SQL",
+                "create or replace view ${db}.${schema}.TOP_ORDERS as select * from ${db}.${schema}.LARGE_ORDERS where amount > 1000;");
+        createChangeManager().deploy(false);
+        writeFile("config.yaml", "cascade: true\nplanFile: plan.json\nconnection:\n  account: test_account\n  db: TEST_DB\n  schema: DLSYNC\n");
+        writeFile("main/TEST_DB/MAIN_SCHEMA/VIEWS/LARGE_ORDERS.SQL",
+                "create or replace view ${db}.${schema}.LARGE_ORDERS as select * from ${db}.${schema}.ORDERS where amount > 200;");
+        long scriptStatements = backend.getStatementCount(FakeSnowflakeBackend.StatementType.SCRIPT);
+
+        createChangeManager().deploy(false);
+
+        assertEquals(scriptStatements + 2, backend.getStatementCount(FakeSnowflakeBackend.StatementType.SCRIPT));
+        String plan = Files.readString(scriptRoot.resolve("plan.json")).replaceAll("\\s", "");
+        assertTrue(plan.contains("\"changed\":[\"${DB}.${SCHEMA}.LARGE_ORDERS\"]"), plan);
+        assertTrue(plan.contains("\"cascaded\":[\"${DB}.${SCHEMA}.TOP_ORDERS\"]"), plan);
+        assertTrue(plan.contains("\"levels\":[[\"${DB}.${SCHEMA}.LARGE_ORDERS\"],[\"${DB}.${SCHEMA}.TOP_ORDERS\"]]"), plan);
+    }
+
+    @Test
+    void testRunsInParallelAndWritesJUnitReport() throws SQLException, IOException, NoSuchAlgorithmException {
+        writeFile("config.yaml", "testParallelism: 2\ntestReport: reports/tests.xml\nconnection:\n  account: test_account\n  db: TEST_DB\n  schema: DLSYNC\n");
+        writeFile("test/TEST_DB/MAIN_SCHEMA/VIEWS/ORDER_SUMMARY_TEST.SQL",
+                "with ORDERS as (select 1 as id, 10 as amount),\n" +
+                "EXPECTED_DATA as (select 1 as order_count)\n" +
+                "select * from ORDER_SUMMARY;");
+        writeFile("test/TEST_DB/MAIN_SCHEMA/VIEWS/LARGE_ORDERS_TEST.SQL",
+                "with ORDERS as (select 1 as id, 500 as amount),\n" +
+                "EXPECTED_DATA as (select 777 as id, 500 as amount)\n" +
+                "select * from LARGE_ORDERS;");
+        backend.setLatency(FakeSnowflakeBackend.StatementType.TEST, 50).addFailingTest("777");
+
+        createChangeManager().test();
+
+        assertEquals(2, backend.getStatementCount(FakeSnowflakeBackend.StatementType.TEST));
+        assertTrue(backend.getMaxConcurrentTests() <= 2);
+        String report = Files.readString(scriptRoot.resolve("reports/tests.xml"));
+        assertTrue(report.contains("tests=\"2\" failures=\"1\" errors=\"0\""), report);
+        assertTrue(report.contains("<testcase classname=\"VIEWS\" name=\"${DB}.${SCHEMA}.ORDER_SUMMARY\""), report);
+        assertTrue(report.contains("<failure message=\"rows missing from actual data\" type=\"1\"/>"), report);
+    }
+
+    @Test
+    void gitChangeDetectionReadsOnlyFilesChangedSinceDeployedCommit() throws Exception {
+        writeFile("config.yaml", "gitChangeDetection: true\nconnection:\n  account: test_account\n  db: TEST_DB\n  schema: DLSYNC\n");
+        git("init", "-q");
+        git("add", ".");
+        git("commit", "-q", "-m", "initial");
+        createChangeManager().deploy(false);
+        assertEquals(git("rev-parse", "HEAD"), backend.getLastDeployedCommitId());
+        assertTrue(backend.getLastChangeSyncMetrics().contains("\"scripts.loaded\":3"));
+
+        writeFile("main/TEST_DB/MAIN_SCHEMA/VIEWS/LARGE_ORDERS.SQL",
+                "create or replace view ${db}.${schema}.LARGE_ORDERS as select * from ${db}.${schema}.ORDERS where amount > 200;");
+        git("commit", "-q", "-a", "-m", "change view");
+        long scriptStatements = backend.getStatementCount(FakeSnowflakeBackend.StatementType.SCRIPT);
+
+        createChangeManager().deploy(false);
+
+        assertEquals(scriptStatements + 1, backend.getStatementCount(FakeSnowflakeBackend.StatementType.SCRIPT));
+        assertTrue(backend.getLastChangeSyncMetrics().contains("\"scripts.loaded\":1"), backend.getLastChangeSyncMetrics());
+        assertEquals(git("rev-parse", "HEAD"), backend.getLastDeployedCommitId());
+
+        writeFile("main/TEST_DB/MAIN_SCHEMA/VIEWS/ORDER_SUMMARY.SQL",
+                "create or replace view ${db}.${schema}.ORDER_SUMMARY as select count(*) as total from ${db}.${schema}.ORDERS;");
+        createChangeManager().deploy(false);
+
+        assertEquals(scriptStatements + 2, backend.getStatementCount(FakeSnowflakeBackend.StatementType.SCRIPT));
+        assertNull(backend.getLastDeployedCommitId());
+    }
+
+    @Test
+    void gitChangeDetectionSkipsDeletedScriptFiles() throws Exception {
+        writeFile("config.yaml", "gitChangeDetection: true\nconnection:\n  account: test_account\n  db: TEST_DB\n  schema: DLSYNC\n");
+        git("init", "-q");
+        git("add", ".");
+        git("commit", "-q", "-m", "initial");
+        createChangeManager().deploy(false);
+
+        git("rm", "-q", "main/TEST_DB/MAIN_SCHEMA/VIEWS/ORDER_SUMMARY.SQL");
+        writeFile("main/TEST_DB/MAIN_SCHEMA/VIEWS/LARGE_ORDERS.SQL",
+                "create or replace view ${db}.${schema}.LARGE_ORDERS as select * from ${db}.${schema}.ORDERS where amount > 200;");
+        git("commit", "-q", "-a", "-m", "delete view");
+        long scriptStatements = backend.getStatementCount(FakeSnowflakeBackend.StatementType.SCRIPT);
+
+        createChangeManager().deploy(false);
+
+        assertEquals(scriptStatements + 1, backend.getStatementCount(FakeSnowflakeBackend.StatementType.SCRIPT));
+        assertTrue(backend.getLastChangeSyncMetrics().contains("\"scripts.loaded\":1"), backend.getLastChangeSyncMetrics());
+        assertEquals(git("rev-parse", "HEAD"), backend.getLastDeployedCommitId());
+    }
+
+    @Test
+    void gitChangeDetectionWithCascadeReadsCachedDependents() throws Exception {
+        writeFile("config.yaml", "gitChangeDetection: true\ncascade: true\ndependencyCache: true\nplanFile: plan.json\nconnection:\n  account: test_account\n  db: TEST_DB\n  schema: DLSYNC\n");
+        writeFile(".gitignore", ".dlsync/\nplan.json\n");
+        writeFile("main/TEST_DB/MAIN_SCHEMA/VIEWS/TOP_ORDERS.SQL",
+                "create or replace view ${db}.${schema}.TOP_ORDERS as select * from ${db}.${schema}.LARGE_ORDERS where amount > 1000;");
+        git("init", "-q");
+        git("add", ".");
+        git("commit", "-q", "-m", "initial");
+        createChangeManager().deploy(false);
+
+        writeFile("main/TEST_DB/MAIN_SCHEMA/VIEWS/LARGE_ORDERS.SQL",
+                "create or replace view ${db}.${schema}.LARGE_ORDERS as select * from ${db}.${schema}.ORDERS where amount > 200;");
+        git("commit", "-q", "-a", "-m", "change view");
+        long scriptStatements = backend.getStatementCount(FakeSnowflakeBackend.StatementType.SCRIPT);
+
+        createChangeManager().deploy(false);
+
+        assertEquals(scriptStatements + 2, backend.getStatementCount(FakeSnowflakeBackend.StatementType.SCRIPT));
+        assertTrue(backend.getLastChangeSyncMetrics().contains("\"scripts.loaded\":2"), backend.getLastChangeSyncMetrics());
+        String plan = Files.readString(scriptRoot.resolve("plan.json")).replaceAll("\\s", "");
+        assertTrue(plan.contains("\"cascaded\":[\"${DB}.${SCHEMA}.TOP_ORDERS\"]"), plan);
+    }
+
+    @Test
+    void gitChangeDetectionReadsAllFilesAfterRollback() throws Exception {
+        writeFile("config.yaml", "gitChangeDetection: true\nconnection:\n  account: test_account\n  db: TEST_DB\n  schema: DLSYNC\n");
+        git("init", "-q");
+        git("add", ".");
+        git("commit", "-q", "-m", "initial");
+        String initialCommit = git("rev-parse", "HEAD");
+        createChangeManager().deploy(false);
+        writeFile("main/TEST_DB/MAIN_SCHEMA/VIEWS/LARGE_ORDERS.SQL",
+                "create or replace view ${db}.${schema}.LARGE_ORDERS as select * from ${db}.${schema}.ORDERS where amount > 200;");
+        git("commit", "-q", "-a", "-m", "change view");
+        String changedCommit = git("rev-parse", "HEAD");
+        createChangeManager().deploy(false);
+
+        git("checkout", "-q", initialCommit);
+        createChangeManager().rollback();
+        assertTrue(backend.getObjects().get("TEST_DB.MAIN_SCHEMA.LARGE_ORDERS").contains("amount > 100"));
+
+        git("checkout", "-q", changedCommit);
+        createChangeManager().deploy(false);
+
+        assertTrue(backend.getObjects().get("TEST_DB.MAIN_SCHEMA.LARGE_ORDERS").contains("amount > 200"));
+        assertTrue(backend.getLastChangeSyncMetrics().contains("\"scripts.loaded\":3"), backend.getLastChangeSyncMetrics());
+        assertEquals(changedCommit, backend.getLastDeployedCommitId());
+    }
+
+    @Test
+    void gitChangeDetectionReadsAllFilesAfterConfigChange() throws Exception {
+        writeFile("config.yaml", "gitChangeDetection: true\nscriptExclusion:\n  - ${DB}.${SCHEMA}.LARGE_ORDERS\nconnection:\n  account: test_account\n  db: TEST_DB\n  schema: DLSYNC\n");
+        git("init", "-q");
+        git("add", ".");
+        git("commit", "-q", "-m", "initial");
+        createChangeManager().deploy(false);
+        assertFalse(backend.getObjects().containsKey("TEST_DB.MAIN_SCHEMA.LARGE_ORDERS"));
+
+        writeFile("config.yaml", "gitChangeDetection: true\nconnection:\n  account: test_account\n  db: TEST_DB\n  schema: DLSYNC\n");
+        git("commit", "-q", "-a", "-m", "include view");
+        createChangeManager().deploy(false);
+
+        assertTrue(backend.getObjects().containsKey("TEST_DB.MAIN_SCHEMA.LARGE_ORDERS"));
+        assertTrue(backend.getLastChangeSyncMetrics().contains("\"scripts.loaded\":3"), backend.getLastChangeSyncMetrics());
+    }
+
+    private String git(String... arguments) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>(List.of("git", "-c", "user.name=test", "-c", "user.email=test@example.com", "-c", "commit.gpgsign=false"));
+        command.addAll(List.of(arguments));
+        Process process = new ProcessBuilder(command).directory(scriptRoot.toFile()).redirectErrorStream(true).start();
+        String output = new String(process.getInputStream().readAllBytes()).trim();
+        assertEquals(0, process.waitFor(), output);
+        return output;
+    }
+
+    private ChangeManager createChangeManager() throws IOException, SQLException {
+        return ChangeMangerFactory.createChangeManger(new ConfigManager(scriptRoot.toString(), "test"), backend);
+    }
+
+    private void writeFile(String relativePath, String content) throws IOException {
+        Path file = scriptRoot.resolve(relativePath);
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, content);
+    }
+}
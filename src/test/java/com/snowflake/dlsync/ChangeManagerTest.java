@@ -43,6 +43,7 @@ class ChangeManagerTest {
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        when(mockDependencyGraph.planDeployment(any(), any(), any(), any())).thenCallRealMethod();
         changeManager = new ChangeManager(
             mockConfig,
             mockScriptSource,
@@ -304,6 +305,77 @@ class ChangeManagerTest {
         verify(mockScriptRepo, times(4)).createScriptObject(any(), eq(false));
     }
 
+    @Test
+    void testDeployInLevelsDeploysEveryLevel() throws SQLException, IOException, NoSuchAlgorithmException {
+        List<Script> firstLevel = new ArrayList<>();
+        for (int i = 1; i <= 3; i++) {
+            firstLevel.add(ScriptFactory.getSchemaScript(
+                "TEST_DB", "TEST_SCHEMA", ScriptObjectType.VIEWS,
+                "VIEW_" + i, "CREATE VIEW VIEW_" + i + " AS SELECT " + i + ";"
+            ));
+        }
+        SchemaScript dependentView = ScriptFactory.getSchemaScript(
+            "TEST_DB", "TEST_SCHEMA", ScriptObjectType.VIEWS,
+            "DEPENDENT_VIEW", "CREATE VIEW DEPENDENT_VIEW AS SELECT * FROM VIEW_1;"
+        );
+        List<Script> allScripts = new ArrayList<>(firstLevel);
+        allScripts.add(dependentView);
+
+        when(mockConfig.isScriptExcluded(any())).thenReturn(false);
+        when(mockConfig.getDeployParallelism()).thenReturn(3);
+        when(mockScriptSource.getAllScripts()).thenReturn(allScripts);
+        when(mockScriptRepo.isScriptChanged(any())).thenReturn(true);
+        when(mockDependencyGraph.getDependencyLevels()).thenReturn(Arrays.asList(firstLevel, Collections.singletonList(dependentView)));
+
+        changeManager.deploy(false);
+
+        ArgumentCaptor<Script> scriptCaptor = ArgumentCaptor.forClass(Script.class);
+        verify(mockScriptRepo, times(4)).createScriptObject(scriptCaptor.capture(), eq(false));
+        assertEquals(dependentView, scriptCaptor.getAllValues().get(3), "Dependent script should be deployed after its level");
+        verify(mockDependencyGraph, never()).topologicalSort();
+        verify(mockScriptRepo).updateChangeSync(eq(ChangeType.DEPLOY), eq(Status.SUCCESS), anyString(), eq(4L));
+    }
+
+    @Test
+    void testDeployInLevelsWithContinueOnFailureSkipsDependents() throws SQLException, IOException, NoSuchAlgorithmException {
+        SchemaScript failingView = ScriptFactory.getSchemaScript(
+            "TEST_DB", "TEST_SCHEMA", ScriptObjectType.VIEWS,
+            "FAILING_VIEW", "CREATE VIEW FAILING_VIEW AS SELECT 1;"
+        );
+        SchemaScript independentView = ScriptFactory.getSchemaScript(
+            "TEST_DB", "TEST_SCHEMA", ScriptObjectType.VIEWS,
+            "INDEPENDENT_VIEW", "CREATE VIEW INDEPENDENT_VIEW AS SELECT 2;"
+        );
+        SchemaScript dependentView = ScriptFactory.getSchemaScript(
+            "TEST_DB", "TEST_SCHEMA", ScriptObjectType.VIEWS,
+            "DEPENDENT_VIEW", "CREATE VIEW DEPENDENT_VIEW AS SELECT * FROM FAILING_VIEW;"
+        );
+        SchemaScript otherView = ScriptFactory.getSchemaScript(
+            "TEST_DB", "TEST_SCHEMA", ScriptObjectType.VIEWS,
+            "OTHER_VIEW", "CREATE VIEW OTHER_VIEW AS SELECT * FROM INDEPENDENT_VIEW;"
+        );
+
+        when(mockConfig.isScriptExcluded(any())).thenReturn(false);
+        when(mockConfig.getDeployParallelism()).thenReturn(2);
+        when(mockConfig.isContinueOnFailure()).thenReturn(true);
+        when(mockScriptSource.getAllScripts()).thenReturn(Arrays.asList(failingView, independentView, dependentView, otherView));
+        when(mockScriptRepo.isScriptChanged(any())).thenReturn(true);
+        when(mockDependencyGraph.getDependencyLevels()).thenReturn(Arrays.asList(
+            Arrays.asList(failingView, independentView),
+            Arrays.asList(dependentView, otherView)
+        ));
+        when(mockDependencyGraph.getAllDependents(failingView)).thenReturn(Set.of(dependentView));
+        doThrow(new SQLException("View failed")).when(mockScriptRepo).createScriptObject(eq(failingView), eq(false));
+
+        assertThrows(RuntimeException.class, () -> changeManager.deploy(false));
+
+        verify(mockScriptRepo).createScriptObject(failingView, false);
+        verify(mockScriptRepo).createScriptObject(independentView, false);
+        verify(mockScriptRepo).createScriptObject(otherView, false);
+        verify(mockScriptRepo, never()).createScriptObject(eq(dependentView), anyBoolean());
+        verify(mockScriptRepo).updateChangeSync(eq(ChangeType.DEPLOY), eq(Status.ERROR), anyString(), isNull());
+    }
+
     @Test
     void testRollbackDeployedMigrationScriptsInReverseOrder() throws SQLException, IOException {
         MigrationScript migration1 = ScriptFactory.getMigrationScript(
@@ -422,5 +494,31 @@ class ChangeManagerTest {
 
         verify(mockScriptRepo, times(1)).createScriptObject(any(), eq(false));
     }
-}
 
+    @Test
+    void testCreateVerifyReportGroupsDifferences() throws SQLException, IOException, NoSuchAlgorithmException {
+        SchemaScript sourceMatching = ScriptFactory.getSchemaScript("TEST_DB", "TEST_SCHEMA", ScriptObjectType.VIEWS, "VIEW1", "CREATE VIEW VIEW1 AS SELECT 1;");
+        SchemaScript sourceChanged = ScriptFactory.getSchemaScript("TEST_DB", "TEST_SCHEMA", ScriptObjectType.VIEWS, "VIEW2", "CREATE VIEW VIEW2 AS SELECT 2;");
+        SchemaScript sourceOnly = ScriptFactory.getSchemaScript("TEST_DB", "TEST_SCHEMA", ScriptObjectType.VIEWS, "VIEW3", "CREATE VIEW VIEW3 AS SELECT 3;");
+        SchemaScript dbMatching = ScriptFactory.getSchemaScript("TEST_DB", "TEST_SCHEMA", ScriptObjectType.VIEWS, "VIEW1", "CREATE VIEW VIEW1 AS SELECT 1;");
+        SchemaScript dbChanged = ScriptFactory.getSchemaScript("TEST_DB", "TEST_SCHEMA", ScriptObjectType.VIEWS, "VIEW2", "CREATE VIEW VIEW2 AS SELECT 20;");
+        SchemaScript dbOnly = ScriptFactory.getSchemaScript("TEST_DB", "TEST_SCHEMA", ScriptObjectType.VIEWS, "VIEW4", "CREATE VIEW VIEW4 AS SELECT 4;");
+
+        when(mockConfig.isScriptExcluded(any())).thenReturn(false);
+        when(mockConfig.getDdlParallelism()).thenReturn(1);
+        when(mockScriptSource.getAllScripts()).thenReturn(Arrays.asList(sourceMatching, sourceChanged, sourceOnly));
+        when(mockScriptRepo.getAllSchemasInDatabase(any())).thenReturn(List.of("TEST_SCHEMA"));
+        when(mockScriptRepo.getAllScriptsInSchemas(anyList(), anyInt())).thenReturn(Map.of("TEST_SCHEMA", List.of(dbMatching, dbChanged, dbOnly)));
+        when(mockScriptRepo.compareScript(dbMatching, sourceMatching)).thenReturn(true);
+        when(mockScriptRepo.compareScript(dbChanged, sourceChanged)).thenReturn(false);
+
+        VerifyReport report = changeManager.createVerifyReport();
+
+        assertEquals(List.of(dbMatching), report.getVerified());
+        assertEquals(List.of(dbChanged), report.getContentMismatch());
+        assertEquals(List.of(dbOnly), report.getMissingInSource());
+        assertEquals(List.of(sourceOnly), report.getMissingInDb());
+        assertEquals(2, report.getFailedCount());
+        assertTrue(report.getPhaseTimings().keySet().containsAll(List.of("loadSource", "fetchDdl", "compare", "verifyMigrations")));
+    }
+}
@@ -0,0 +1,139 @@
+package com.snowflake.dlsync;
+
+import com.snowflake.dlsync.doa.FakeSnowflakeBackend;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.net.URL;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DlsyncServerTest {
+
+    @TempDir
+    Path scriptRoot;
+
+    private FakeSnowflakeBackend backend;
+    private DlsyncServer server;
+    private int connectionCount;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        writeFile("config.yaml", "connection:\n  account: test_account\n  db: TEST_DB\n  schema: DLSYNC\n");
+        writeFile("parameter-test.properties", "db=TEST_DB\nschema=MAIN_SCHEMA\n");
+        writeFile("main/TEST_DB/MAIN_SCHEMA/TABLES/ORDERS.SQL",
+                "---version: 0, author: test\n" +
+                "create or replace table ${db}.${schema}.ORDERS (id int, amount number);");
+        writeFile("main/TEST_DB/MAIN_SCHEMA/VIEWS/LARGE_ORDERS.SQL",
+                "create or replace view ${db}.${schema}.LARGE_ORDERS as select * from ${db}.${schema}.ORDERS where amount > 100;");
+        backend = new FakeSnowflakeBackend("TEST_DB", "DLSYNC", 0);
+        server = new DlsyncServer(scriptRoot.toString(), "test", () -> {
+            connectionCount++;
+            return backend.getConnection();
+        });
+        server.start(0);
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop();
+    }
+
+    @Test
+    void commandsReuseSessionAndUnchangedScripts() throws IOException {
+        assertEquals(200, post("/deploy"));
+        assertEquals(2, backend.getStatementCount(FakeSnowflakeBackend.StatementType.SCRIPT));
+        assertEquals(200, post("/deploy"));
+        assertEquals(2, backend.getStatementCount(FakeSnowflakeBackend.StatementType.SCRIPT));
+
+        writeFile("main/TEST_DB/MAIN_SCHEMA/VIEWS/LARGE_ORDERS.SQL",
+                "create or replace view ${db}.${schema}.LARGE_ORDERS as select * from ${db}.${schema}.ORDERS where amount > 1000;");
+        assertEquals(200, post("/deploy"));
+        assertEquals(200, post("/verify"));
+
+        assertEquals(3, backend.getStatementCount(FakeSnowflakeBackend.StatementType.SCRIPT));
+        assertEquals(1, connectionCount);
+        assertEquals(4, backend.getChangeSyncCount());
+        String status = get("/status");
+        assertTrue(status.contains("\"sessions\":1"), status);
+        assertTrue(status.contains("\"cachedScripts\":2"), status);
+    }
+
+    @Test
+    void unknownCommandsAndMethodsAreRejected() throws IOException {
+        assertEquals(404, post("/unknown"));
+        HttpURLConnection connection = open("/deploy");
+        assertEquals(405, connection.getResponseCode());
+        assertEquals(0, backend.getChangeSyncCount());
+    }
+
+    @Test
+    void requestsWithoutTokenOrFromBrowsersAreRejected() throws IOException, InterruptedException {
+        String token = Files.readString(server.getTokenFile());
+        assertFalse(token.isBlank());
+        if(Files.getFileStore(server.getTokenFile()).supportsFileAttributeView("posix")) {
+            assertEquals("rw-------", java.nio.file.attribute.PosixFilePermissions.toString(Files.getPosixFilePermissions(server.getTokenFile())));
+        }
+
+        HttpURLConnection withoutToken = (HttpURLConnection) new URL("http://127.0.0.1:" + server.getPort() + "/deploy").openConnection();
+        withoutToken.setRequestMethod("POST");
+        assertEquals(401, withoutToken.getResponseCode());
+        HttpURLConnection wrongToken = open("/deploy");
+        wrongToken.setRequestProperty(DlsyncServer.TOKEN_HEADER, token + "x");
+        wrongToken.setRequestMethod("POST");
+        assertEquals(401, wrongToken.getResponseCode());
+
+        HttpRequest crossSite = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + server.getPort() + "/deploy"))
+                .header("Origin", "https://example.com")
+                .header(DlsyncServer.TOKEN_HEADER, token)
+                .POST(HttpRequest.BodyPublishers.noBody())
+                .build();
+        assertEquals(403, HttpClient.newHttpClient().send(crossSite, HttpResponse.BodyHandlers.discarding()).statusCode());
+        assertEquals(0, backend.getChangeSyncCount());
+
+        assertTrue(DlsyncServer.isLoopbackHost("127.0.0.1:7373"));
+        assertTrue(DlsyncServer.isLoopbackHost("localhost"));
+        assertTrue(DlsyncServer.isLoopbackHost("[::1]:7373"));
+        assertFalse(DlsyncServer.isLoopbackHost("attacker.example.com:7373"));
+        assertFalse(DlsyncServer.isLoopbackHost(null));
+
+        server.stop();
+        assertFalse(Files.exists(server.getTokenFile()));
+    }
+
+    private int post(String path) throws IOException {
+        HttpURLConnection connection = open(path);
+        connection.setRequestMethod("POST");
+        return connection.getResponseCode();
+    }
+
+    private String get(String path) throws IOException {
+        try (InputStream input = open(path).getInputStream()) {
+            return new String(input.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private HttpURLConnection open(String path) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://127.0.0.1:" + server.getPort() + path).openConnection();
+        connection.setRequestProperty(DlsyncServer.TOKEN_HEADER, Files.readString(server.getTokenFile()));
+        return connection;
+    }
+
+    private void writeFile(String relativePath, String content) throws IOException {
+        Path file = scriptRoot.resolve(relativePath);
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, content);
+    }
+}
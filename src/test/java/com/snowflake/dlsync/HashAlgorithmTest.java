@@ -0,0 +1,87 @@
+package com.snowflake.dlsync;
+
+import com.snowflake.dlsync.models.SchemaScript;
+import com.snowflake.dlsync.models.ScriptObjectType;
+import com.snowflake.dlsync.parser.ScriptNormalizer;
+import com.snowflake.dlsync.parser.SqlTokens;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HashAlgorithmTest {
+
+    @Test
+    void hashesAreTaggedWithAlgorithm() {
+        assertEquals("d41d8cd98f00b204e9800998ecf8427e", HashAlgorithm.MD5.hash(""));
+        assertEquals("murmur3:2f5ab9f07eaf47066e0c0ee1c2cb8988", HashAlgorithm.MURMUR3.hash("0123456789abcdef0123456789ABCDEF"));
+        assertEquals(HashAlgorithm.MURMUR3, HashAlgorithm.of("murmur3:2f5ab9f07eaf47066e0c0ee1c2cb8988"));
+        assertEquals(HashAlgorithm.MD5, HashAlgorithm.of("d41d8cd98f00b204e9800998ecf8427e"));
+        assertEquals(HashAlgorithm.MURMUR3, HashAlgorithm.fromName("murmur3"));
+        assertEquals(HashAlgorithm.MD5, HashAlgorithm.fromName(null));
+        assertThrows(RuntimeException.class, () -> HashAlgorithm.fromName("sha1"));
+    }
+
+    @Test
+    void scriptHashUsesHasherOfTheCommand() {
+        String content = "create or replace view VIEW1 as select 1;";
+        SchemaScript script = ScriptFactory.getSchemaScript("TEST_DB", "TEST_SCHEMA", ScriptObjectType.VIEWS, "VIEW1", content);
+        SchemaScript other = ScriptFactory.getSchemaScript("TEST_DB", "TEST_SCHEMA", ScriptObjectType.VIEWS, "VIEW2", content);
+
+        new ScriptHasher(HashAlgorithm.MURMUR3, false).hashScript(script);
+
+        assertEquals(HashAlgorithm.MURMUR3.hash(content), script.getHash());
+        assertEquals(HashAlgorithm.MD5.hash(content), other.getHash(), "Scripts not hashed by a hasher keep the default hash");
+    }
+
+    @Test
+    void storedHashOfPreviousAlgorithmMatchesUnchangedContent() {
+        String content = "create or replace view VIEW1 as select 1;";
+        String storedMd5 = HashAlgorithm.MD5.hash(content);
+        ScriptHasher hasher = new ScriptHasher(HashAlgorithm.MURMUR3, false);
+        SchemaScript script = hashedScript(hasher, content);
+        String currentHash = script.getHash();
+
+        assertTrue(hasher.isSameHash(storedMd5, script));
+        assertTrue(hasher.isSameHash(currentHash, script));
+        assertFalse(hasher.isSameHash(storedMd5, hashedScript(hasher, content + " 2")));
+        assertFalse(hasher.isSameHash(HashAlgorithm.MURMUR3.hash("other"), script));
+        assertFalse(hasher.isSameHash(null, script));
+    }
+
+    @Test
+    void normalizedHashIgnoresFormattingAndMatchesRawStoredHash() {
+        String content = "create or replace view VIEW1 as select 1;";
+        String storedRaw = HashAlgorithm.MD5.hash(content);
+        ScriptHasher hasher = new ScriptHasher(HashAlgorithm.MD5, true);
+        SchemaScript script = hashedScript(hasher, content);
+        String currentHash = script.getHash();
+        String reformatted = "-- view with one row\nCREATE OR REPLACE VIEW VIEW1 AS\n    SELECT 1;";
+        SchemaScript reformattedScript = hashedScript(hasher, reformatted);
+
+        assertTrue(currentHash.startsWith(ScriptHasher.NORMALIZED_HASH_TAG));
+        assertEquals(currentHash, hasher.hash(reformatted));
+        assertEquals(currentHash, reformattedScript.getHash());
+        assertNotEquals(currentHash, hasher.hash("create or replace view VIEW1 as select 2;"));
+        assertTrue(hasher.isSameHash(storedRaw, script));
+        assertFalse(hasher.isSameHash(storedRaw, reformattedScript));
+        assertTrue(ScriptHasher.DEFAULT.isSameHash(currentHash, hashedScript(ScriptHasher.DEFAULT, reformatted)));
+    }
+
+    @Test
+    void normalizedHashReusesTheTokensOfTheScript() {
+        ScriptHasher hasher = new ScriptHasher(HashAlgorithm.MD5, true);
+        SchemaScript script = ScriptFactory.getSchemaScript("TEST_DB", "TEST_SCHEMA", ScriptObjectType.VIEWS, "VIEW1", "create or replace view VIEW1 as select 1;");
+        SqlTokens tokens = script.getTokens();
+
+        hasher.hashScript(script);
+
+        assertSame(tokens, script.getTokens());
+        assertEquals(ScriptHasher.NORMALIZED_HASH_TAG + HashAlgorithm.MD5.hash(ScriptNormalizer.normalize(tokens)), script.getHash());
+    }
+
+    private static SchemaScript hashedScript(ScriptHasher hasher, String content) {
+        SchemaScript script = ScriptFactory.getSchemaScript("TEST_DB", "TEST_SCHEMA", ScriptObjectType.VIEWS, "VIEW1", content);
+        hasher.hashScript(script);
+        return script;
+    }
+}
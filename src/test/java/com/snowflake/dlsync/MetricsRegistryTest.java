@@ -0,0 +1,60 @@
+package com.snowflake.dlsync;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MetricsRegistryTest {
+
+    @Test
+    void summaryContainsCountersAndTimers() {
+        MetricsRegistry metrics = new MetricsRegistry();
+        metrics.reset("DEPLOY");
+        metrics.increment(MetricsRegistry.SCRIPTS_DEPLOYED);
+        metrics.increment(MetricsRegistry.SCRIPTS_DEPLOYED, 2);
+        metrics.recordTime(MetricsRegistry.GRAPH_SORT, System.nanoTime());
+        metrics.recordTime(MetricsRegistry.GRAPH_SORT, System.nanoTime());
+
+        assertEquals(3, metrics.getCount(MetricsRegistry.SCRIPTS_DEPLOYED));
+        assertEquals(2, metrics.getTimerCount(MetricsRegistry.GRAPH_SORT));
+        Map<String, Object> summary = metrics.getSummary();
+        assertEquals("DEPLOY", summary.get("command"));
+        assertEquals(Map.of(MetricsRegistry.SCRIPTS_DEPLOYED, 3L), summary.get("counters"));
+        assertTrue(metrics.toJson().contains("\"dependency.sort\":{\"count\":2,"));
+    }
+
+    @Test
+    void resetClearsPreviousCommand() {
+        MetricsRegistry metrics = new MetricsRegistry();
+        metrics.reset("DEPLOY");
+        metrics.increment(MetricsRegistry.SCRIPTS_DEPLOYED);
+        metrics.reset("VERIFY");
+
+        assertEquals(0, metrics.getCount(MetricsRegistry.SCRIPTS_DEPLOYED));
+        assertEquals("VERIFY", metrics.getSummary().get("command"));
+    }
+
+    @Test
+    void writeSummaryUsesPrometheusFormatForPromFiles(@TempDir Path tempDir) throws IOException {
+        MetricsRegistry metrics = new MetricsRegistry();
+        metrics.reset("DEPLOY");
+        metrics.increment(MetricsRegistry.SCRIPTS_CHANGED, 5);
+        metrics.recordTime(MetricsRegistry.GRAPH_BUILD, System.nanoTime());
+
+        metrics.writeSummary(tempDir.resolve("metrics.prom"));
+        metrics.writeSummary(tempDir.resolve("metrics.json"));
+
+        String prometheus = Files.readString(tempDir.resolve("metrics.prom"));
+        assertTrue(prometheus.contains("# TYPE dlsync_scripts_changed_total counter\ndlsync_scripts_changed_total{command=\"deploy\"} 5\n"));
+        assertTrue(prometheus.contains("# TYPE dlsync_dependency_graph_build_seconds summary\ndlsync_dependency_graph_build_seconds_count{command=\"deploy\"} 1\n"));
+        assertTrue(prometheus.contains("# TYPE dlsync_dependency_graph_build_max_seconds gauge\ndlsync_dependency_graph_build_max_seconds{command=\"deploy\"} "));
+        assertFalse(prometheus.contains("_seconds_max"));
+        assertEquals(metrics.toJson(), Files.readString(tempDir.resolve("metrics.json")));
+    }
+}
@@ -1,6 +1,8 @@
 package com.snowflake.dlsync.dependency;
 
 import com.snowflake.dlsync.ScriptFactory;
+import com.snowflake.dlsync.models.AccountScript;
+import com.snowflake.dlsync.models.DependencyState;
 import com.snowflake.dlsync.models.MigrationScript;
 import com.snowflake.dlsync.models.SchemaScript;
 import com.snowflake.dlsync.models.Script;
@@ -8,8 +10,10 @@ import com.snowflake.dlsync.models.ScriptObjectType;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
@@ -389,4 +393,80 @@ class DependencyExtractorTest {
     }
 
 
-}
\ No newline at end of file
+
+    @Test
+    void extractScriptDependenciesAccountObjectWithQualifiedName() {
+        AccountScript database = ScriptFactory.getAccountScript(null, ScriptObjectType.DATABASES, "MY_DB", "CREATE DATABASE MY_DB;");
+        AccountScript schema = ScriptFactory.getAccountScript(null, ScriptObjectType.SCHEMAS, "MY_DB.MY_SCHEMA", "CREATE SCHEMA MY_DB.MY_SCHEMA;");
+        AccountScript role = ScriptFactory.getAccountScript(null, ScriptObjectType.ROLES, "MY_ROLE", "CREATE ROLE MY_ROLE;\nGRANT USAGE ON SCHEMA my_db.my_schema TO ROLE MY_ROLE;");
+        List<Script> changedScript = mockScripts().stream().map(schemaScript -> (Script)schemaScript).collect(Collectors.toList());
+        changedScript.add(database);
+        changedScript.add(schema);
+        changedScript.add(role);
+        dependencyExtractor.addScripts(changedScript);
+        assertEquals(Set.of(database), dependencyExtractor.extractScriptDependencies(schema), "Dependency extractor failed:");
+        assertEquals(Set.of(database, schema), dependencyExtractor.extractScriptDependencies(role), "Dependency extractor failed:");
+    }
+
+    @Test
+    void cachedDependenciesOfSubsetMatchUncachedExtraction(@TempDir Path cacheDirectory) {
+        List<Script> allScripts = new ArrayList<>(mockScripts());
+        List<Script> changedScripts = List.of(allScripts.get(1), allScripts.get(2), allScripts.get(5));
+        DependencyExtractor uncachedExtractor = new DependencyExtractor();
+        uncachedExtractor.addScripts(changedScripts);
+        dependencyExtractor.setDependencyCache(new DependencyCache(cacheDirectory));
+        dependencyExtractor.addKnownScripts(allScripts);
+        dependencyExtractor.addScripts(changedScripts);
+
+        for(Script script: changedScripts) {
+            assertEquals(uncachedExtractor.extractScriptDependencies(script), dependencyExtractor.extractScriptDependencies(script), "Cached dependencies differ for " + script);
+        }
+    }
+
+    @Test
+    void dependencyCacheReusedOnlyForUnchangedScripts(@TempDir Path cacheDirectory) {
+        List<Script> allScripts = new ArrayList<>(mockScripts());
+        dependencyExtractor.setDependencyCache(new DependencyCache(cacheDirectory));
+        dependencyExtractor.addScripts(allScripts);
+        allScripts.forEach(script -> dependencyExtractor.extractScriptDependencies(script));
+        dependencyExtractor.saveDependencyCache();
+
+        DependencyCache cache = new DependencyCache(cacheDirectory);
+        Script mock2 = allScripts.get(2);
+        DependencyState.ScriptDependencies cached = cache.get(mock2.getId(), mock2.getHash());
+        assertEquals(List.of("TEST_DB.TEST_SCHEMA.MOCK1"), cached.getDependencies());
+        assertTrue(cached.getReferencedNames().contains("MOCK1"));
+        assertTrue(cached.getCandidates().contains("TEST_DB.TEST_SCHEMA.MOCK1"));
+        assertNull(cache.get(mock2.getId(), "changed hash"));
+    }
+
+    @Test
+    void dependencyCacheExtractsAgainOnlyWhenReferencedNameIsAdded(@TempDir Path cacheDirectory) {
+        List<Script> allScripts = new ArrayList<>(mockScripts());
+        dependencyExtractor.setDependencyCache(new DependencyCache(cacheDirectory));
+        dependencyExtractor.addScripts(allScripts);
+        allScripts.forEach(script -> dependencyExtractor.extractScriptDependencies(script));
+        dependencyExtractor.saveDependencyCache();
+        Script mock0 = allScripts.get(0);
+        Script mock2 = allScripts.get(2);
+        DependencyCache cache = new DependencyCache(cacheDirectory);
+        DependencyState.ScriptDependencies cached = cache.get(mock2.getId(), mock2.getHash());
+        cached.setDependencies(List.of(mock0.getFullObjectName()));
+        cache.put(mock2.getId(), cached);
+        cache.save();
+
+        DependencyExtractor unrelatedAdded = new DependencyExtractor();
+        unrelatedAdded.setDependencyCache(new DependencyCache(cacheDirectory));
+        List<Script> withUnrelated = new ArrayList<>(allScripts);
+        withUnrelated.add(mockViewDependency("UNRELATED", "TEST_SCHEMA"));
+        unrelatedAdded.addScripts(withUnrelated);
+        assertEquals(Set.of(mock0), unrelatedAdded.extractScriptDependencies(mock2), "Cached entry should be reused when an unreferenced object is added");
+
+        DependencyExtractor referencedAdded = new DependencyExtractor();
+        referencedAdded.setDependencyCache(new DependencyCache(cacheDirectory));
+        List<Script> withReferenced = new ArrayList<>(allScripts);
+        withReferenced.add(mockViewDependency("MOCK1", "OTHER_SCHEMA"));
+        referencedAdded.addScripts(withReferenced);
+        assertEquals(Set.of(allScripts.get(1)), referencedAdded.extractScriptDependencies(mock2), "Entry should be extracted again when a referenced name is added");
+    }
+}
@@ -2,6 +2,7 @@ package com.snowflake.dlsync.dependency;
 
 import com.snowflake.dlsync.ScriptFactory;
 import com.snowflake.dlsync.models.Config;
+import com.snowflake.dlsync.models.MigrationScript;
 import com.snowflake.dlsync.models.SchemaScript;
 import com.snowflake.dlsync.models.Script;
 import com.snowflake.dlsync.models.ScriptObjectType;
@@ -12,7 +13,10 @@ import org.junit.jupiter.api.Test;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -79,4 +83,70 @@ class DependencyGraphTest {
 
         assertEquals(expected, actual);
     }
-}
\ No newline at end of file
+
+    @Test
+    void getDependencyLevelsTest() {
+        String content1 = "CREATE OR REPLACE VIEW VIEW1 AS SELECT * FROM TABLE1;";
+        String content2 = "CREATE OR REPLACE VIEW VIEW2 AS SELECT * FROM TABLE2;";
+        String content3 = "CREATE OR REPLACE VIEW VIEW3 AS SELECT * FROM VIEW1 JOIN VIEW2 ON VIEW1.ID=VIEW2.ID;";
+        String content4 = "CREATE OR REPLACE VIEW VIEW4 AS SELECT * FROM VIEW1;";
+        String content5 = "CREATE OR REPLACE VIEW VIEW5 AS SELECT * FROM VIEW3;";
+
+        SchemaScript script1 = ScriptFactory.getSchemaScript("TEST_DB", "TEST_SCHEMA", ScriptObjectType.VIEWS, "VIEW1", content1);
+        SchemaScript script2 = ScriptFactory.getSchemaScript("TEST_DB", "TEST_SCHEMA", ScriptObjectType.VIEWS, "VIEW2", content2);
+        SchemaScript script3 = ScriptFactory.getSchemaScript("TEST_DB", "TEST_SCHEMA", ScriptObjectType.VIEWS, "VIEW3", content3);
+        SchemaScript script4 = ScriptFactory.getSchemaScript("TEST_DB", "TEST_SCHEMA", ScriptObjectType.VIEWS, "VIEW4", content4);
+        SchemaScript script5 = ScriptFactory.getSchemaScript("TEST_DB", "TEST_SCHEMA", ScriptObjectType.VIEWS, "VIEW5", content5);
+
+        dependencyGraph.addNodes(List.of(script1, script2, script3, script4, script5));
+
+        List<List<Script>> levels = dependencyGraph.getDependencyLevels();
+
+        assertEquals(3, levels.size());
+        assertEquals(Set.of(script1, script2), new HashSet<>(levels.get(0)));
+        assertEquals(Set.of(script3, script4), new HashSet<>(levels.get(1)));
+        assertEquals(Set.of(script5), new HashSet<>(levels.get(2)));
+        assertEquals(Set.of(script3, script4, script5), dependencyGraph.getAllDependents(script1));
+        assertEquals(Set.of(script3, script5), dependencyGraph.getAllDependents(script2));
+    }
+
+    @Test
+    void dagGraphAndDependencyListMatchTheEdges() {
+        SchemaScript view1 = ScriptFactory.getSchemaScript("TEST_DB", "TEST_SCHEMA", ScriptObjectType.VIEWS, "VIEW1", "CREATE OR REPLACE VIEW VIEW1 AS SELECT * FROM TABLE1;");
+        SchemaScript view2 = ScriptFactory.getSchemaScript("TEST_DB", "TEST_SCHEMA", ScriptObjectType.VIEWS, "VIEW2", "CREATE OR REPLACE VIEW VIEW2 AS SELECT * FROM VIEW1;");
+        SchemaScript view3 = ScriptFactory.getSchemaScript("TEST_DB", "TEST_SCHEMA", ScriptObjectType.VIEWS, "VIEW3", "CREATE OR REPLACE VIEW VIEW3 AS SELECT * FROM VIEW1 JOIN VIEW2 ON VIEW1.ID = VIEW2.ID;");
+        dependencyGraph.addNodes(List.of(view3, view2, view1));
+
+        assertEquals(Map.of(view1, Set.of(view2, view3), view2, Set.of(view3)), dependencyGraph.getDagGraph());
+        assertEquals(3, dependencyGraph.getDependencyList().size());
+        assertEquals(List.of(view1, view2, view3), dependencyGraph.topologicalSort());
+        assertEquals(List.of(view1, view2, view3), dependencyGraph.topologicalSort());
+        SchemaScript equalView1 = ScriptFactory.getSchemaScript("TEST_DB", "TEST_SCHEMA", ScriptObjectType.VIEWS, "VIEW1", "CREATE OR REPLACE VIEW VIEW1 AS SELECT 1 AS ID;");
+        assertEquals(Set.of(view2, view3), dependencyGraph.getAllDependents(equalView1));
+    }
+
+    @Test
+    void topologicalSortDetectsCycles() {
+        SchemaScript view1 = ScriptFactory.getSchemaScript("TEST_DB", "TEST_SCHEMA", ScriptObjectType.VIEWS, "VIEW1", "CREATE OR REPLACE VIEW VIEW1 AS SELECT * FROM VIEW2;");
+        SchemaScript view2 = ScriptFactory.getSchemaScript("TEST_DB", "TEST_SCHEMA", ScriptObjectType.VIEWS, "VIEW2", "CREATE OR REPLACE VIEW VIEW2 AS SELECT * FROM VIEW1;");
+        SchemaScript view3 = ScriptFactory.getSchemaScript("TEST_DB", "TEST_SCHEMA", ScriptObjectType.VIEWS, "VIEW3", "CREATE OR REPLACE VIEW VIEW3 AS SELECT * FROM TABLE1;");
+        dependencyGraph.addNodes(List.of(view1, view2, view3));
+
+        assertThrows(RuntimeException.class, () -> dependencyGraph.topologicalSort());
+        assertThrows(RuntimeException.class, () -> dependencyGraph.getDependencyLevels());
+    }
+
+    @Test
+    void getChangeClosureAddsDeclarativeDependents() {
+        SchemaScript view1 = ScriptFactory.getSchemaScript("TEST_DB", "TEST_SCHEMA", ScriptObjectType.VIEWS, "VIEW1", "CREATE OR REPLACE VIEW VIEW1 AS SELECT * FROM TABLE1;");
+        SchemaScript view2 = ScriptFactory.getSchemaScript("TEST_DB", "TEST_SCHEMA", ScriptObjectType.VIEWS, "VIEW2", "CREATE OR REPLACE VIEW VIEW2 AS SELECT * FROM VIEW1;");
+        SchemaScript view3 = ScriptFactory.getSchemaScript("TEST_DB", "TEST_SCHEMA", ScriptObjectType.VIEWS, "VIEW3", "CREATE OR REPLACE VIEW VIEW3 AS SELECT * FROM VIEW2;");
+        SchemaScript view4 = ScriptFactory.getSchemaScript("TEST_DB", "TEST_SCHEMA", ScriptObjectType.VIEWS, "VIEW4", "CREATE OR REPLACE VIEW VIEW4 AS SELECT * FROM TABLE1;");
+        MigrationScript table2 = ScriptFactory.getSchemaMigrationScript("TEST_DB", "TEST_SCHEMA", ScriptObjectType.TABLES, "TABLE2", "CREATE TABLE TABLE2 AS SELECT * FROM VIEW1;", 0L, "dlsync", null, null);
+        List<Script> scripts = List.of(view1, view2, view3, view4, table2);
+
+        Set<Script> closure = dependencyGraph.getChangeClosure(scripts, List.of(view1));
+
+        assertEquals(List.of(view1, view2, view3), new ArrayList<>(closure));
+    }
+}
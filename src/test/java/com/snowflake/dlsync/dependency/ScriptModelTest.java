@@ -0,0 +1,123 @@
+package com.snowflake.dlsync.dependency;
+
+import com.snowflake.dlsync.ScriptFactory;
+import com.snowflake.dlsync.models.Config;
+import com.snowflake.dlsync.models.DeploymentPlan;
+import com.snowflake.dlsync.models.SchemaScript;
+import com.snowflake.dlsync.models.Script;
+import com.snowflake.dlsync.models.ScriptObjectType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScriptModelTest {
+    private Config config;
+    private ScriptModel scriptModel;
+
+    @BeforeEach
+    void setUp() {
+        config = new Config();
+        scriptModel = new ScriptModel(config);
+        scriptModel.load(List.of(
+                view("VIEW1", "SELECT * FROM TABLE1"),
+                view("VIEW2", "SELECT * FROM VIEW1"),
+                view("VIEW3", "SELECT * FROM VIEW2"),
+                view("VIEW4", "SELECT * FROM TABLE1")
+        ));
+    }
+
+    @Test
+    void updateExtractsOnlyChangedScripts() {
+        int extractedCount = scriptModel.update(List.of(view("VIEW4", "SELECT * FROM VIEW3")), List.of());
+
+        assertEquals(1, extractedCount);
+        assertEquals(Set.of("TEST_DB.TEST_SCHEMA.VIEW3"), scriptModel.getDependencies("TEST_DB.TEST_SCHEMA.VIEW4"));
+        assertEquals(Set.of("TEST_DB.TEST_SCHEMA.VIEW1"), scriptModel.getDependencies("TEST_DB.TEST_SCHEMA.VIEW2"));
+        assertEquals(4, scriptModel.size());
+    }
+
+    @Test
+    void updateAddsAndRemovesReferencedObjects() {
+        scriptModel.update(List.of(), List.of(path("VIEW1")));
+
+        assertEquals(3, scriptModel.size());
+        assertEquals(Set.of(), scriptModel.getDependencies("TEST_DB.TEST_SCHEMA.VIEW2"));
+
+        int extractedCount = scriptModel.update(List.of(view("TABLE1", "SELECT 1 AS ID")), List.of());
+
+        assertEquals(2, extractedCount);
+        assertEquals(Set.of("TEST_DB.TEST_SCHEMA.TABLE1"), scriptModel.getDependencies("TEST_DB.TEST_SCHEMA.VIEW4"));
+        assertEquals(Set.of(), scriptModel.getDependencies("TEST_DB.TEST_SCHEMA.TABLE1"));
+    }
+
+    @Test
+    void updateRemovesScriptsOfDeletedDirectory() {
+        scriptModel.update(List.of(), List.of(Path.of("main", "TEST_DB", "TEST_SCHEMA")));
+
+        assertEquals(0, scriptModel.size());
+        assertEquals(List.of(), plan(script -> true).getLevels());
+    }
+
+    @Test
+    void deploymentPlanFollowsDependencies() {
+        config.setCascade(true);
+        config.setDeployParallelism(2);
+
+        DeploymentPlan plan = plan(script -> script.getObjectName().equals("VIEW1") || script.getObjectName().equals("VIEW4"));
+
+        assertEquals(List.of("TEST_DB.TEST_SCHEMA.VIEW1", "TEST_DB.TEST_SCHEMA.VIEW4"), plan.getChanged());
+        assertEquals(List.of("TEST_DB.TEST_SCHEMA.VIEW2", "TEST_DB.TEST_SCHEMA.VIEW3"), plan.getCascaded());
+        assertEquals(List.of(
+                List.of("TEST_DB.TEST_SCHEMA.VIEW1", "TEST_DB.TEST_SCHEMA.VIEW4"),
+                List.of("TEST_DB.TEST_SCHEMA.VIEW2"),
+                List.of("TEST_DB.TEST_SCHEMA.VIEW3")
+        ), plan.getLevels());
+    }
+
+    @Test
+    void deploymentPlanWithoutCascade() {
+        DeploymentPlan plan = plan(script -> !script.getObjectName().equals("VIEW1"));
+
+        assertEquals(List.of(), plan.getCascaded());
+        List<String> order = plan.getLevels().stream().map(level -> level.get(0)).collect(Collectors.toList());
+        assertEquals(Set.of("TEST_DB.TEST_SCHEMA.VIEW2", "TEST_DB.TEST_SCHEMA.VIEW3", "TEST_DB.TEST_SCHEMA.VIEW4"), Set.copyOf(order));
+        assertTrue(order.indexOf("TEST_DB.TEST_SCHEMA.VIEW2") < order.indexOf("TEST_DB.TEST_SCHEMA.VIEW3"));
+    }
+
+    @Test
+    void deploymentPlanMatchesPlanOfExtractedDependencies() {
+        config.setCascade(true);
+        List<Script> scripts = scriptModel.getScripts().stream().sorted(Comparator.comparing(Script::getId)).collect(Collectors.toList());
+        List<Script> changedScripts = scripts.stream().filter(script -> script.getObjectName().equals("VIEW1")).collect(Collectors.toList());
+        DeploymentPlan extractedPlan = new DeploymentPlan();
+        new DependencyGraph(new DependencyExtractor(), config).planDeployment(config, scripts, changedScripts, extractedPlan);
+
+        assertEquals(extractedPlan, plan(script -> script.getObjectName().equals("VIEW1")));
+    }
+
+    private DeploymentPlan plan(Predicate<Script> isChanged) {
+        List<Script> scripts = scriptModel.getScripts().stream().sorted(Comparator.comparing(Script::getId)).collect(Collectors.toList());
+        DependencyGraph graph = new DependencyGraph(new DependencyExtractor(), config);
+        graph.setScriptDependencies(scriptModel.getScriptDependencies());
+        DeploymentPlan plan = new DeploymentPlan();
+        graph.planDeployment(config, scripts, scripts.stream().filter(isChanged).collect(Collectors.toList()), plan);
+        return plan;
+    }
+
+    private static Path path(String objectName) {
+        return Path.of("main", "TEST_DB", "TEST_SCHEMA", "VIEWS", objectName + ".SQL");
+    }
+
+    private static SchemaScript view(String objectName, String query) {
+        String content = "CREATE OR REPLACE VIEW " + objectName + " AS " + query + ";";
+        return ScriptFactory.getSchemaScript(path(objectName).toString(), "TEST_DB", "TEST_SCHEMA", ScriptObjectType.VIEWS, objectName, content);
+    }
+}
@@ -0,0 +1,499 @@
+package com.snowflake.dlsync.doa;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * In process stand-in for the Snowflake account used by {@link ScriptRepo}.
+ * It keeps the dlsync tables and the deployed object DDLs in memory, answers the statements issued by ScriptRepo
+ * and sleeps for a configurable latency on every statement to simulate the network round trip.
+ */
+public class FakeSnowflakeBackend implements ConnectionProvider {
+    public enum StatementType {
+        METADATA_QUERY,
+        METADATA_UPDATE,
+        GET_DDL,
+        TEST,
+        SCRIPT
+    }
+
+    private static final Pattern OBJECT_NAME_PATTERN = Pattern.compile("([A-Za-z0-9_$\"]+)\\.([A-Za-z0-9_$\"]+)\\.([A-Za-z0-9_$\"]+)");
+    private static final Pattern GET_DDL_PATTERN = Pattern.compile("GET_DDL\\('SCHEMA',\\s*'([^']+)'", Pattern.CASE_INSENSITIVE);
+    private static final Pattern QUOTED_VALUE_PATTERN = Pattern.compile("'((?:[^']|'')*)'");
+    private static final Pattern AFTER_CHANGE_SYNC_PATTERN = Pattern.compile("CHANGE_SYNC_ID\\s*>\\s*(\\d+)", Pattern.CASE_INSENSITIVE);
+
+    private final String database;
+    private final String schema;
+    private final Map<StatementType, Long> latencyMillis = new EnumMap<>(StatementType.class);
+    private final Map<StatementType, AtomicLong> statementCounts = new EnumMap<>(StatementType.class);
+    private final Map<String, Object[]> scriptHistory = new ConcurrentHashMap<>();
+    private final Map<String, String> objects = new ConcurrentHashMap<>();
+    private final AtomicLong changeSyncCount = new AtomicLong();
+    private final AtomicLong eventCount = new AtomicLong();
+    private final Set<String> failingTests = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger runningTests = new AtomicInteger();
+    private final AtomicInteger maxRunningTests = new AtomicInteger();
+    private volatile boolean initialized;
+    private volatile String lastChangeSyncMetrics;
+    private volatile String lastDeployedCommitId;
+    private volatile Object[] lastHistoryChange;
+    private final AtomicLong deployCount = new AtomicLong();
+
+    public FakeSnowflakeBackend(String database, String schema, long latencyMillis) {
+        this.database = database.toUpperCase();
+        this.schema = schema.toUpperCase();
+        for(StatementType type: StatementType.values()) {
+            this.latencyMillis.put(type, latencyMillis);
+            this.statementCounts.put(type, new AtomicLong());
+        }
+    }
+
+    public FakeSnowflakeBackend setLatency(StatementType type, long latencyMillis) {
+        this.latencyMillis.put(type, latencyMillis);
+        return this;
+    }
+
+    /**
+     * Test queries containing the text return a failed assertion row, all other test queries pass.
+     */
+    public FakeSnowflakeBackend addFailingTest(String text) {
+        failingTests.add(text.toUpperCase());
+        return this;
+    }
+
+    @Override
+    public Connection getConnection() {
+        return proxy(Connection.class, new ConnectionHandler());
+    }
+
+    public long getStatementCount() {
+        return statementCounts.values().stream().mapToLong(AtomicLong::get).sum();
+    }
+
+    public long getStatementCount(StatementType type) {
+        return statementCounts.get(type).get();
+    }
+
+    public Map<String, String> getObjects() {
+        return Collections.unmodifiableMap(objects);
+    }
+
+    public Set<String> getScriptHistoryIds() {
+        return Collections.unmodifiableSet(scriptHistory.keySet());
+    }
+
+    public long getEventCount() {
+        return eventCount.get();
+    }
+
+    public long getChangeSyncCount() {
+        return changeSyncCount.get();
+    }
+
+    public String getLastChangeSyncMetrics() {
+        return lastChangeSyncMetrics;
+    }
+
+    public String getLastDeployedCommitId() {
+        return lastDeployedCommitId;
+    }
+
+    public int getMaxConcurrentTests() {
+        return maxRunningTests.get();
+    }
+
+    private FakeResult execute(String sql, List<Object> parameters) throws SQLException {
+        String statement = stripLeadingComments(sql);
+        String upper = statement.toUpperCase();
+        if(upper.contains("DL_SYNC_") || upper.startsWith("SELECT CURRENT_DATABASE()") || upper.contains("INFORMATION_SCHEMA.SCHEMATA")) {
+            return executeMetadata(upper, parameters);
+        }
+        if(upper.startsWith("SELECT GET_DDL('SCHEMA'")) {
+            simulateRoundTrip(StatementType.GET_DDL);
+            Matcher matcher = GET_DDL_PATTERN.matcher(statement);
+            matcher.find();
+            return FakeResult.of(List.of("DDL"), List.<Object[]>of(new Object[]{getSchemaDdl(matcher.group(1).toUpperCase())}));
+        }
+        if(upper.startsWith("WITH") && upper.contains("ASSERTION AS")) {
+            return executeTest(upper);
+        }
+        simulateRoundTrip(StatementType.SCRIPT);
+        Matcher objectName = OBJECT_NAME_PATTERN.matcher(statement);
+        if(upper.startsWith("CREATE") && objectName.find()) {
+            objects.put(objectName.group().toUpperCase(), statement);
+        }
+        else if(upper.startsWith("DROP") && objectName.find()) {
+            objects.remove(objectName.group().toUpperCase());
+        }
+        return FakeResult.updateCount(0);
+    }
+
+    private FakeResult executeTest(String upper) {
+        maxRunningTests.accumulateAndGet(runningTests.incrementAndGet(), Math::max);
+        try {
+            simulateRoundTrip(StatementType.TEST);
+            boolean failing = failingTests.stream().anyMatch(upper::contains);
+            List<Object[]> rows = failing ? List.<Object[]>of(new Object[]{"1", "rows missing from actual data"}) : List.of();
+            return FakeResult.of(List.of("RESULT", "MESSAGE"), rows);
+        }
+        finally {
+            runningTests.decrementAndGet();
+        }
+    }
+
+    private FakeResult executeMetadata(String upper, List<Object> parameters) throws SQLException {
+        boolean isQuery = upper.startsWith("SELECT");
+        simulateRoundTrip(isQuery ? StatementType.METADATA_QUERY : StatementType.METADATA_UPDATE);
+        if(upper.startsWith("SELECT CURRENT_DATABASE()")) {
+            return FakeResult.of(List.of("CURRENT_DATABASE()", "CURRENT_SCHEMA()"), List.<Object[]>of(new Object[]{database, schema}));
+        }
+        if(upper.contains("INFORMATION_SCHEMA.SCHEMATA")) {
+            List<Object[]> rows = getSchemaNames().stream().map(name -> new Object[]{name}).collect(Collectors.toList());
+            rows.add(new Object[]{"INFORMATION_SCHEMA"});
+            rows.add(new Object[]{"PUBLIC"});
+            return FakeResult.of(List.of("SCHEMA_NAME"), rows);
+        }
+        if(upper.startsWith("SELECT CHANGE_TYPE, STATUS, COMMIT_ID")) {
+            Object[] change = lastHistoryChange;
+            List<Object[]> rows = change == null ? List.of() : List.<Object[]>of(new Object[]{change[0], change[1], change[2], change[3], deployCount.get()});
+            return FakeResult.of(List.of("CHANGE_TYPE", "STATUS", "COMMIT_ID", "CONFIG_HASH", "DEPLOY_COUNT"), rows);
+        }
+        if(upper.endsWith("LIMIT 1;")) {
+            if(!initialized || !upper.contains("DL_SYNC_CHANGE_SYNC")) {
+                throw new SQLException("Object does not exist or not authorized.");
+            }
+            return FakeResult.of(List.of("ID"), List.of());
+        }
+        if(upper.startsWith("CREATE")) {
+            initialized = true;
+            return FakeResult.updateCount(0);
+        }
+        if(upper.startsWith("SELECT COUNT(1) FROM") && upper.contains("DL_SYNC_CHANGE_SYNC")) {
+            return FakeResult.of(List.of("COUNT(1)"), List.<Object[]>of(new Object[]{changeSyncCount.get()}));
+        }
+        if(upper.startsWith("INSERT INTO") && upper.contains("DL_SYNC_CHANGE_SYNC")) {
+            changeSyncCount.incrementAndGet();
+            return FakeResult.updateCount(1);
+        }
+        if(upper.startsWith("UPDATE") && upper.contains("DL_SYNC_CHANGE_SYNC")) {
+            lastChangeSyncMetrics = (String) parameters.get(4);
+            if("DEPLOY".equals(parameters.get(0)) || "ROLLBACK".equals(parameters.get(0))) {
+                lastHistoryChange = new Object[]{parameters.get(0), parameters.get(1), parameters.get(5), parameters.get(6)};
+            }
+            if("DEPLOY".equals(parameters.get(0)) && "SUCCESS".equals(parameters.get(1))) {
+                lastDeployedCommitId = (String) parameters.get(5);
+                deployCount.incrementAndGet();
+            }
+            return FakeResult.updateCount(1);
+        }
+        if(upper.startsWith("SELECT MAX(CHANGE_SYNC_ID)")) {
+            long watermark = scriptHistory.values().stream().mapToLong(row -> (Long) row[6]).max().orElse(0);
+            return FakeResult.of(List.of("MAX(CHANGE_SYNC_ID)", "COUNT(1)"), List.<Object[]>of(new Object[]{watermark, (long) scriptHistory.size()}));
+        }
+        if(upper.startsWith("SELECT SCRIPT_ID, SCRIPT_HASH, DEPLOYED_HASH")) {
+            Matcher after = AFTER_CHANGE_SYNC_PATTERN.matcher(upper);
+            long afterChangeSyncId = after.find() ? Long.parseLong(after.group(1)) : Long.MIN_VALUE;
+            List<Object[]> rows = scriptHistory.values().stream()
+                    .filter(row -> (Long) row[6] > afterChangeSyncId)
+                    .map(row -> new Object[]{row[0], row[4], row[5]})
+                    .collect(Collectors.toList());
+            return FakeResult.of(List.of("SCRIPT_ID", "SCRIPT_HASH", "DEPLOYED_HASH"), rows);
+        }
+        if(upper.startsWith("SELECT * FROM") && upper.contains("DL_SYNC_SCRIPT_HISTORY")) {
+            Set<String> ids = new HashSet<>();
+            Matcher quoted = QUOTED_VALUE_PATTERN.matcher(upper.substring(upper.indexOf(" IN ")));
+            while(quoted.find()) {
+                ids.add(quoted.group(1).replace("''", "'"));
+            }
+            List<Object[]> rows = scriptHistory.values().stream()
+                    .filter(row -> ids.contains(row[0].toString().toUpperCase()))
+                    .collect(Collectors.toList());
+            return FakeResult.of(List.of("SCRIPT_ID", "OBJECT_NAME", "OBJECT_TYPE", "ROLLBACK_SCRIPT", "SCRIPT_HASH", "DEPLOYED_HASH", "CHANGE_SYNC_ID"), rows);
+        }
+        if(upper.startsWith("UPDATE") && upper.contains("DL_SYNC_SCRIPT_HISTORY")) {
+            Object[] row = scriptHistory.get((String) parameters.get(4));
+            if(row == null) {
+                return FakeResult.updateCount(0);
+            }
+            row[3] = parameters.get(0);
+            row[4] = parameters.get(1);
+            row[5] = parameters.get(2);
+            row[6] = parameters.get(3);
+            return FakeResult.updateCount(1);
+        }
+        if((upper.startsWith("INSERT INTO") || upper.startsWith("MERGE INTO")) && upper.contains("DL_SYNC_SCRIPT_HISTORY")) {
+            for(int index = 0; index + 7 <= parameters.size(); index += 7) {
+                scriptHistory.put((String) parameters.get(index), parameters.subList(index, index + 7).toArray());
+            }
+            return FakeResult.updateCount(parameters.size() / 7);
+        }
+        if(upper.startsWith("DELETE FROM") && upper.contains("DL_SYNC_SCRIPT_HISTORY")) {
+            return FakeResult.updateCount(scriptHistory.remove((String) parameters.get(0)) == null ? 0 : 1);
+        }
+        if(upper.startsWith("INSERT INTO") && upper.contains("DL_SYNC_SCRIPT_EVENT")) {
+            long events = Math.max(1, parameters.size() / 6);
+            eventCount.addAndGet(events);
+            return FakeResult.updateCount((int) events);
+        }
+        return FakeResult.updateCount(0);
+    }
+
+    private String getSchemaDdl(String schemaName) {
+        StringBuilder ddl = new StringBuilder(String.format("create or replace schema %s;\n\n", schemaName));
+        objects.entrySet().stream()
+                .filter(object -> object.getKey().startsWith(database + "." + schemaName + "."))
+                .sorted(Map.Entry.comparingByKey())
+                .forEach(object -> ddl.append(object.getValue()).append("\n\n"));
+        return ddl.toString();
+    }
+
+    private Set<String> getSchemaNames() {
+        return objects.keySet().stream()
+                .filter(name -> name.startsWith(database + "."))
+                .map(name -> name.split("\\.")[1])
+                .collect(Collectors.toCollection(TreeSet::new));
+    }
+
+    private void simulateRoundTrip(StatementType type) {
+        statementCounts.get(type).incrementAndGet();
+        long latency = latencyMillis.get(type);
+        if(latency > 0) {
+            try {
+                Thread.sleep(latency);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static String stripLeadingComments(String sql) {
+        String statement = sql.trim();
+        while(statement.startsWith("--") || statement.startsWith("/*")) {
+            int end = statement.startsWith("--") ? statement.indexOf('\n') : statement.indexOf("*/") + 1;
+            if(end <= 0) {
+                return "";
+            }
+            statement = statement.substring(end + 1).trim();
+        }
+        return statement;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(FakeSnowflakeBackend.class.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            try {
+                return handler.invoke(proxy, method, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        });
+    }
+
+    private static SQLFeatureNotSupportedException notSupported(String method) {
+        return new SQLFeatureNotSupportedException("Fake backend does not support " + method);
+    }
+
+    private class ConnectionHandler implements InvocationHandler {
+        private boolean autoCommit = true;
+        private boolean closed;
+
+        @Override
+        public Object invoke(Object proxy, java.lang.reflect.Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "createStatement":
+                    return proxy(Statement.class, new StatementHandler(null));
+                case "prepareStatement":
+                    return proxy(PreparedStatement.class, new StatementHandler((String) args[0]));
+                case "getAutoCommit":
+                    return autoCommit;
+                case "setAutoCommit":
+                    autoCommit = (Boolean) args[0];
+                    return null;
+                case "commit":
+                case "rollback":
+                    return null;
+                case "close":
+                    closed = true;
+                    return null;
+                case "isClosed":
+                    return closed;
+                case "isValid":
+                    return !closed;
+                case "isWrapperFor":
+                    return false;
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                case "toString":
+                    return "FakeSnowflakeConnection";
+                default:
+                    throw notSupported("Connection." + method.getName());
+            }
+        }
+    }
+
+    private class StatementHandler implements InvocationHandler {
+        private final String preparedSql;
+        private final List<Object> parameters = new ArrayList<>();
+        private FakeResult lastResult;
+
+        private StatementHandler(String preparedSql) {
+            this.preparedSql = preparedSql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, java.lang.reflect.Method method, Object[] args) throws Throwable {
+            String sql = args != null && args.length == 1 && args[0] instanceof String ? (String) args[0] : preparedSql;
+            switch (method.getName()) {
+                case "setString":
+                case "setLong":
+                case "setObject":
+                case "setInt":
+                    int index = (Integer) args[0] - 1;
+                    while(parameters.size() <= index) {
+                        parameters.add(null);
+                    }
+                    parameters.set(index, args[1]);
+                    return null;
+                case "executeQuery":
+                    lastResult = execute(sql, parameters).withRows();
+                    return lastResult.toResultSet();
+                case "executeUpdate":
+                    lastResult = execute(sql, parameters);
+                    return lastResult.updateCount;
+                case "execute":
+                    lastResult = execute(sql, parameters);
+                    return lastResult.rows != null;
+                case "getResultSet":
+                    return lastResult == null || lastResult.rows == null ? null : lastResult.toResultSet();
+                case "getUpdateCount":
+                    return lastResult == null ? -1 : lastResult.updateCount;
+                case "close":
+                case "setQueryTimeout":
+                    return null;
+                case "isWrapperFor":
+                    return false;
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                case "toString":
+                    return "FakeSnowflakeStatement";
+                default:
+                    throw notSupported("Statement." + method.getName());
+            }
+        }
+    }
+
+    private static class FakeResult {
+        private final List<String> columns;
+        private final List<Object[]> rows;
+        private final int updateCount;
+
+        private FakeResult(List<String> columns, List<Object[]> rows, int updateCount) {
+            this.columns = columns;
+            this.rows = rows;
+            this.updateCount = updateCount;
+        }
+
+        private static FakeResult of(List<String> columns, List<Object[]> rows) {
+            return new FakeResult(columns, new ArrayList<>(rows), -1);
+        }
+
+        private static FakeResult updateCount(int updateCount) {
+            return new FakeResult(null, null, updateCount);
+        }
+
+        private FakeResult withRows() {
+            return rows == null ? of(List.of("STATUS"), List.of()) : this;
+        }
+
+        private ResultSet toResultSet() {
+            return proxy(ResultSet.class, new ResultSetHandler(this));
+        }
+    }
+
+    private static class ResultSetHandler implements InvocationHandler {
+        private final FakeResult result;
+        private int rowIndex = -1;
+        private boolean wasNull;
+
+        private ResultSetHandler(FakeResult result) {
+            this.result = result;
+        }
+
+        @Override
+        public Object invoke(Object proxy, java.lang.reflect.Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "next":
+                    return ++rowIndex < result.rows.size();
+                case "getString":
+                    Object text = getValue(args[0]);
+                    return text == null ? null : text.toString();
+                case "getObject":
+                    return getValue(args[0]);
+                case "getLong":
+                    Object longValue = getValue(args[0]);
+                    return longValue == null ? 0L : ((Number) longValue).longValue();
+                case "getInt":
+                    Object intValue = getValue(args[0]);
+                    return intValue == null ? 0 : ((Number) intValue).intValue();
+                case "wasNull":
+                    return wasNull;
+                case "getMetaData":
+                    return proxy(ResultSetMetaData.class, (metaProxy, metaMethod, metaArgs) -> {
+                        switch (metaMethod.getName()) {
+                            case "getColumnCount":
+                                return result.columns.size();
+                            case "getColumnName":
+                            case "getColumnLabel":
+                                return result.columns.get((Integer) metaArgs[0] - 1);
+                            default:
+                                throw notSupported("ResultSetMetaData." + metaMethod.getName());
+                        }
+                    });
+                case "close":
+                    return null;
+                case "isWrapperFor":
+                    return false;
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                case "toString":
+                    return "FakeSnowflakeResultSet";
+                default:
+                    throw notSupported("ResultSet." + method.getName());
+            }
+        }
+
+        private Object getValue(Object column) throws SQLException {
+            if(rowIndex < 0 || rowIndex >= result.rows.size()) {
+                throw new SQLException("Result set is not positioned on a row");
+            }
+            int columnIndex = column instanceof Integer ? (Integer) column - 1 : indexOf((String) column);
+            Object value = result.rows.get(rowIndex)[columnIndex];
+            wasNull = value == null;
+            return value;
+        }
+
+        private int indexOf(String columnLabel) throws SQLException {
+            for(int index = 0; index < result.columns.size(); index++) {
+                if(result.columns.get(index).equalsIgnoreCase(columnLabel)) {
+                    return index;
+                }
+            }
+            throw new SQLException("Column not found: " + columnLabel);
+        }
+    }
+}
@@ -1,14 +1,22 @@
 package com.snowflake.dlsync.doa;
 
+import com.snowflake.dlsync.ScriptFactory;
 import com.snowflake.dlsync.models.*;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
+import java.nio.file.Path;
 import java.sql.*;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -173,6 +181,196 @@ class ScriptRepoTest {
         verify(mockConnection, atLeastOnce()).commit();
     }
 
+    @Test
+    void testBatchedHistoryFlushesOnBatchSize() throws SQLException {
+        scriptRepo.enableHistoryBatching(4, 60000L);
+        SchemaScript script1 = new SchemaScript("test/VIEW1.sql", "TEST_DB", "TEST_SCHEMA", "VIEW1", ScriptObjectType.VIEWS, "CREATE VIEW VIEW1 AS SELECT 1;");
+        SchemaScript script2 = new SchemaScript("test/VIEW2.sql", "TEST_DB", "TEST_SCHEMA", "VIEW2", ScriptObjectType.VIEWS, "CREATE VIEW VIEW2 AS SELECT 2;");
+
+        when(mockStatement.execute(anyString())).thenReturn(false);
+
+        scriptRepo.createScriptObject(script1, false);
+        verify(mockConnection, never()).prepareStatement(startsWith("MERGE INTO"));
+
+        scriptRepo.createScriptObject(script2, false);
+
+        ArgumentCaptor<String> sqlCaptor = ArgumentCaptor.forClass(String.class);
+        verify(mockConnection, atLeastOnce()).prepareStatement(sqlCaptor.capture());
+        assertEquals(1, sqlCaptor.getAllValues().stream().filter(sql -> sql.startsWith("MERGE INTO")).count(),
+            "History should be merged once per batch");
+        assertEquals(1, sqlCaptor.getAllValues().stream().filter(sql -> sql.contains("DL_SYNC_SCRIPT_EVENT") && sql.contains("FROM VALUES")).count(),
+            "Events should be inserted once per batch");
+        verify(mockConnection, times(1)).setAutoCommit(false);
+        verify(mockConnection, times(1)).commit();
+        verify(mockStatement, times(2)).execute(anyString());
+    }
+
+    @Test
+    void testBatchedHistoryCommitsMigrationsWithTheirHistory() throws SQLException {
+        scriptRepo.enableHistoryBatching(100, 60000L);
+        MigrationScript migration = ScriptFactory.getSchemaMigrationScript("TEST_DB", "TEST_SCHEMA", ScriptObjectType.TABLES, "TABLE1", "ALTER TABLE TABLE1 ADD COLUMN c INT;", 1L, "admin", null, null);
+
+        scriptRepo.createScriptObject(migration, false);
+
+        verify(mockConnection, times(1)).prepareStatement(startsWith("INSERT INTO null.null.DL_SYNC_SCRIPT_HISTORY"));
+        verify(mockConnection, times(1)).commit();
+        verify(mockConnection, never()).prepareStatement(startsWith("MERGE INTO"));
+    }
+
+    @Test
+    void testFailedHistoryFlushIsRolledBackAndKept() throws SQLException {
+        scriptRepo.enableHistoryBatching(100, 60000L);
+        SchemaScript script = new SchemaScript("test/VIEW1.sql", "TEST_DB", "TEST_SCHEMA", "VIEW1", ScriptObjectType.VIEWS, "CREATE VIEW VIEW1 AS SELECT 1;");
+        scriptRepo.createScriptObject(script, true);
+        when(mockPreparedStatement.executeUpdate()).thenThrow(new SQLException("insert failed")).thenReturn(1);
+
+        assertThrows(SQLException.class, () -> scriptRepo.flushScriptHistory());
+        verify(mockConnection, times(1)).rollback();
+        verify(mockConnection, never()).commit();
+
+        scriptRepo.flushScriptHistory();
+        verify(mockConnection, times(2)).prepareStatement(startsWith("MERGE INTO"));
+        verify(mockConnection, times(1)).commit();
+    }
+
+    @Test
+    void testBatchedHistoryFlushedOnChangeSyncUpdate() throws SQLException {
+        scriptRepo.enableHistoryBatching(100, 60000L);
+        SchemaScript script = new SchemaScript("test/VIEW1.sql", "TEST_DB", "TEST_SCHEMA", "VIEW1", ScriptObjectType.VIEWS, "CREATE VIEW VIEW1 AS SELECT 1;");
+
+        scriptRepo.createScriptObject(script, true);
+        verify(mockConnection, never()).prepareStatement(startsWith("MERGE INTO"));
+
+        scriptRepo.updateChangeSync(ChangeType.DEPLOY, Status.SUCCESS, "done", 1L);
+        verify(mockConnection, times(1)).prepareStatement(startsWith("MERGE INTO"));
+    }
+
+    @Test
+    void testStateCacheLoadsOnlyRowsAfterWatermark(@TempDir Path tempDir) throws SQLException {
+        DeploymentStateCache cache = new DeploymentStateCache(tempDir, "test_account", "TEST_DB", "PUBLIC");
+        Map<String, DeploymentState.ScriptState> cached = new HashMap<>();
+        cached.put("TEST_DB.PUBLIC.VIEW_A", new DeploymentState.ScriptState("hash_a", "hash_a"));
+        cache.save(new DeploymentState(3L, cached));
+
+        ResultSet watermarkResult = mock(ResultSet.class);
+        when(watermarkResult.next()).thenReturn(true);
+        when(watermarkResult.getLong(1)).thenReturn(5L);
+        when(watermarkResult.getLong(2)).thenReturn(2L);
+        ResultSet deltaResult = mock(ResultSet.class);
+        when(deltaResult.next()).thenReturn(true).thenReturn(false);
+        when(deltaResult.getString("SCRIPT_ID")).thenReturn("TEST_DB.PUBLIC.VIEW_B");
+        when(deltaResult.getString("SCRIPT_HASH")).thenReturn("hash_b");
+        when(mockStatement.executeQuery(startsWith("SELECT MAX(CHANGE_SYNC_ID)"))).thenReturn(watermarkResult);
+        when(mockStatement.executeQuery(contains("WHERE CHANGE_SYNC_ID > 3"))).thenReturn(deltaResult);
+
+        scriptRepo.setDeploymentStateCache(cache);
+        Set<String> ids = scriptRepo.loadScriptHash();
+
+        assertEquals(Set.of("TEST_DB.PUBLIC.VIEW_A", "TEST_DB.PUBLIC.VIEW_B"), ids);
+        verify(mockStatement, never()).executeQuery("SELECT SCRIPT_ID, SCRIPT_HASH, DEPLOYED_HASH FROM null.null.DL_SYNC_SCRIPT_HISTORY;");
+        assertEquals(5L, cache.load().getWatermark());
+    }
+
+    @Test
+    void testStateCacheReloadsWhenRowCountDiffers(@TempDir Path tempDir) throws SQLException {
+        DeploymentStateCache cache = new DeploymentStateCache(tempDir, "test_account", "TEST_DB", "PUBLIC");
+        Map<String, DeploymentState.ScriptState> cached = new HashMap<>();
+        cached.put("TEST_DB.PUBLIC.VIEW_A", new DeploymentState.ScriptState("hash_a", "hash_a"));
+        cached.put("TEST_DB.PUBLIC.ROLLED_BACK", new DeploymentState.ScriptState("hash_r", "hash_r"));
+        cache.save(new DeploymentState(5L, cached));
+
+        ResultSet watermarkResult = mock(ResultSet.class);
+        when(watermarkResult.next()).thenReturn(true);
+        when(watermarkResult.getLong(1)).thenReturn(5L);
+        when(watermarkResult.getLong(2)).thenReturn(1L);
+        ResultSet fullResult = mock(ResultSet.class);
+        when(fullResult.next()).thenReturn(true).thenReturn(false);
+        when(fullResult.getString("SCRIPT_ID")).thenReturn("TEST_DB.PUBLIC.VIEW_A");
+        when(fullResult.getString("SCRIPT_HASH")).thenReturn("hash_a");
+        when(mockStatement.executeQuery(startsWith("SELECT MAX(CHANGE_SYNC_ID)"))).thenReturn(watermarkResult);
+        when(mockStatement.executeQuery("SELECT SCRIPT_ID, SCRIPT_HASH, DEPLOYED_HASH FROM null.null.DL_SYNC_SCRIPT_HISTORY;")).thenReturn(fullResult);
+
+        scriptRepo.setDeploymentStateCache(cache);
+        Set<String> ids = scriptRepo.loadScriptHash();
+
+        assertEquals(Set.of("TEST_DB.PUBLIC.VIEW_A"), ids);
+        assertEquals(1, cache.load().getScripts().size());
+    }
+
+    @Test
+    void testGetAllScriptsInSchemasUsesConnectionPool() throws SQLException {
+        Connection pooledConnection = mock(Connection.class);
+        Statement pooledStatement = mock(Statement.class);
+        when(pooledConnection.createStatement()).thenReturn(pooledStatement);
+        when(pooledStatement.executeQuery(anyString())).thenAnswer(invocation -> {
+            String schema = invocation.getArgument(0, String.class).replaceAll(".*'SCHEMA', '(\\w+)'.*", "$1");
+            ResultSet ddlResult = mock(ResultSet.class);
+            when(ddlResult.next()).thenReturn(true);
+            when(ddlResult.getString(1)).thenReturn(String.format("create or replace schema %s;\ncreate or replace view TEST_DB.%s.VIEW1 as select 1;", schema, schema));
+            return ddlResult;
+        });
+        Properties props = new Properties();
+        props.setProperty("db", "TEST_DB");
+        ScriptRepo pooledRepo = new ScriptRepo(mockConnection, props, new ConnectionPool(() -> pooledConnection, 2));
+
+        Map<String, List<SchemaScript>> schemaScripts = pooledRepo.getAllScriptsInSchemas(List.of("SCHEMA1", "SCHEMA2", "SCHEMA3"), 2);
+
+        assertEquals(List.of("SCHEMA1", "SCHEMA2", "SCHEMA3"), List.copyOf(schemaScripts.keySet()));
+        assertEquals("TEST_DB.SCHEMA2.VIEW1", schemaScripts.get("SCHEMA2").get(0).getFullObjectName());
+        verify(pooledStatement, times(3)).executeQuery(startsWith("SELECT GET_DDL('SCHEMA'"));
+        verify(mockStatement, never()).executeQuery(startsWith("SELECT GET_DDL('SCHEMA'"));
+    }
+
+    @Test
+    void asyncSchemaDdlIsTimedUntilResultIsFetched() throws SQLException {
+        net.snowflake.client.jdbc.SnowflakeStatement asyncStatement = mock(net.snowflake.client.jdbc.SnowflakeStatement.class);
+        when(mockConnection.isWrapperFor(net.snowflake.client.jdbc.SnowflakeConnection.class)).thenReturn(true);
+        when(mockStatement.unwrap(net.snowflake.client.jdbc.SnowflakeStatement.class)).thenReturn(asyncStatement);
+        when(asyncStatement.executeAsyncQuery(anyString())).thenAnswer(invocation -> {
+            ResultSet ddlResult = mock(ResultSet.class);
+            when(ddlResult.next()).thenAnswer(next -> {
+                Thread.sleep(50);
+                return true;
+            });
+            when(ddlResult.getString(1)).thenReturn("create or replace view VIEW1 as select 1;");
+            return ddlResult;
+        });
+        com.snowflake.dlsync.MetricsRegistry metrics = new com.snowflake.dlsync.MetricsRegistry();
+        scriptRepo.setMetrics(metrics);
+
+        Map<String, List<SchemaScript>> schemaScripts = scriptRepo.getAllScriptsInSchemas(List.of("SCHEMA1", "SCHEMA2"), 2);
+
+        assertEquals(List.of("SCHEMA1", "SCHEMA2"), List.copyOf(schemaScripts.keySet()));
+        assertEquals(2, metrics.getTimerCount(com.snowflake.dlsync.MetricsRegistry.JDBC_ROUND_TRIP));
+        assertTrue(metrics.getTimerMillis(com.snowflake.dlsync.MetricsRegistry.JDBC_ROUND_TRIP) >= 100);
+    }
+
+    @Test
+    void exportConfigWritesInsertMigrationsInBatches() throws SQLException {
+        SchemaScript script = new SchemaScript("test/CONFIG.sql", "TEST_DB", "TEST_SCHEMA", "CONFIG", ScriptObjectType.TABLES,
+                "create or replace table TEST_DB.TEST_SCHEMA.CONFIG (key varchar, value varchar);");
+        ResultSet rows = mock(ResultSet.class);
+        ResultSetMetaData metaData = mock(ResultSetMetaData.class);
+        when(mockStatement.executeQuery("SELECT * FROM TEST_DB.TEST_SCHEMA.CONFIG")).thenReturn(rows);
+        when(rows.getMetaData()).thenReturn(metaData);
+        when(metaData.getColumnCount()).thenReturn(2);
+        when(rows.next()).thenReturn(true, true, true, false);
+        when(rows.getObject(1)).thenReturn("a", "it's", "c");
+        when(rows.getObject(2)).thenReturn("1", "C:\\temp", null);
+
+        List<String> migrations = new ArrayList<>();
+        long rowCount = scriptRepo.exportConfig(script, 2, migrations::add);
+
+        assertEquals(3, rowCount);
+        verify(mockStatement).setFetchSize(2);
+        assertEquals(List.of(
+                "---version: 1, author: DlSync\nINSERT INTO TEST_DB.TEST_SCHEMA.CONFIG values\n('a', '1'),\n('it''s', 'C:\\\\temp');" +
+                        "\n---rollback: DELETE FROM TEST_DB.TEST_SCHEMA.CONFIG;\n---verify: SELECT COUNT(*) FROM TEST_DB.TEST_SCHEMA.CONFIG;",
+                "---version: 2, author: DlSync\nINSERT INTO TEST_DB.TEST_SCHEMA.CONFIG values\n('c', null);" +
+                        "\n---verify: SELECT COUNT(*) FROM TEST_DB.TEST_SCHEMA.CONFIG;"
+        ), migrations);
+    }
+
     private ScriptRepo createScriptRepoWithMockedConnection() throws SQLException {
         Properties props = new Properties();
         props.setProperty("account", "test_account");
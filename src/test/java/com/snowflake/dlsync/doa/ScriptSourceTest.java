@@ -0,0 +1,101 @@
+package com.snowflake.dlsync.doa;
+
+import com.snowflake.dlsync.models.AccountScript;
+import com.snowflake.dlsync.models.MigrationScript;
+import com.snowflake.dlsync.models.SchemaScript;
+import com.snowflake.dlsync.models.Script;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScriptSourceTest {
+
+    @TempDir
+    Path scriptRoot;
+
+    private ScriptSource scriptSource;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        writeFile("main/DB1/SCHEMA1/VIEWS/VIEW1.SQL", "create or replace view DB1.SCHEMA1.VIEW1 as select 1;");
+        writeFile("main/DB1/SCHEMA1/TABLES/TABLE1.SQL", "---version: 0, author: dlsync\ncreate table DB1.SCHEMA1.TABLE1 (id int);");
+        writeFile("main/DB1/SCHEMA2/VIEWS/VIEW2.sql", "create or replace view DB1.SCHEMA2.VIEW2 as select 2;");
+        writeFile("main/DB1/SCHEMA2/VIEWS/NOTES.txt", "not a script");
+        writeFile("main/DB1/SCHEMA2/README.md", "outside object type directory");
+        writeFile("main/ACCOUNT/DATABASES/DB1.SQL", "create database if not exists DB1;");
+        writeFile("main/.dlsync/DB/SCHEMA/VIEWS/IGNORED.SQL", "create or replace view DB.SCHEMA.IGNORED as select 1;");
+        scriptSource = new ScriptSource(scriptRoot.toString());
+    }
+
+    @Test
+    void getAllFileScriptsReadsSchemaAndAccountScripts() throws IOException {
+        List<Script> scripts = scriptSource.getAllFileScripts();
+
+        Set<String> names = scripts.stream().map(Script::getFullObjectName).collect(Collectors.toSet());
+        assertEquals(Set.of("DB1.SCHEMA1.VIEW1", "DB1.SCHEMA1.TABLE1", "DB1.SCHEMA2.VIEW2", "DB1"), names);
+        assertTrue(scripts.get(scripts.size() - 1) instanceof AccountScript, "Account scripts should be after schema scripts");
+        SchemaScript view = (SchemaScript) scripts.stream().filter(script -> script.getObjectName().equals("VIEW1")).findFirst().get();
+        assertEquals(scriptRoot.resolve("main/DB1/SCHEMA1/VIEWS/VIEW1.SQL").toString(), view.getScriptPath());
+    }
+
+    @Test
+    void getAllFileScriptsIsMemoizedUntilCacheCleared() throws IOException {
+        List<Script> first = scriptSource.getAllFileScripts();
+        writeFile("main/DB1/SCHEMA1/VIEWS/VIEW3.SQL", "create or replace view DB1.SCHEMA1.VIEW3 as select 3;");
+
+        List<Script> second = scriptSource.getAllFileScripts();
+        assertEquals(first.size(), second.size());
+        assertSame(first.get(0), second.get(0));
+
+        scriptSource.clearCache();
+        assertEquals(first.size() + 1, scriptSource.getAllFileScripts().size());
+    }
+
+    @Test
+    void scriptFileCacheReturnsCopiesAndParsesChangedFilesAgain() throws IOException {
+        ScriptFileCache scriptFileCache = new ScriptFileCache();
+        scriptSource.setScriptFileCache(scriptFileCache);
+        Script table = findScript(scriptSource.getAllFileScripts(), "TABLE1");
+        table.getMigrations().get(0).setContent("changed by deploy");
+        writeFile("main/DB1/SCHEMA1/VIEWS/VIEW1.SQL", "create or replace view DB1.SCHEMA1.VIEW1 as select 10;");
+
+        ScriptSource nextSource = new ScriptSource(scriptRoot.toString());
+        nextSource.setScriptFileCache(scriptFileCache);
+        List<Script> scripts = nextSource.getAllFileScripts();
+
+        assertEquals(4, scriptFileCache.size());
+        Script cachedTable = findScript(scripts, "TABLE1");
+        assertNotSame(table, cachedTable);
+        assertEquals(table.getHash(), cachedTable.getHash());
+        assertTrue(cachedTable.getMigrations().get(0).getContent().startsWith("---version: 0"));
+        assertSame(cachedTable, ((MigrationScript) cachedTable.getMigrations().get(0)).getParentScript());
+        assertTrue(findScript(scripts, "VIEW1").getContent().endsWith("select 10;"));
+    }
+
+    @Test
+    void getScriptsInSchemaReadsOnlySchemaDirectory() throws IOException {
+        List<SchemaScript> scripts = scriptSource.getScriptsInSchema("DB1", "SCHEMA2");
+        assertEquals(1, scripts.size());
+        assertEquals("DB1.SCHEMA2.VIEW2", scripts.get(0).getFullObjectName());
+        assertEquals(1, scriptSource.getScriptsInAccount().size());
+    }
+
+    private Script findScript(List<Script> scripts, String objectName) {
+        return scripts.stream().filter(script -> script.getObjectName().equals(objectName)).findFirst().get();
+    }
+
+    private void writeFile(String relativePath, String content) throws IOException {
+        Path file = scriptRoot.resolve(relativePath);
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, content);
+    }
+}
@@ -0,0 +1,42 @@
+package com.snowflake.dlsync.doa;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScriptWatcherTest {
+
+    @TempDir
+    Path scriptRoot;
+
+    @Test
+    void takeReturnsChangedFilesOfNewDirectories() throws IOException, InterruptedException {
+        Path mainDir = Files.createDirectories(scriptRoot.resolve("main"));
+        Files.createDirectories(mainDir.resolve(".dlsync"));
+        try (ScriptWatcher watcher = new ScriptWatcher(List.of(mainDir, scriptRoot.resolve("test")), 200)) {
+            Path viewsDir = Files.createDirectories(mainDir.resolve("DB1/SCHEMA1/VIEWS"));
+            Path view = Files.writeString(viewsDir.resolve("VIEW1.SQL"), "create or replace view VIEW1 as select 1 as id;");
+            Files.writeString(mainDir.resolve(".dlsync/dependencies.json"), "{}");
+
+            ScriptWatcher.Changes changes = watcher.take();
+            while(!changes.getPaths().contains(view)) {
+                changes = watcher.take();
+            }
+
+            assertFalse(changes.isOverflow());
+            assertTrue(changes.getPaths().stream().noneMatch(path -> path.toString().contains(".dlsync")));
+
+            Files.delete(view);
+            changes = watcher.take();
+
+            assertTrue(changes.getPaths().contains(view));
+            assertFalse(Files.exists(view));
+        }
+    }
+}
@@ -69,4 +69,22 @@ class ParameterInjectorTest {
         String expected = "${DB}.${SCHEMA1}.VIEW1";
         assertEquals(expected, actual, "parameterize object name test failed");
     }
-}
\ No newline at end of file
+
+    @Test
+    void injectParametersIgnoresCaseTest() {
+        String content = "select * from ${DB}.${Schema1}.table1 where id = '${unknown}'";
+        SchemaScript script = ScriptFactory.getSchemaScript("", "", ScriptObjectType.VIEWS, "VIEW1", content);
+        parameterInjector.injectParameters(script);
+        String expected = "select * from TEST_DB.test_schema_1.table1 where id = '${unknown}'";
+        assertEquals(expected, script.getContent(), "parameter injection test failed");
+    }
+
+    @Test
+    void parametrizeScriptAdjacentValuesTest() {
+        String content = "select * from table(test_db.test_schema_1.fn(test_db,test_db)) where db = test_db_2.test_schema_2.id";
+        SchemaScript script = ScriptFactory.getSchemaScript("", "", ScriptObjectType.VIEWS, "VIEW1", content);
+        parameterInjector.parametrizeScript(script, false);
+        String expected = "select * from table(${db}.${schema1}.fn(${db},${db})) where db = test_db_2.${schema2}.id";
+        assertEquals(expected, script.getContent(), "parameterize script test failed");
+    }
+}
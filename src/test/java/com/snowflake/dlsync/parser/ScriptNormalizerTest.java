@@ -0,0 +1,40 @@
+package com.snowflake.dlsync.parser;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScriptNormalizerTest {
+
+    @Test
+    void formattingAndCommentsAreIgnored() {
+        String original = "create or replace view ${db}.${schema}.VIEW1 as select id, 'Some Text' as label from ${db}.${schema}.TABLE1;";
+        String reformatted = "-- summary view\nCREATE OR REPLACE VIEW ${db}.${schema}.view1 AS\n    SELECT id, /* label */ 'Some Text' AS label\n    FROM ${db}.${schema}.TABLE1;\n";
+
+        assertEquals(ScriptNormalizer.normalize(original), ScriptNormalizer.normalize(reformatted));
+        assertEquals("CREATE OR REPLACE VIEW ${DB} . ${SCHEMA} . VIEW1 AS SELECT ID , 'Some Text' AS LABEL FROM ${DB} . ${SCHEMA} . TABLE1 ;",
+                ScriptNormalizer.normalize(original));
+    }
+
+    @Test
+    void literalsAndQuotedIdentifiersKeepTheirCase() {
+        assertNotEquals(ScriptNormalizer.normalize("select 'a' as \"Label\";"), ScriptNormalizer.normalize("select 'A' as \"Label\";"));
+        assertNotEquals(ScriptNormalizer.normalize("select 'a' as \"Label\";"), ScriptNormalizer.normalize("select 'a' as \"LABEL\";"));
+        assertNotEquals(ScriptNormalizer.normalize("select 1 from t where a = 1;"), ScriptNormalizer.normalize("select 1 from t where a = 2;"));
+        assertNotEquals(ScriptNormalizer.normalize("select 1 # 2;"), ScriptNormalizer.normalize("select 1 2;"));
+    }
+
+    @Test
+    void bodiesAndQuotedTextKeepTheirCaseAndSpacing() {
+        String procedure = "create or replace procedure P1() returns string language javascript as $$\n  var x = 1; // keep\n  return x;\n$$;";
+        String function = "create function F1() returns string language python handler='run' as '\ndef run():\n    return \"a\"\n';";
+
+        assertEquals("CREATE OR REPLACE PROCEDURE P1 ( ) RETURNS STRING LANGUAGE JAVASCRIPT AS $$\n  var x = 1; // keep\n  return x;\n$$ ;",
+                ScriptNormalizer.normalize(procedure));
+        assertNotEquals(ScriptNormalizer.normalize(procedure), ScriptNormalizer.normalize(procedure.replace("var x", "var X")));
+        assertNotEquals(ScriptNormalizer.normalize(function), ScriptNormalizer.normalize(function.replace("    return", "  return")));
+        assertEquals(ScriptNormalizer.normalize(function), ScriptNormalizer.normalize(function.toUpperCase().replace("'\nDEF RUN():\n    RETURN \"A\"\n'", "'\ndef run():\n    return \"a\"\n'").replace("'RUN'", "'run'")));
+        assertNotEquals(ScriptNormalizer.normalize("select 1 as \"my label\";"), ScriptNormalizer.normalize("select 1 as \"MY LABEL\";"));
+        assertEquals(ScriptNormalizer.normalize(procedure), ScriptNormalizer.normalize(SqlTokens.tokenize(procedure)));
+    }
+}
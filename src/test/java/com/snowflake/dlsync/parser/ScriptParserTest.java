@@ -0,0 +1,32 @@
+package com.snowflake.dlsync.parser;
+
+import com.snowflake.dlsync.ScriptFactory;
+import com.snowflake.dlsync.models.SchemaScript;
+import com.snowflake.dlsync.models.ScriptObjectType;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScriptParserTest {
+
+    @Test
+    void parseFallsBackToLlPrediction() {
+        SchemaScript simpleView = ScriptFactory.getSchemaScript("DB1", "SCHEMA1", ScriptObjectType.VIEWS, "VIEW1",
+                "create or replace view DB1.SCHEMA1.VIEW1 as select id from DB1.SCHEMA1.TABLE1;");
+        SchemaScript filteredView = ScriptFactory.getSchemaScript("DB1", "SCHEMA1", ScriptObjectType.VIEWS, "VIEW2",
+                "create or replace view DB1.SCHEMA1.VIEW2 as select id from DB1.SCHEMA1.TABLE1 where amount > 100;");
+
+        ScriptParser simpleParser = new ViewScriptParser(simpleView);
+        simpleParser.parse();
+        ScriptParser filteredParser = new ViewScriptParser(filteredView);
+        filteredParser.parse();
+
+        assertEquals("DB1.SCHEMA1.VIEW1", simpleParser.getObjectName());
+        assertEquals(Set.of("DB1.SCHEMA1.TABLE1"), simpleParser.getObjectReferences());
+        assertEquals("DB1.SCHEMA1.VIEW2", filteredParser.getObjectName());
+        assertEquals(Set.of("DB1.SCHEMA1.TABLE1"), filteredParser.getObjectReferences());
+        assertEquals("select id from DB1.SCHEMA1.TABLE1 where amount > 100", filteredParser.getMainQuery());
+    }
+}
@@ -191,6 +191,25 @@ class SqlTokenizerTest {
 
     }
 
+    @Test
+    void getIdentifierChainsTest() {
+        String content = "select * from schema1.object_name1 -- comment_object\n join \"schema3\".\"object_name3\" on x::varchar = 'string_object' join db1.schema2.object_name2;";
+        List<String[]> chains = SqlTokenizer.getIdentifierChains(content);
+        List<List<String>> actual = new java.util.ArrayList<>();
+        chains.forEach(chain -> actual.add(List.of(chain)));
+        List<List<String>> expected = List.of(
+                List.of("select"),
+                List.of("from"),
+                List.of("schema1", "object_name1"),
+                List.of("join"),
+                List.of("schema3", "object_name3"),
+                List.of("on"),
+                List.of("join"),
+                List.of("db1", "schema2", "object_name2")
+        );
+        assertEquals(expected, actual, "Test failed to extract identifier chains.");
+    }
+
     @Test
     void parseDdlScriptsTest() {
         String ddl = "create or replace schema schema1;\n\n" +
@@ -288,6 +307,16 @@ class SqlTokenizerTest {
         assertEquals(expected, actual, "Failed to remove comments.");
     }
 
+    @Test
+    void removeSqlStringLiteralsManual() {
+        String sql = "select 'abc' as x, 'it''s' as y from t where a = 'x\\'y';";
+        String expected = "select '' as x, '' as y from t where a = '';";
+        assertEquals(expected, SqlTokenizer.removeSqlStringLiteralsManual(sql));
+
+        String function = "create function f() returns int AS\n  'select 1'";
+        assertEquals(function, SqlTokenizer.removeSqlStringLiteralsManual(function));
+    }
+
     @Test
     void parseSchemaScriptTypeView() {
         String filePath = "db_scripts/db1/schema1/VIEWS/VIEW1.SQL";
@@ -1039,5 +1068,12 @@ class SqlTokenizerTest {
         assertEquals(content, script.getContent(), "Script content should match the input content");
     }
 
-
-}
\ No newline at end of file
+    @Test
+    void identifierPatternCacheIsBounded() {
+        for(int i = 0; i < 2000; i++) {
+            SqlTokenizer.getFullIdentifiers("OBJECT_" + i, "select * from OBJECT_" + i + ";");
+        }
+        assertTrue(SqlTokenizer.getIdentifierPatternCount() <= 1024, "Identifier patterns of unused names should be dropped");
+        assertEquals(Set.of("OBJECT_1"), SqlTokenizer.getFullIdentifiers("OBJECT_1", "select * from OBJECT_1;"));
+    }
+}
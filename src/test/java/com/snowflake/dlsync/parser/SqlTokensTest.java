@@ -0,0 +1,61 @@
+package com.snowflake.dlsync.parser;
+
+import com.snowflake.dlsync.ScriptFactory;
+import com.snowflake.dlsync.models.SchemaScript;
+import com.snowflake.dlsync.models.ScriptObjectType;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SqlTokensTest {
+
+    @Test
+    void commentsAndLiteralsAreClassified() {
+        SqlTokens tokens = SqlTokens.tokenize("select 'a -- b' /* c */ from \"Db\".T1 -- d");
+
+        List<Byte> kinds = new ArrayList<>();
+        for(int token = 0; token < tokens.size(); token++) {
+            kinds.add(tokens.getKind(token));
+        }
+        assertEquals(List.of(SqlTokens.IDENTIFIER, SqlTokens.STRING, SqlTokens.COMMENT, SqlTokens.IDENTIFIER,
+                SqlTokens.QUOTED_IDENTIFIER, SqlTokens.SYMBOL, SqlTokens.IDENTIFIER, SqlTokens.COMMENT), kinds);
+        assertEquals("'a -- b'", tokens.getText(1));
+        assertEquals("select 'a -- b'  from \"Db\".T1 ", tokens.getContentWithoutComments());
+    }
+
+    @Test
+    void bodiesAndQuotedQueriesAreTokenizedAsCode() {
+        String content = "create function f() returns int as 'select count(*) from db1.schema1.table1'; " +
+                "call run(\"select * from db1.schema1.table2 -- not a comment\");";
+        List<String> chains = new ArrayList<>();
+        SqlTokens.tokenize(content).getIdentifierChains().forEach(chain -> chains.add(String.join(".", chain)));
+
+        assertTrue(chains.contains("db1.schema1.table1"), chains.toString());
+        assertTrue(chains.contains("db1.schema1.table2"), chains.toString());
+        assertTrue(chains.contains("comment"), chains.toString());
+    }
+
+    @Test
+    void firstFullIdentifierKeepsQualifiersAsWritten() {
+        SqlTokens tokens = SqlTokens.tokenize("create or replace view \"DB1\".${schema}.VIEW1 as select * from other.view2;");
+
+        assertEquals("\"DB1\".${schema}.VIEW1", tokens.getFirstFullIdentifier("view1"));
+        assertEquals("\"DB1\".${schema}.VIEW1", tokens.getFirstFullIdentifier("${SCHEMA}.VIEW1"));
+        assertEquals("other.view2", tokens.getFirstFullIdentifier("VIEW2"));
+        assertNull(tokens.getFirstFullIdentifier("VIEW3"));
+    }
+
+    @Test
+    void scriptReusesTokensUntilContentChanges() {
+        SchemaScript script = ScriptFactory.getSchemaScript("TEST_DB", "TEST_SCHEMA", ScriptObjectType.VIEWS, "VIEW1", "create or replace view VIEW1 as select 1;");
+        SqlTokens tokens = script.getTokens();
+
+        assertSame(tokens, script.getTokens());
+        script.setContent("create or replace view VIEW1 as select 2;");
+        assertNotSame(tokens, script.getTokens());
+        assertEquals(script.getContent(), script.getTokens().getContent());
+    }
+}
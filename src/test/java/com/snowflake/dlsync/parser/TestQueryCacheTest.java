@@ -0,0 +1,55 @@
+package com.snowflake.dlsync.parser;
+
+import com.snowflake.dlsync.ScriptFactory;
+import com.snowflake.dlsync.models.Script;
+import com.snowflake.dlsync.models.ScriptObjectType;
+import com.snowflake.dlsync.models.TestScript;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class TestQueryCacheTest {
+    private static final String VIEW = "create or replace view DB1.SCHEMA1.VIEW1 as select id, amount from DB1.SCHEMA1.TABLE1 where amount > 100;";
+    private static final String TEST = "with TABLE1 as (select 1 as id, 500 as amount),\nEXPECTED_DATA as (select 1 as id, 500 as amount)\nselect * from VIEW1;";
+
+    @Test
+    void unchangedTestIsReadFromCacheFile(@TempDir Path cacheDirectory) throws IOException {
+        TestQueryCache cache = new TestQueryCache(cacheDirectory);
+        String testQuery = cache.getTestQuery(createTestScript(VIEW, TEST));
+        cache.save();
+        assertTrue(Files.exists(cache.getCacheFile()));
+
+        TestScript testScript = spy(createTestScript(VIEW, TEST));
+        assertEquals(testQuery, new TestQueryCache(cacheDirectory).getTestQuery(testScript));
+        verify(testScript, never()).getTestQuery();
+    }
+
+    @Test
+    void changedMainScriptGeneratesQueryAgain(@TempDir Path cacheDirectory) throws IOException {
+        TestQueryCache cache = new TestQueryCache(cacheDirectory);
+        cache.getTestQuery(createTestScript(VIEW, TEST));
+        cache.save();
+
+        TestScript testScript = spy(createTestScript(VIEW.replace("> 100", "> 200"), TEST));
+        String testQuery = new TestQueryCache(cacheDirectory).getTestQuery(testScript);
+        verify(testScript).getTestQuery();
+        assertTrue(testQuery.contains("amount > 200"), testQuery);
+    }
+
+    @Test
+    void testQueryIsGeneratedOnce() throws IOException {
+        TestScript testScript = createTestScript(VIEW, TEST);
+        assertSame(testScript.getTestQuery(), testScript.getTestQuery());
+    }
+
+    private TestScript createTestScript(String view, String test) {
+        Script mainScript = ScriptFactory.getSchemaScript("DB1", "SCHEMA1", ScriptObjectType.VIEWS, "VIEW1", view);
+        return ScriptFactory.getTestScript("VIEW1_TEST.SQL", "VIEW1_TEST", test, mainScript);
+    }
+}